@@ -0,0 +1,121 @@
+package ru.project.buySellStore.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import ru.project.buySellStore.dto.RegisterDTO;
+import ru.project.buySellStore.exception.handler.GlobalExceptionHandler;
+import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формирование ответа с ошибкой в {@link GlobalExceptionHandler}: создание исключения,
+ * обработка со счетчиком исключений и сериализация {@link ru.project.buySellStore.dto.ErrorDTO} в JSON.
+ * Запись в журнал с трассировкой стека измеряется отдельно, вывод журнала отбрасывается
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    /**
+     * Записывается ли ошибка в журнал, как в приложении
+     */
+    @Param({"false", "true"})
+    private boolean logging;
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+
+    private ObjectMapper objectMapper;
+
+    private MethodArgumentNotValidException validationException;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        configureLogger();
+
+        RegisterDTO register = new RegisterDTO("user 1!", "user", "", null);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(register, "registerDTO");
+        bindingResult.addError(new FieldError("registerDTO", "login", "Логин должен состоять только из букв и цифр"));
+        bindingResult.addError(new FieldError("registerDTO", "email",
+                "Адрес электронной почты должен быть корректным, например: user@gmail.com"));
+        bindingResult.addError(new FieldError("registerDTO", "password", "Пароль не должен быть пустым"));
+        MethodParameter parameter = new MethodParameter(
+                ExceptionHandlerBenchmark.class.getDeclaredMethod("register", RegisterDTO.class), 0);
+        validationException = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    /**
+     * Ответ 404 на запрос несуществующего товара. Исключение создается в каждом вызове, как в сервисе
+     */
+    @Benchmark
+    public byte[] notFound() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handleNotFoundEx(new ProductNotFoundException(1L)).getBody());
+    }
+
+    /**
+     * Ответ 400 на тело запроса регистрации с тремя нарушениями
+     */
+    @Benchmark
+    public byte[] validationFailed() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handle(validationException).getBody());
+    }
+
+    /**
+     * Направить журнал обработчика в отбрасывающий поток с форматом консольного журнала Spring Boot
+     * или отключить его
+     */
+    private void configureLogger() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ch.qos.logback.classic.Logger logger = context.getLogger(GlobalExceptionHandler.class);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        if (!logging) {
+            logger.setLevel(Level.OFF);
+            return;
+        }
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %pid --- [%t] %-40.40logger{39} : %m%n%ex");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        logger.setLevel(Level.ERROR);
+        logger.addAppender(appender);
+    }
+
+    @SuppressWarnings("unused")
+    private void register(RegisterDTO registerDTO) {
+    }
+}
@@ -0,0 +1,73 @@
+package ru.project.buySellStore.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.dto.UserDTO;
+import ru.project.buySellStore.event.ProductSnapshot;
+import ru.project.buySellStore.mapper.ProductMapper;
+import ru.project.buySellStore.mapper.UserMapper;
+import ru.project.buySellStore.model.Product;
+import ru.project.buySellStore.model.Role;
+import ru.project.buySellStore.model.User;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование сущностей в DTO, которое выполняется для каждого товара и пользователя в ответе
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final ProductMapper productMapper = new ProductMapper();
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private Product product;
+
+    private ProductSnapshot productSnapshot;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        product = new Product();
+        product.setId(1L);
+        product.setName("Футболка");
+        product.setDescription("Хлопковая футболка");
+        product.setCategory("CLOTHES");
+        product.setCost(1000);
+        productSnapshot = ProductSnapshot.of(product);
+        user = new User(1L, "user", "user@buy-sell-store.ru", "$2a$10$hash", new Date(0),
+                "Екатеринбург", "Описание пользователя", Role.BUYER);
+    }
+
+    @Benchmark
+    public ProductDTO productToDto() {
+        return productMapper.toDto(product);
+    }
+
+    @Benchmark
+    public ProductDTO productSnapshotToDto() {
+        return productMapper.toDto(productSnapshot);
+    }
+
+    @Benchmark
+    public UserDTO userToDto() {
+        return userMapper.mapToUserDTO(user);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.project.buySellStore.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.project.buySellStore.dto.ProductDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация списка товаров в JSON, как в ответах со страницей каталога.
+ * {@link ObjectMapper} создается с теми же настройками по умолчанию, что и в Spring MVC
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    /**
+     * Количество товаров в списке: страница по умолчанию, наибольшая страница и большой ответ
+     */
+    @Param({"20", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectWriter listWriter;
+
+    private List<ProductDTO> products;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, ProductDTO.class));
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new ProductDTO((long) i, "Товар " + i, "Описание товара номер " + i,
+                    "CLOTHES", 1000 + i));
+        }
+    }
+
+    /**
+     * Сериализация так, как ее выполняет конвертер Spring MVC: тип списка определяется по значению
+     */
+    @Benchmark
+    public byte[] writeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    /**
+     * Сериализация заранее подготовленным {@link ObjectWriter} для {@code List<ProductDTO>}
+     */
+    @Benchmark
+    public byte[] writeListWithTypedWriter() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(products);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.project.buySellStore.benchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.dto.RegisterDTO;
+import ru.project.buySellStore.model.Role;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation тел запросов регистрации и создания товара: корректных
+ * и с нарушениями, для которых дополнительно формируются сообщения
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private RegisterDTO validRegister;
+
+    private RegisterDTO invalidRegister;
+
+    private ProductDTO validProduct;
+
+    private ProductDTO invalidProduct;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validRegister = new RegisterDTO("user1", "user@buy-sell-store.ru", "Passw0rd!", Role.BUYER);
+        invalidRegister = new RegisterDTO("user 1!", "user", "", Role.BUYER);
+        validProduct = new ProductDTO("Футболка", "Хлопковая футболка", "CLOTHES", 1000);
+        invalidProduct = new ProductDTO("Bad!", "", "clothes", -1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RegisterDTO>> validRegisterDto() {
+        return validator.validate(validRegister);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RegisterDTO>> invalidRegisterDto() {
+        return validator.validate(invalidRegister);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductDTO>> validProductDto() {
+        return validator.validate(validProduct);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductDTO>> invalidProductDto() {
+        return validator.validate(invalidProduct);
+    }
+}
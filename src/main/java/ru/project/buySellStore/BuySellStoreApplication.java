@@ -2,11 +2,13 @@ package ru.project.buySellStore;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Главный класс приложения BuySellStore
  */
 @SpringBootApplication
+@EnableScheduling
 public class BuySellStoreApplication {
 
 	/**
@@ -0,0 +1,74 @@
+package ru.project.buySellStore.catalog;
+
+import java.time.Instant;
+
+/**
+ * <b>Неизменяемый снимок открытого каталога в виде готового JSON.</b>
+ * <p>
+ *     Хранит JSON-массив товаров и его копию, сжатую gzip. Массивы передаются
+ *     в ответ без копирования, поэтому изменять их нельзя
+ * </p>
+ */
+public final class CatalogSnapshot {
+
+    private final byte[] json;
+
+    private final byte[] gzip;
+
+    private final int products;
+
+    private final long version;
+
+    private final Instant builtAt;
+
+    /**
+     * Создание снимка
+     * @param json JSON-массив товаров в UTF-8
+     * @param gzip JSON-массив товаров, сжатый gzip
+     * @param products количество товаров в снимке
+     * @param version номер снимка, увеличивается при каждой пересборке
+     * @param builtAt время сборки снимка
+     */
+    public CatalogSnapshot(byte[] json, byte[] gzip, int products, long version, Instant builtAt) {
+        this.json = json;
+        this.gzip = gzip;
+        this.products = products;
+        this.version = version;
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * Получить JSON-массив товаров
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Получить JSON-массив товаров, сжатый gzip
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * Получить количество товаров в снимке
+     */
+    public int getProducts() {
+        return products;
+    }
+
+    /**
+     * Получить номер снимка
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Получить время сборки снимка
+     */
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+}
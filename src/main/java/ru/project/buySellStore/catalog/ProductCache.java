@@ -0,0 +1,117 @@
+package ru.project.buySellStore.catalog;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductSnapshot;
+import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
+import ru.project.buySellStore.repository.ProductRepository;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * <b>Кэш товаров для получения товара по id.</b>
+ * <p>
+ *     Хранит неизменяемые снимки товаров ограниченное время. Одновременные промахи
+ *     по одному id ожидают одну загрузку из базы данных. Запись удаляется после фиксации
+ *     транзакции, изменившей товар, по событию {@link ProductChangedEvent}.
+ *     Отсутствующие товары не кэшируются
+ * </p>
+ * <p>
+ *     Товар загружается вызывающим потоком вне блокировок кэша: синхронный кэш Caffeine
+ *     выполняет загрузку внутри {@code synchronized}-секции {@link java.util.concurrent.ConcurrentHashMap},
+ *     которая закрепляет виртуальный поток за потоком-носителем на время запроса к базе данных
+ * </p>
+ */
+@Component
+public class ProductCache {
+
+    static final String CACHE_NAME = "products";
+
+    private final ProductRepository productRepository;
+
+    private final AsyncCache<Long, ProductSnapshot> cache;
+
+    private final Counter invalidations;
+
+    /**
+     * Создание кэша с внедрением нужных зависимостей
+     * @param productRepository репозиторий для загрузки товаров
+     * @param meterRegistry реестр метрик для публикации попаданий, промахов и вытеснений
+     * @param maximumSize максимальное количество товаров в кэше
+     * @param timeToLive время хранения товара в кэше после загрузки
+     */
+    @Autowired
+    public ProductCache(ProductRepository productRepository, MeterRegistry meterRegistry,
+                        @Value("${buy-sell-store.product-cache.maximum-size}") long maximumSize,
+                        @Value("${buy-sell-store.product-cache.time-to-live}") Duration timeToLive) {
+        this.productRepository = productRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync();
+        this.invalidations = Counter.builder("cache.invalidations")
+                .tag("cache", CACHE_NAME)
+                .description("Количество записей, удаленных из кэша после изменения товара")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Получить товар по id из кэша или из базы данных
+     * @throws ProductNotFoundException если товар не найден
+     */
+    public ProductSnapshot get(Long id) throws ProductNotFoundException {
+        CompletableFuture<ProductSnapshot> loading = new CompletableFuture<>();
+        CompletableFuture<ProductSnapshot> cached = cache.get(id, (key, executor) -> loading);
+        if (cached == loading) {
+            load(id, loading);
+        }
+        ProductSnapshot product;
+        try {
+            product = cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+        if (product == null) {
+            throw new ProductNotFoundException(id);
+        }
+        return product;
+    }
+
+    /**
+     * Удаление товара из кэша после фиксации транзакции, изменившей товар
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.synchronous().invalidate(event.getProductId());
+        invalidations.increment();
+    }
+
+    /**
+     * Загрузить товар и завершить ожидающую его запись кэша.
+     * Запись, завершенная с {@code null} или ошибкой, удаляется из кэша
+     */
+    private void load(Long id, CompletableFuture<ProductSnapshot> loading) {
+        try {
+            loading.complete(productRepository.findById(id)
+                    .map(ProductSnapshot::of)
+                    .orElse(null));
+        } catch (RuntimeException | Error e) {
+            loading.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.project.buySellStore.catalog;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductsImportedEvent;
+import ru.project.buySellStore.mapper.ProductMapper;
+import ru.project.buySellStore.service.ProductService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <b>Снимок открытого каталога, собранный заранее.</b>
+ * <p>
+ *     Каталог сериализуется в JSON и сжимается один раз, после чего запросы получают
+ *     готовые байты без обращения к базе данных и без сериализации. Снимок собирается
+ *     при запуске приложения и пересобирается целиком после изменения товаров:
+ *     изменения, пришедшие за время задержки, объединяются в одну пересборку.
+ *     Новый снимок заменяет старый одной записью ссылки
+ * </p>
+ * <p>Включается свойством {@code buy-sell-store.catalog.snapshot.enabled}</p>
+ */
+@Component
+@ConditionalOnProperty(name = "buy-sell-store.catalog.snapshot.enabled", havingValue = "true")
+public class ProductCatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogSnapshot.class);
+
+    private final ProductService productService;
+
+    private final ProductMapper productMapper;
+
+    private final ObjectWriter writer;
+
+    private final Duration debounce;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    /**
+     * Не дает двум сборкам идти одновременно. Не {@code synchronized}: сборка читает базу данных,
+     * а ожидание ввода-вывода внутри монитора закрепляет виртуальный поток
+     */
+    private final Lock rebuildLock = new ReentrantLock();
+
+    private volatile CatalogSnapshot snapshot;
+
+    /**
+     * Создание снимка с внедрением нужных зависимостей
+     * @param productService сервис товаров, из которого собирается снимок
+     * @param productMapper маппер Товара
+     * @param objectMapper сериализатор JSON
+     * @param debounce задержка пересборки после изменения товара
+     */
+    @Autowired
+    public ProductCatalogSnapshot(ProductService productService, ProductMapper productMapper,
+                                  ObjectMapper objectMapper,
+                                  @Value("${buy-sell-store.catalog.snapshot.debounce}") Duration debounce) {
+        this.productService = productService;
+        this.productMapper = productMapper;
+        this.writer = objectMapper.writerFor(ProductDTO.class);
+        this.debounce = debounce;
+    }
+
+    /**
+     * Получить текущий снимок или {@code null}, если он еще не собран
+     */
+    public CatalogSnapshot get() {
+        return snapshot;
+    }
+
+    /**
+     * Сборка снимка при запуске приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    /**
+     * Планирование пересборки снимка после изменения товара.
+     * Если пересборка уже запланирована, новое изменение попадет в нее
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    /**
+     * Планирование пересборки снимка после массовой загрузки товаров
+     */
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        scheduleRebuild();
+    }
+
+    /**
+     * Остановка потока пересборки
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::runScheduledRebuild, debounce.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runScheduledRebuild() {
+        // Сбрасывается до чтения каталога, чтобы изменения во время сборки запланировали следующую
+        rebuildScheduled.set(false);
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Не удалось пересобрать снимок каталога, повтор через {}", debounce, e);
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Сборка нового снимка и замена им текущего
+     */
+    void rebuild() {
+        rebuildLock.lock();
+        try {
+            buildSnapshot();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void buildSnapshot() {
+        long start = System.nanoTime();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        int[] products = {0};
+        try (JsonGenerator generator = writer.createGenerator(json)) {
+            generator.writeStartArray();
+            productService.forEachActive(product -> {
+                try {
+                    writer.writeValue(generator, productMapper.toDto(product));
+                    products[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] jsonBytes = json.toByteArray();
+        byte[] gzipBytes = gzip(jsonBytes);
+        CatalogSnapshot previous = snapshot;
+        snapshot = new CatalogSnapshot(jsonBytes, gzipBytes, products[0],
+                previous == null ? 1 : previous.getVersion() + 1, Instant.now());
+        logger.debug("Снимок каталога собран за {} мс: товаров {}, {} байт, gzip {} байт",
+                (System.nanoTime() - start) / 1_000_000, products[0], jsonBytes.length, gzipBytes.length);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
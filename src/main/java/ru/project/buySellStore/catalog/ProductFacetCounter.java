@@ -0,0 +1,251 @@
+package ru.project.buySellStore.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.project.buySellStore.dto.CostBucketDTO;
+import ru.project.buySellStore.dto.ProductFacetsDTO;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductsImportedEvent;
+import ru.project.buySellStore.event.ProductSnapshot;
+import ru.project.buySellStore.repository.CategoryCount;
+import ru.project.buySellStore.repository.CostBucketCount;
+import ru.project.buySellStore.repository.ProductRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <b>Счетчики товаров открытого каталога по категориям и диапазонам стоимости.</b>
+ * <p>
+ *     Счетчики хранятся в памяти и обновляются по событиям {@link ProductChangedEvent},
+ *     поэтому их чтение не обращается к базе данных. Чтобы исправить возможные расхождения,
+ *     счетчики периодически пересчитываются запросами с группировкой
+ * </p>
+ * <p>
+ *     Запросы пересчета выполняются в одной читающей транзакции с уровнем изоляции REPEATABLE READ,
+ *     поэтому категории и диапазоны стоимости видят один снимок БД. События, пришедшие во время
+ *     пересчета, запоминаются и применяются к новым счетчикам перед их публикацией
+ * </p>
+ */
+@Component
+public class ProductFacetCounter {
+
+    /**
+     * Границы диапазонов стоимости. Товар попадает в диапазон [bounds[i - 1], bounds[i]).
+     * Те же границы заданы в запросе {@link ProductRepository#countActiveByCostBucket()}
+     */
+    static final int[] COST_BUCKET_BOUNDS = {1_000, 5_000, 10_000, 50_000};
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetCounter.class);
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate snapshotTransaction;
+
+    private final TaskScheduler taskScheduler;
+
+    /**
+     * Не дает двум пересчетам идти одновременно. Не {@code synchronized}: пересчет читает базу данных,
+     * а ожидание ввода-вывода внутри монитора закрепляет виртуальный поток
+     */
+    private final Lock reconcileLock = new ReentrantLock();
+
+    /**
+     * Защищает замену счетчиков и журнал событий, пришедших во время пересчета
+     */
+    private final Lock stateLock = new ReentrantLock();
+
+    private volatile Counts counts = new Counts();
+
+    /**
+     * События, пришедшие во время пересчета, или {@code null}, если пересчет не идет
+     */
+    private List<ProductChangedEvent> pending;
+
+    /**
+     * Создание счетчиков с внедрением нужных зависимостей
+     * @param productRepository репозиторий для пересчета счетчиков
+     * @param transactionManager менеджер транзакций для чтения счетчиков из одного снимка БД
+     * @param taskScheduler планировщик, в котором выполняется пересчет после массовой загрузки
+     */
+    @Autowired
+    public ProductFacetCounter(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+                               TaskScheduler taskScheduler) {
+        this.productRepository = productRepository;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Пересчет счетчиков запросами с группировкой.
+     * Выполняется при запуске приложения и затем периодически.
+     * <p>Журнал событий начинается до первого запроса, поэтому событие транзакции, зафиксированной
+     * перед снимком, но доставленной после начала журнала, может быть учтено дважды. Такое
+     * расхождение ограничено временем между фиксацией и доставкой события и исправляется
+     * следующим пересчетом</p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${buy-sell-store.facets.reconcile-interval}",
+            initialDelayString = "${buy-sell-store.facets.reconcile-interval}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            stateLock.lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                stateLock.unlock();
+            }
+            Counts fresh = null;
+            int replayed = 0;
+            try {
+                fresh = snapshotTransaction.execute(status -> load());
+            } finally {
+                stateLock.lock();
+                try {
+                    if (fresh != null) {
+                        replayed = pending.size();
+                        for (ProductChangedEvent event : pending) {
+                            fresh.apply(event);
+                        }
+                        counts = fresh;
+                    }
+                    pending = null;
+                } finally {
+                    stateLock.unlock();
+                }
+            }
+            logger.debug("Счетчики каталога пересчитаны: категорий {}, применено событий {}",
+                    fresh.categories.size(), replayed);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    /**
+     * Обновление счетчиков после изменения товара.
+     * Во время пересчета событие также запоминается, чтобы применить его к новым счетчикам
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Counts current;
+        stateLock.lock();
+        try {
+            current = counts;
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            stateLock.unlock();
+        }
+        current.apply(event);
+    }
+
+    /**
+     * Планирование пересчета счетчиков после массовой загрузки товаров.
+     * Пересчет выполняется в планировщике, а не в потоке запроса загрузки
+     */
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        taskScheduler.schedule(this::reconcile, Instant.now());
+    }
+
+    /**
+     * Получить количество товаров по категориям и диапазонам стоимости
+     */
+    public ProductFacetsDTO facets() {
+        Counts current = counts;
+        Map<String, Long> categories = new TreeMap<>();
+        current.categories.forEach((category, count) -> {
+            long value = count.sum();
+            if (value > 0) {
+                categories.put(category, value);
+            }
+        });
+        List<CostBucketDTO> costBuckets = new ArrayList<>(COST_BUCKET_BOUNDS.length + 1);
+        for (int bucket = 0; bucket <= COST_BUCKET_BOUNDS.length; bucket++) {
+            costBuckets.add(new CostBucketDTO(
+                    bucket == 0 ? null : COST_BUCKET_BOUNDS[bucket - 1],
+                    bucket == COST_BUCKET_BOUNDS.length ? null : COST_BUCKET_BOUNDS[bucket],
+                    Math.max(0, current.costBuckets.get(bucket))));
+        }
+        return new ProductFacetsDTO(categories, costBuckets);
+    }
+
+    /**
+     * Получить номер диапазона стоимости
+     */
+    static int bucketOf(int cost) {
+        int bucket = 0;
+        while (bucket < COST_BUCKET_BOUNDS.length && cost >= COST_BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Прочитать счетчики запросами с группировкой
+     */
+    private Counts load() {
+        Counts fresh = new Counts();
+        for (CategoryCount categoryCount : productRepository.countActiveByCategory()) {
+            fresh.category(categoryCount.getCategory()).add(categoryCount.getCount());
+        }
+        for (CostBucketCount costBucketCount : productRepository.countActiveByCostBucket()) {
+            fresh.costBuckets.set(costBucketCount.getBucket(), costBucketCount.getCount());
+        }
+        return fresh;
+    }
+
+    /**
+     * Набор счетчиков. При пересчете заменяется целиком
+     */
+    private static final class Counts {
+
+        private final Map<String, LongAdder> categories = new ConcurrentHashMap<>();
+
+        private final AtomicLongArray costBuckets = new AtomicLongArray(COST_BUCKET_BOUNDS.length + 1);
+
+        private LongAdder category(String category) {
+            return categories.computeIfAbsent(category, key -> new LongAdder());
+        }
+
+        private void apply(ProductChangedEvent event) {
+            if (event.getBefore() != null) {
+                add(event.getBefore(), -1);
+            }
+            if (event.getAfter() != null) {
+                add(event.getAfter(), 1);
+            }
+        }
+
+        private void add(ProductSnapshot product, int delta) {
+            if (product.getCategory() != null) {
+                category(product.getCategory()).add(delta);
+            }
+            if (product.getCost() != null) {
+                costBuckets.addAndGet(bucketOf(product.getCost()), delta);
+            }
+        }
+    }
+}
@@ -1,16 +1,43 @@
 package ru.project.buySellStore.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.project.buySellStore.repository.UserRepository;
+import ru.project.buySellStore.security.ExecutorPasswordEncoder;
+import ru.project.buySellStore.security.PasswordHashingExecutor;
+import ru.project.buySellStore.security.RateLimitFilter;
+import ru.project.buySellStore.security.RateLimitRule;
+import ru.project.buySellStore.security.RateLimiter;
+import ru.project.buySellStore.security.TokenAuthenticationFilter;
+import ru.project.buySellStore.security.TokenService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 /**
  * <b>Конфигурационный класс для Spring Security.</b>
@@ -24,35 +51,133 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EnableWebSecurity
 public class SecurityConfig implements WebMvcConfigurer {
 
+    /**
+     * Идентификатор BCrypt в префиксе хеша, например {@code {bcrypt}$2a$10$...}
+     */
+    private static final String BCRYPT = "bcrypt";
+
     /**
      * <b>Настройка фильтров безопасности.</b>
      * <ul>
      *     <li>Отключение защиты CSRF</li>
-     *     <li>Открытие доступа к точкам входа /api/auth/login и /api/auth/register</li>
+     *     <li>Открытие доступа к точкам входа /api/auth/login, /api/auth/register и /api/auth/refresh</li>
+     *     <li>Открытие доступа к метрикам в формате Prometheus /actuator/prometheus для сборщика метрик,
+     *     только если actuator вынесен на отдельный порт ({@code MANAGEMENT_SERVER_PORT}). Иначе метрики
+     *     с путями, исключениями и состоянием пула соединений доступны только аутентифицированным пользователям</li>
      *     <li>Закрытие доступа к остальным точкам входа</li>
+     *     <li>Ограничение количества запросов, если ограничитель включен</li>
+     *     <li>В режиме токенов - аутентификация по токену без создания сессий</li>
      * </ul>
      * @param http объект для настройки правил безопасности для HTTP запросов
+     * @param rateLimiter ограничитель запросов, если он включен
+     * @param tokenService сервис токенов, если включен режим токенов
+     * @param objectMapper преобразование ошибки превышения ограничения в JSON
+     * @param environment окружение для определения порта actuator
      * @return конфигурация, определяющая правила безопасности
      * @throws Exception ошибка, возникающая при настройке фильтров безопасности
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ObjectProvider<RateLimiter> rateLimiter,
+                                                   ObjectProvider<TokenService> tokenService,
+                                                   ObjectMapper objectMapper, Environment environment)
+            throws Exception {
+        boolean separateManagementPort = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
+        TokenService tokens = tokenService.getIfAvailable();
+        if (tokens != null) {
+            http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                    .addFilterBefore(new TokenAuthenticationFilter(tokens, objectMapper),
+                            AnonymousAuthenticationFilter.class);
+        }
+        rateLimiter.ifAvailable(limiter ->
+                http.addFilterBefore(new RateLimitFilter(limiter, objectMapper), AuthorizationFilter.class));
         return http
                 .csrf(AbstractHttpConfigurer::disable)
-                .authorizeHttpRequests(authorize -> authorize
-                        .requestMatchers("/api/auth/login", "/api/auth/register").permitAll()
-                        .anyRequest().authenticated()
-                )
+                .authorizeHttpRequests(authorize -> {
+                    authorize.requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh").permitAll();
+                    if (separateManagementPort) {
+                        // Порт actuator не публикуется наружу, сборщик метрик обращается к нему без входа
+                        authorize.requestMatchers(EndpointRequest.to("prometheus")).permitAll();
+                    }
+                    authorize.anyRequest().authenticated();
+                })
                 .build();
     }
 
     /**
      * Создание бина для шифрования паролей пользователей.
+     * <p>Новые хеши создаются BCrypt с указанной стоимостью и префиксом {@code {bcrypt}}.
+     * Хеши без префикса, сохраненные раньше, проверяются BCrypt. Если хеш без префикса или
+     * со стоимостью ниже указанной, после успешного входа он пересчитывается
+     * (см. {@link ru.project.buySellStore.service.impl.UserDetailsServiceImpl#updatePassword}).
+     * Хеширование выполняется в {@link PasswordHashingExecutor}</p>
+     * @param passwordHashingExecutor пул хеширования паролей
+     * @param strength стоимость BCrypt, от 4 до 31: каждая единица вдвое увеличивает время хеширования
      * @return экземпляр {@link PasswordEncoder} для шифрования.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                           @Value("${buy-sell-store.password.bcrypt-strength}") int strength) {
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(BCRYPT,
+                Map.of(BCRYPT, new BCryptPasswordEncoder(strength)));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(strength));
+        return new ExecutorPasswordEncoder(passwordEncoder, passwordHashingExecutor);
+    }
+
+    /**
+     * Создание пула для хеширования паролей
+     * @param threads количество потоков, {@code 0} - по количеству процессоров
+     * @param queueCapacity наибольшее количество паролей, ожидающих хеширования
+     */
+    @Bean
+    public PasswordHashingExecutor passwordHashingExecutor(
+            @Value("${buy-sell-store.password.hashing.threads}") int threads,
+            @Value("${buy-sell-store.password.hashing.queue-capacity}") int queueCapacity) {
+        return new PasswordHashingExecutor(threads, queueCapacity);
+    }
+
+    /**
+     * Создание ограничителя запросов. Группы проверяются по порядку:
+     * <ul>
+     *     <li>{@code auth} - /api/auth/**, строгое ограничение, так как каждый вход и регистрация хешируют пароль</li>
+     *     <li>{@code products} - чтение /api/products/**, мягкое ограничение</li>
+     *     <li>{@code api} - остальные запросы /api/**</li>
+     * </ul>
+     */
+    @Bean
+    @ConditionalOnProperty(name = "buy-sell-store.rate-limit.enabled", havingValue = "true")
+    public RateLimiter rateLimiter(
+            @Value("${buy-sell-store.rate-limit.auth.limit}") int authLimit,
+            @Value("${buy-sell-store.rate-limit.auth.period}") Duration authPeriod,
+            @Value("${buy-sell-store.rate-limit.products.limit}") int productsLimit,
+            @Value("${buy-sell-store.rate-limit.products.period}") Duration productsPeriod,
+            @Value("${buy-sell-store.rate-limit.api.limit}") int apiLimit,
+            @Value("${buy-sell-store.rate-limit.api.period}") Duration apiPeriod) {
+        PathPatternRequestMatcher.Builder path = PathPatternRequestMatcher.withDefaults();
+        return new RateLimiter(List.of(
+                new RateLimitRule("auth", path.matcher("/api/auth/**"), authLimit, authPeriod),
+                new RateLimitRule("products", path.matcher(HttpMethod.GET, "/api/products/**"),
+                        productsLimit, productsPeriod),
+                new RateLimitRule("api", path.matcher("/api/**"), apiLimit, apiPeriod)));
+    }
+
+    /**
+     * Создание сервиса токенов для режима без сессий. Ключ подписи должен быть одинаковым на всех узлах
+     * @param secret ключ подписи, не короче 32 байт
+     * @param timeToLive время действия токена
+     * @param refreshWindow время после истечения, в течение которого токен можно обменять на новый
+     * @param maxLifetime время после входа по паролю, после которого токен нельзя обменять
+     * @param userRepository репозиторий для проверки пользователя при обмене токена
+     */
+    @Bean
+    @ConditionalOnProperty(name = "buy-sell-store.auth.mode", havingValue = "token")
+    public TokenService tokenService(
+            @Value("${buy-sell-store.auth.token.secret}") String secret,
+            @Value("${buy-sell-store.auth.token.time-to-live}") Duration timeToLive,
+            @Value("${buy-sell-store.auth.token.refresh-window}") Duration refreshWindow,
+            @Value("${buy-sell-store.auth.token.max-lifetime}") Duration maxLifetime,
+            UserRepository userRepository) {
+        return new TokenService(secret.getBytes(StandardCharsets.UTF_8), timeToLive, refreshWindow, maxLifetime,
+                Clock.systemUTC(), userRepository);
     }
 
     /**
@@ -0,0 +1,74 @@
+package ru.project.buySellStore.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.project.buySellStore.statistics.SlowQueryLogListener;
+import ru.project.buySellStore.statistics.SlowQueryLogWriter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * <b>Конфигурация журнала медленных SQL-команд.</b>
+ * <p>
+ *     Оборачивает источник соединений в datasource-proxy со слушателем {@link SlowQueryLogListener}.
+ *     Заменяет {@code spring.jpa.show-sql}, который синхронно выводил каждую команду.
+ *     Включается свойством {@code buy-sell-store.slow-query-log.enabled}
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "buy-sell-store.slow-query-log.enabled", havingValue = "true")
+public class SlowQueryLogConfig {
+
+    /**
+     * Журнал с отдельным потоком записи
+     */
+    @Bean
+    public SlowQueryLogWriter slowQueryLogWriter() {
+        return new SlowQueryLogWriter();
+    }
+
+    /**
+     * Слушатель, отбирающий команды для журнала
+     * @param writer журнал
+     * @param threshold время выполнения, начиная с которого команда считается медленной
+     * @param sampleRate доля остальных команд, попадающих в журнал
+     */
+    @Bean
+    public SlowQueryLogListener slowQueryLogListener(
+            SlowQueryLogWriter writer,
+            @Value("${buy-sell-store.slow-query-log.threshold}") Duration threshold,
+            @Value("${buy-sell-store.slow-query-log.sample-rate}") double sampleRate) {
+        return new SlowQueryLogListener(writer, threshold, sampleRate);
+    }
+
+    /**
+     * Обертка источника соединений. Слушатель получается при создании источника,
+     * чтобы не создавать его раньше остальных компонентов. Результаты команд оборачиваются
+     * для подсчета строк, только если команда может попасть в журнал
+     * @param listener слушатель выполнения команд
+     */
+    @Bean
+    public static BeanPostProcessor slowQueryLogDataSourcePostProcessor(ObjectProvider<SlowQueryLogListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                SlowQueryLogListener queryListener = listener.getObject();
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(queryListener)
+                        .proxyResultSet(queryListener)
+                        .jdbcProxyFactory(queryListener.jdbcProxyFactory())
+                        .build();
+            }
+        };
+    }
+}
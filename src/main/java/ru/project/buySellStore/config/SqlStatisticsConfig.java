@@ -0,0 +1,60 @@
+package ru.project.buySellStore.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import ru.project.buySellStore.statistics.SqlStatisticsFilter;
+import ru.project.buySellStore.statistics.SqlStatisticsIntegrator;
+import ru.project.buySellStore.statistics.SqlStatisticsSessionListener;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <b>Конфигурация подсчета SQL для каждого HTTP-запроса.</b>
+ * <p>
+ *     Подключает к Hibernate слушатели выполнения команд и загрузки сущностей
+ *     и регистрирует {@link SqlStatisticsFilter} первым фильтром, чтобы учитывались
+ *     и запросы из фильтров безопасности
+ * </p>
+ */
+@Configuration
+public class SqlStatisticsConfig {
+
+    /**
+     * Эндпоинты, ответ которых передается потоком и не должен буферизоваться ради заголовков
+     */
+    private static final Set<String> STREAMING_PATHS = Set.of("/api/products/export", "/api/products/catalog");
+
+    /**
+     * Подключение слушателей к Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsHibernateCustomizer() {
+        return properties -> {
+            properties.put("hibernate.session.events.auto", SqlStatisticsSessionListener.class.getName());
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> List.of(new SqlStatisticsIntegrator()));
+        };
+    }
+
+    /**
+     * Регистрация фильтра подсчета SQL
+     * @param meterRegistry реестр метрик
+     * @param headers передавать ли счетчики в заголовках ответа
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${buy-sell-store.sql-statistics.headers}") boolean headers) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatisticsFilter(meterRegistry, headers, STREAMING_PATHS));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -1,24 +1,32 @@
 package ru.project.buySellStore.controller;
 
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.project.buySellStore.dto.LoginDTO;
 import ru.project.buySellStore.dto.RegisterDTO;
+import ru.project.buySellStore.dto.TokenDTO;
+import ru.project.buySellStore.exception.securityEx.InvalidTokenException;
+import ru.project.buySellStore.exception.securityEx.RoleNotAssignedException;
 import ru.project.buySellStore.exception.userEx.UserAlreadyExistsException;
 import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.security.TokenPrincipal;
+import ru.project.buySellStore.security.TokenService;
 import ru.project.buySellStore.service.AuthService;
 import ru.project.buySellStore.service.UserService;
 import ru.project.buySellStore.service.impl.AuthServiceImpl;
 import ru.project.buySellStore.service.impl.UserServiceImpl;
 
 /**
- * Контроллер с эндпоинтами для регистрации, входа и выхода пользователя
+ * Контроллер с эндпоинтами для регистрации, входа и выхода пользователя.
+ * В режиме сессий пользователь сохраняется в HTTP-сессии, в режиме токенов
+ * ({@code buy-sell-store.auth.mode=token}) при входе выдается подписанный токен, а сессия не создается
  * @author SapeginMihail
  */
 @RestController
@@ -31,25 +39,32 @@ public class AuthController {
 
     private final PasswordEncoder passwordEncoder;
 
+    /**
+     * Сервис токенов или {@code null} в режиме сессий
+     */
+    private final TokenService tokenService;
+
     /**
      * Конструктор контроллера для внедрения нужных зависимостей и создания экземпляра класса {@link AuthController}
      */
     @Autowired
-    public AuthController(AuthServiceImpl authService, UserServiceImpl userService, PasswordEncoder passwordEncoder) {
+    public AuthController(AuthServiceImpl authService, UserServiceImpl userService, PasswordEncoder passwordEncoder,
+                          ObjectProvider<TokenService> tokenService) {
         this.authService = authService;
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService.getIfAvailable();
     }
 
     /**
      * Эндпоинт для регистрации нового пользователя
-     * <p>Возвращает статус 201 CREATED в случае успешной регистрации и создания аккаунта пользователя</p>
+     * <p>Возвращает статус 201 CREATED в случае успешной регистрации и создания аккаунта пользователя.
+     * Выполняется без общей транзакции, чтобы на время хеширования пароля не занимать соединение с БД</p>
      * @param registerDTO DTO с полями, необходимыми для регистрации пользователя
      * @return строка с сообщением об успешной регистрации с упоминанием логина пользователя
      */
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED)
-    @Transactional
     public String register(@Validated @RequestBody RegisterDTO registerDTO)
             throws UserAlreadyExistsException {
         String login = registerDTO.getLogin();
@@ -67,27 +82,59 @@ public class AuthController {
 
     /**
      * Эндпоинт для входа пользователя в аккаунт
+     * <p>Выполняется без общей транзакции, чтобы на время проверки пароля не занимать соединение с БД.
+     * Если очередь хеширования заполнена, возвращается 503 SERVICE UNAVAILABLE</p>
      * @param loginDTO DTO с полями, необходимыми для входа в аккаунт
-     * @param session объект, в котором сохраняется информация об авторизованном пользователе
-     * @return строка с приветствием по логину
+     * @param request запрос, в сессии которого сохраняется информация об авторизованном пользователе
+     * @return строка с приветствием по логину или, в режиме токенов, {@link TokenDTO}
+     * @throws RoleNotAssignedException если в режиме токенов пользователю не назначена роль
      */
     @PostMapping("/login")
-    @Transactional(readOnly = true)
-    public String login(@Validated @RequestBody LoginDTO loginDTO, HttpSession session){
+    public Object login(@Validated @RequestBody LoginDTO loginDTO, HttpServletRequest request)
+            throws RoleNotAssignedException {
         UsernamePasswordAuthenticationToken authenticationInputToken = new UsernamePasswordAuthenticationToken(
                 loginDTO.getEmail(), loginDTO.getPassword()
         );
-        authService.login(authenticationInputToken, session);
-        User user = authService.getAuthenticatedUser();
-        return String.format("С возвращением, %s!", user.getLogin());
+        if (tokenService != null) {
+            return tokenDTO(tokenService.issue(authService.authenticate(authenticationInputToken)));
+        }
+        authService.login(authenticationInputToken, request.getSession());
+        return String.format("С возвращением, %s!", authService.getAuthenticatedPrincipal().getLogin());
+    }
+
+    /**
+     * Эндпоинт для обмена токена на новый в режиме токенов.
+     * Токен можно обменять и после истечения, но только один раз
+     * @param tokenDTO DTO с текущим токеном
+     * @return DTO с новым токеном
+     * @throws InvalidTokenException если токен недействителен или его уже нельзя обменять
+     */
+    @PostMapping("/refresh")
+    public TokenDTO refresh(@Validated @RequestBody TokenDTO tokenDTO) throws InvalidTokenException {
+        if (tokenService == null) {
+            throw new InvalidTokenException("Вход по токенам отключен");
+        }
+        return tokenDTO(tokenService.refresh(tokenDTO.getToken()));
     }
 
     /**
      * Эндпоинт для выхода пользователя из аккаунта.
-     * @param session объект, из которого удаляется информация об авторизованном пользователе после его выхода
+     * В режиме токенов токен запроса отзывается
+     * @param request запрос, сессия которого завершается
+     * @param tokenPrincipal пользователь из токена или {@code null} в режиме сессий
      */
     @PostMapping("/logout")
-    public void logout(HttpSession session) {
-        authService.logout(session);
+    public void logout(HttpServletRequest request, @AuthenticationPrincipal TokenPrincipal tokenPrincipal) {
+        if (tokenService != null) {
+            if (tokenPrincipal != null) {
+                tokenService.revoke(tokenPrincipal);
+            }
+            return;
+        }
+        authService.logout(request.getSession());
+    }
+
+    private TokenDTO tokenDTO(String token) {
+        return new TokenDTO(token, tokenService.getTimeToLive().toSeconds());
     }
 }
@@ -0,0 +1,78 @@
+package ru.project.buySellStore.controller;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <b>ETag на основе версий сущностей.</b>
+ * <p>
+ *     ETag сущности - ее версия в кавычках. ETag страницы вычисляется
+ *     по id и версиям всех сущностей на ней
+ * </p>
+ */
+final class EntityTags {
+
+    /**
+     * Сильный ETag версии. Слабые ETag не подходят: If-Match требует сильного сравнения (RFC 9110).
+     * Не больше 18 цифр, чтобы версия всегда помещалась в {@code long}
+     */
+    private static final Pattern ENTITY_TAG = Pattern.compile("\\s*\"(\\d{1,18})\"\\s*");
+
+    private static final String ANY = "*";
+
+    private EntityTags() {
+    }
+
+    /**
+     * Получить ETag сущности по ее версии
+     */
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Получить версию, ожидаемую клиентом, из заголовка If-Match
+     * @param ifMatch значение заголовка If-Match
+     * @return версия или {@code null}, если заголовок не задан или равен {@code *}.
+     * Если заголовок не содержит версию или содержит слабый ETag, возвращается -1,
+     * не совпадающая ни с одной версией
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        Matcher matcher = ENTITY_TAG.matcher(ifMatch);
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1L;
+    }
+
+    /**
+     * Накопитель ETag страницы
+     */
+    static final class Collection {
+
+        private long hash = 1;
+
+        /**
+         * Добавить сущность на странице
+         */
+        Collection add(long id, long version) {
+            hash = 31 * (31 * hash + id) + version;
+            return this;
+        }
+
+        /**
+         * Добавить строковое значение, влияющее на ответ
+         */
+        Collection add(String value) {
+            hash = 31 * hash + (value == null ? 0 : value.hashCode());
+            return this;
+        }
+
+        /**
+         * Получить ETag страницы
+         */
+        String tag() {
+            return "\"" + Long.toHexString(hash) + "\"";
+        }
+    }
+}
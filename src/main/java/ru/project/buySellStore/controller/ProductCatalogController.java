@@ -0,0 +1,88 @@
+package ru.project.buySellStore.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.project.buySellStore.catalog.CatalogSnapshot;
+import ru.project.buySellStore.catalog.ProductCatalogSnapshot;
+
+import java.util.regex.Pattern;
+
+/**
+ * Контроллер для получения всего открытого каталога из снимка, собранного заранее.
+ * Доступен, если включено свойство {@code buy-sell-store.catalog.snapshot.enabled}
+ */
+@RestController
+@RequestMapping("/api/products/catalog")
+@ConditionalOnProperty(name = "buy-sell-store.catalog.snapshot.enabled", havingValue = "true")
+public class ProductCatalogController {
+
+    private static final String GZIP = "gzip";
+
+    private static final Pattern ZERO_QUALITY = Pattern.compile("q=0(\\.0{0,3})?");
+
+    private final ProductCatalogSnapshot productCatalogSnapshot;
+
+    /**
+     * Создание контроллера с внедрением нужных зависимостей
+     * @param productCatalogSnapshot - снимок открытого каталога
+     */
+    public ProductCatalogController(ProductCatalogSnapshot productCatalogSnapshot) {
+        this.productCatalogSnapshot = productCatalogSnapshot;
+    }
+
+    /**
+     * Получение всех товаров, не считая архивных, в виде JSON-массива.
+     * <p>В ответ записываются готовые байты снимка. Если клиент принимает gzip,
+     * передается сжатая копия. Пока снимок не собран, возвращается 503 SERVICE UNAVAILABLE</p>
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> catalog(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogSnapshot snapshot = productCatalogSnapshot.get();
+        if (snapshot == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                    .contentLength(snapshot.getGzip().length)
+                    .body(snapshot.getGzip());
+        }
+        return response.contentLength(snapshot.getJson().length)
+                .body(snapshot.getJson());
+    }
+
+    /**
+     * Узнать, принимает ли клиент ответ, сжатый gzip
+     * @param acceptEncoding значение заголовка Accept-Encoding
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!GZIP.equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                if (ZERO_QUALITY.matcher(parts[i].trim()).matches()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,18 +1,46 @@
 package ru.project.buySellStore.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.project.buySellStore.catalog.ProductCache;
+import ru.project.buySellStore.catalog.ProductFacetCounter;
+import ru.project.buySellStore.dto.ProductBulkRequestDTO;
+import ru.project.buySellStore.dto.ProductBulkResultDTO;
+import ru.project.buySellStore.dto.ProductCursor;
 import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.dto.ProductFacetsDTO;
+import ru.project.buySellStore.dto.ProductFilter;
+import ru.project.buySellStore.dto.ProductPageDTO;
+import ru.project.buySellStore.dto.ProductSort;
 import ru.project.buySellStore.dto.ProductUpdateDTO;
+import ru.project.buySellStore.event.ProductSnapshot;
+import ru.project.buySellStore.exception.productEx.InvalidProductCursorException;
 import ru.project.buySellStore.exception.productEx.ProductArchiveException;
 import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
 import ru.project.buySellStore.exception.productEx.ProductRestoreException;
+import ru.project.buySellStore.exception.productEx.ProductVersionMismatchException;
 import ru.project.buySellStore.mapper.ProductMapper;
 import ru.project.buySellStore.model.Product;
 import ru.project.buySellStore.service.ProductService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,31 +51,155 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    /**
+     * Размер страницы товаров по умолчанию
+     */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Максимальный размер страницы товаров
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Максимальное количество товаров, создаваемых одним запросом
+     */
+    private static final int MAX_BATCH_SIZE = 5000;
+
     private final ProductService productService;
 
     private final ProductMapper productMapper;
 
+    private final ProductFacetCounter productFacetCounter;
+
+    private final ProductCache productCache;
+
+    private final ObjectWriter exportWriter;
+
     /**
      * Создание контроллера с внедрением нужных зависимостей
      * @param productService - сервис Товара
      * @param productMapper - маппер Товара
+     * @param productFacetCounter - счетчики товаров по категориям и диапазонам стоимости
+     * @param productCache - кэш товаров для получения товара по id
+     * @param objectMapper - сериализатор JSON, используемый при выгрузке каталога
      */
-    public ProductController(ProductService productService, ProductMapper productMapper) {
+    public ProductController(ProductService productService, ProductMapper productMapper,
+                             ProductFacetCounter productFacetCounter, ProductCache productCache,
+                             ObjectMapper objectMapper) {
         this.productService = productService;
         this.productMapper = productMapper;
+        this.productFacetCounter = productFacetCounter;
+        this.productCache = productCache;
+        this.exportWriter = objectMapper.writerFor(ProductDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /**
-     * Получение всех товаров, не считая архивных
+     * Постраничное получение товаров, не считая архивных, с фильтрами и сортировкой.
+     * <p>Используется пагинация по курсору: для получения следующей страницы
+     * в параметре {@code after} передается {@code nextCursor} из предыдущего ответа
+     * вместе с теми же фильтрами и сортировкой</p>
+     * @param category категория товаров, если нужны товары только одной категории
+     * @param minCost минимальная стоимость включительно
+     * @param maxCost максимальная стоимость включительно
+     * @param sort порядок сортировки: OLDEST, NEWEST, COST_ASC или COST_DESC
+     * @param limit максимальное количество товаров на странице
+     * @param after курсор последнего товара предыдущей страницы
+     * @param request запрос для проверки If-None-Match. Если ETag страницы совпадает,
+     *                возвращается 304 NOT MODIFIED без тела
+     * @throws InvalidProductCursorException если курсор не соответствует порядку сортировки
      */
     @GetMapping
     @Transactional(readOnly = true)
-    public List<ProductDTO> findAll() {
-        return productService.findAll().stream()
+    public ProductPageDTO findAll(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "minCost", required = false) Integer minCost,
+            @RequestParam(value = "maxCost", required = false) Integer maxCost,
+            @RequestParam(value = "sort", defaultValue = "OLDEST") ProductSort sort,
+            @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Размер страницы должен быть больше нуля")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы не должен превышать " + MAX_PAGE_SIZE)
+            int limit,
+            @RequestParam(value = "after", required = false) String after,
+            WebRequest request)
+            throws InvalidProductCursorException {
+        ProductCursor cursor = after == null ? null : ProductCursor.decode(after, sort);
+        List<Product> products = productService.findAll(
+                new ProductFilter(category, minCost, maxCost), sort, cursor, limit + 1);
+        List<Product> page = products.subList(0, Math.min(limit, products.size()));
+        String nextCursor = products.size() > limit
+                ? ProductCursor.of(products.get(limit - 1), sort).encode()
+                : null;
+        EntityTags.Collection tag = new EntityTags.Collection();
+        page.forEach(product -> tag.add(product.getId(), product.getVersion()));
+        if (request.checkNotModified(tag.add(nextCursor).tag())) {
+            return null;
+        }
+        List<ProductDTO> items = page.stream()
+                .map(productMapper::toDto)
+                .collect(Collectors.toList());
+        return new ProductPageDTO(items, nextCursor);
+    }
+
+    /**
+     * Получение количества товаров, не считая архивных, по категориям и диапазонам стоимости.
+     * <p>Счетчики хранятся в памяти, поэтому запрос не обращается к базе данных</p>
+     */
+    @GetMapping("/facets")
+    public ProductFacetsDTO facets() {
+        return productFacetCounter.facets();
+    }
+
+    /**
+     * Полнотекстовый поиск товаров, не считая архивных, по названию и описанию.
+     * <p>Результаты упорядочены по убыванию релевантности</p>
+     * @param query поисковый запрос. Поддерживает синтаксис веб-поиска:
+     *              {@code "точная фраза"}, {@code or}, {@code -исключение}
+     * @param page номер страницы, начиная с нуля
+     * @param size размер страницы
+     */
+    @GetMapping("/search")
+    @Transactional(readOnly = true)
+    public List<ProductDTO> search(
+            @RequestParam("query")
+            @NotBlank(message = "Поисковый запрос не может быть пустым")
+            String query,
+            @RequestParam(value = "page", defaultValue = "0")
+            @Min(value = 0, message = "Номер страницы не может быть отрицательным")
+            int page,
+            @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Размер страницы должен быть больше нуля")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы не должен превышать " + MAX_PAGE_SIZE)
+            int size) {
+        return productService.search(query, page, size).stream()
                 .map(productMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Выгрузка всех товаров, не считая архивных, в формате NDJSON - по одному товару в строке.
+     * <p>Товары читаются из базы данных потоком и сразу записываются в ответ,
+     * поэтому потребление памяти не зависит от размера каталога</p>
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(readOnly = true)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = exportWriter.createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            productService.forEachActive(product -> {
+                try {
+                    exportWriter.writeValue(generator, productMapper.toDto(product));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
     /**
      * Создание нового товара
      */
@@ -55,37 +207,57 @@ public class ProductController {
     @ResponseStatus(HttpStatus.CREATED)
     @Transactional
     public String create(@Valid @RequestBody ProductDTO productDto) {
-        Product product = new Product();
-        product.setName(productDto.getName());
-        product.setDescription(productDto.getDescription());
-        product.setCategory(productDto.getCategory());
-        product.setCost(productDto.getCost());
-        productService.save(product);
+        productService.save(productMapper.toEntity(productDto));
         return "Продукт создан!";
     }
 
     /**
-     * Получение товара по id
+     * Создание нескольких товаров в одной транзакции.
+     * <p>Товары вставляются пакетами. Если хотя бы один товар не проходит валидацию,
+     * не создается ни один</p>
+     */
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Transactional
+    public String createAll(
+            @RequestBody
+            @NotEmpty(message = "Список товаров не может быть пустым")
+            @Size(max = MAX_BATCH_SIZE, message = "За один запрос можно создать не более " + MAX_BATCH_SIZE + " товаров")
+            List<@Valid ProductDTO> productDtos) {
+        List<Product> products = productDtos.stream()
+                .map(productMapper::toEntity)
+                .collect(Collectors.toList());
+        productService.saveAll(products);
+        return "Создано товаров: " + products.size();
+    }
+
+    /**
+     * Получение товара по id. Товар читается через кэш.
+     * <p>В ответе передается ETag с версией товара. Если он совпадает с If-None-Match,
+     * возвращается 304 NOT MODIFIED без тела</p>
      */
     @GetMapping("/{id}")
-    @Transactional(readOnly = true)
-    public ProductDTO findById(@PathVariable("id") Long id) throws ProductNotFoundException {
-        return productMapper.toDto(productService.findById(id));
+    public ProductDTO findById(@PathVariable("id") Long id, WebRequest request) throws ProductNotFoundException {
+        ProductSnapshot product = productCache.get(id);
+        if (request.checkNotModified(EntityTags.of(product.getVersion()))) {
+            return null;
+        }
+        return productMapper.toDto(product);
     }
 
     /**
      * Обновление товара по id
+     * @param ifMatch ETag товара, полученный клиентом. Если задан и не совпадает
+     *                с текущей версией, товар не изменяется
+     * @throws ProductVersionMismatchException если товар изменился после получения клиентом
      */
     @PatchMapping("/{id}")
     @Transactional
     public String update(
-            @PathVariable("id") Long id, @Valid @RequestBody ProductUpdateDTO productUpdateDTO)
-            throws ProductNotFoundException {
-        Product product = productService.findById(id);
-        product.setName(productUpdateDTO.getName());
-        product.setDescription(productUpdateDTO.getDescription());
-        product.setCost(productUpdateDTO.getCost());
-        productService.save(product);
+            @PathVariable("id") Long id, @Valid @RequestBody ProductUpdateDTO productUpdateDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws ProductNotFoundException, ProductVersionMismatchException {
+        productService.update(id, productUpdateDTO, EntityTags.expectedVersion(ifMatch));
         return "Продукт изменен!";
     }
 
@@ -122,4 +294,31 @@ public class ProductController {
         return "Ваш товар вернулся в открытый доступ. " +
                 "Теперь другие пользователи снова могут просматривать и покупать его";
     }
+
+    /**
+     * Архивирование нескольких товаров по списку id или фильтру одним запросом к базе данных
+     */
+    @PostMapping("/bulk/archive")
+    @Transactional
+    public ProductBulkResultDTO archiveAll(@Valid @RequestBody ProductBulkRequestDTO request) {
+        return productService.archiveAll(request);
+    }
+
+    /**
+     * Восстановление из архива нескольких товаров по списку id или фильтру одним запросом к базе данных
+     */
+    @PostMapping("/bulk/restore")
+    @Transactional
+    public ProductBulkResultDTO restoreAll(@Valid @RequestBody ProductBulkRequestDTO request) {
+        return productService.restoreAll(request);
+    }
+
+    /**
+     * Удаление нескольких товаров по списку id или фильтру одним запросом к базе данных
+     */
+    @PostMapping("/bulk/delete")
+    @Transactional
+    public ProductBulkResultDTO deleteAll(@Valid @RequestBody ProductBulkRequestDTO request) {
+        return productService.deleteAll(request);
+    }
 }
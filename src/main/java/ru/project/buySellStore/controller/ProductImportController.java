@@ -0,0 +1,47 @@
+package ru.project.buySellStore.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.project.buySellStore.dto.ProductImportResultDTO;
+import ru.project.buySellStore.exception.productEx.InvalidProductCsvException;
+import ru.project.buySellStore.service.ProductImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Контроллер для массовой загрузки товаров из CSV-файла
+ */
+@RestController
+@RequestMapping("/api/products/import")
+public class ProductImportController {
+
+    /**
+     * Тип содержимого CSV-файла
+     */
+    static final String TEXT_CSV = "text/csv";
+
+    private final ProductImportService productImportService;
+
+    /**
+     * Создание контроллера с внедрением нужных зависимостей
+     * @param productImportService сервис загрузки товаров
+     */
+    @Autowired
+    public ProductImportController(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    /**
+     * Загрузка товаров из CSV-файла, переданного телом запроса.
+     * <p>Файл читается потоком и не сохраняется целиком ни в памяти, ни на диске.
+     * В ответе - количество загруженных товаров и отклоненные строки с причинами</p>
+     */
+    @PostMapping(consumes = TEXT_CSV)
+    public ProductImportResultDTO importCsv(InputStream csv)
+            throws InvalidProductCsvException, IOException {
+        return productImportService.importCsv(csv);
+    }
+}
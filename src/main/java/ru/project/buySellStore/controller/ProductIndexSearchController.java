@@ -0,0 +1,71 @@
+package ru.project.buySellStore.controller;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.dto.SearchIndexStatsDTO;
+import ru.project.buySellStore.mapper.ProductMapper;
+import ru.project.buySellStore.search.ProductSearchIndex;
+import ru.project.buySellStore.search.SearchOperator;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Контроллер для поиска товаров по встроенному индексу, без обращения к базе данных.
+ * Доступен, если включено свойство {@code buy-sell-store.search.index.enabled}
+ */
+@RestController
+@RequestMapping("/api/products/index-search")
+@ConditionalOnProperty(name = "buy-sell-store.search.index.enabled", havingValue = "true")
+public class ProductIndexSearchController {
+
+    private final ProductSearchIndex productSearchIndex;
+
+    private final ProductMapper productMapper;
+
+    /**
+     * Создание контроллера с внедрением нужных зависимостей
+     * @param productSearchIndex - поисковый индекс товаров
+     * @param productMapper - маппер Товара
+     */
+    public ProductIndexSearchController(ProductSearchIndex productSearchIndex, ProductMapper productMapper) {
+        this.productSearchIndex = productSearchIndex;
+        this.productMapper = productMapper;
+    }
+
+    /**
+     * Поиск товаров, не считая архивных, по названию, описанию и категории
+     * @param query поисковый запрос. Термин, оканчивающийся на {@code *}, ищется как префикс
+     * @param operator оператор объединения терминов: AND или OR
+     * @param limit максимальное количество товаров в результате
+     */
+    @GetMapping
+    public List<ProductDTO> search(
+            @RequestParam("query")
+            @NotBlank(message = "Поисковый запрос не может быть пустым")
+            String query,
+            @RequestParam(value = "operator", defaultValue = "AND") SearchOperator operator,
+            @RequestParam(value = "limit", defaultValue = "20")
+            @Min(value = 1, message = "Размер страницы должен быть больше нуля")
+            @Max(value = 100, message = "Размер страницы не должен превышать 100")
+            int limit) {
+        return productSearchIndex.search(query, operator, limit).stream()
+                .map(productMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Получение статистики индекса и оценки занимаемой им памяти
+     */
+    @GetMapping("/stats")
+    public SearchIndexStatsDTO stats() {
+        return productSearchIndex.stats();
+    }
+}
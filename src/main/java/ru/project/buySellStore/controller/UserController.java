@@ -1,15 +1,22 @@
 package ru.project.buySellStore.controller;
 
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.project.buySellStore.dto.UserDTO;
 import ru.project.buySellStore.exception.userEx.UserAlreadyExistsException;
 import ru.project.buySellStore.exception.userEx.UserNotFoundException;
+import ru.project.buySellStore.exception.userEx.UserVersionMismatchException;
 import ru.project.buySellStore.mapper.UserMapper;
 import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.security.TokenPrincipal;
+import ru.project.buySellStore.security.TokenService;
 import ru.project.buySellStore.service.AuthService;
 import ru.project.buySellStore.service.UserService;
 import ru.project.buySellStore.service.impl.AuthServiceImpl;
@@ -30,27 +37,40 @@ public class UserController {
 
     private final AuthService authService;
 
+    /**
+     * Сервис токенов или {@code null} в режиме сессий
+     */
+    private final TokenService tokenService;
+
     /**
      * Конструктор контроллера для внедрения нужных зависимостей и создания экземпляра класса {@link UserController}
      * @param userService реализация интерфейса для работы с {@link User}
      * @param userMapper
+     * @param tokenService сервис токенов, если включен режим токенов
      */
     @Autowired
-    public UserController(UserServiceImpl userService, UserMapper userMapper, AuthServiceImpl authService) {
+    public UserController(UserServiceImpl userService, UserMapper userMapper, AuthServiceImpl authService,
+                          ObjectProvider<TokenService> tokenService) {
         this.userService = userService;
         this.userMapper = userMapper;
         this.authService = authService;
+        this.tokenService = tokenService.getIfAvailable();
     }
 
     /**
      * Эндпоинт для получения DTO профиля по его id
      * @param userId id пользователя, информацию о котором нужно получить
+     * @param request запрос для проверки If-None-Match. Если ETag профиля совпадает,
+     *                возвращается 304 NOT MODIFIED без тела
      * @return DTO с информацией о пользователе
      */
     @GetMapping("/{userId}")
     @Transactional(readOnly = true)
-    public UserDTO get(@PathVariable("userId") Long userId) throws UserNotFoundException {
+    public UserDTO get(@PathVariable("userId") Long userId, WebRequest request) throws UserNotFoundException {
         User user = userService.getUserById(userId);
+        if (request.checkNotModified(EntityTags.of(user.getVersion()))) {
+            return null;
+        }
         return userMapper.mapToUserDTO(user);
     }
 
@@ -58,33 +78,46 @@ public class UserController {
      * Эндпоинт для изменения профиля пользователя по его id
      * @param userId id пользователя, профиль которого нужно изменить
      * @param userDTO DTO с информацией, которую нужно отразить в профиле пользователя
+     * @param ifMatch ETag профиля, полученный клиентом. Если задан и не совпадает
+     *                с текущей версией, профиль не изменяется
+     * @param request запрос, в сессии которого обновляются email и логин, если пользователь изменил свой профиль
      * @return строка, сообщающая об успешном изменении профиля
+     * @throws UserVersionMismatchException если профиль изменился после получения клиентом
      */
     @PatchMapping("/{userId}")
     @Transactional
     public String update(
-            @PathVariable("userId") Long userId, @Validated @RequestBody UserDTO userDTO)
-            throws UserNotFoundException {
-        User user = userService.getUserById(userId);
-        user.setEmail(userDTO.getEmail());
-        user.setLogin(userDTO.getLogin());
-        user.setBirthDate(userDTO.getBirthDate());
-        user.setCity(userDTO.getCity());
-        user.setDescription(userDTO.getDescription());
-        userService.save(user);
+            @PathVariable("userId") Long userId, @Validated @RequestBody UserDTO userDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            HttpServletRequest request)
+            throws UserNotFoundException, UserVersionMismatchException {
+        userService.update(userId, userDTO, EntityTags.expectedVersion(ifMatch));
+        if (tokenService == null) {
+            authService.updatePrincipal(userId, userDTO.getEmail(), userDTO.getLogin(), request.getSession(false));
+        }
         return "Ваш профиль изменен!";
     }
 
     /**
      * Эндпоинт для удаления аккаунта пользователя по id.
+     * В режиме сессий сессия завершается, в режиме токенов токен запроса отзывается, а сессия не создается
      * @param userId id пользователя, аккаунт которого нужно удалить
+     * @param request запрос, сессия которого завершается
+     * @param tokenPrincipal пользователь из токена или {@code null} в режиме сессий
      * @return строка, сообщающая об успешном удалении пользователя
      */
     @DeleteMapping("/{userId}")
     @Transactional
-    public String delete(@PathVariable("userId") Long userId, HttpSession session)
+    public String delete(@PathVariable("userId") Long userId, HttpServletRequest request,
+                         @AuthenticationPrincipal TokenPrincipal tokenPrincipal)
             throws UserNotFoundException {
-        authService.logout(session);
+        if (tokenService != null) {
+            if (tokenPrincipal != null) {
+                tokenService.revoke(tokenPrincipal);
+            }
+        } else {
+            authService.logout(request.getSession());
+        }
         userService.delete(userId);
         return "Профиль пользователя удален!";
     }
@@ -0,0 +1,46 @@
+package ru.project.buySellStore.dto;
+
+/**
+ * DTO диапазона стоимости с количеством товаров в нем
+ */
+public class CostBucketDTO {
+
+    private final Integer from;
+
+    private final Integer to;
+
+    private final long count;
+
+    /**
+     * Создание диапазона
+     * @param from нижняя граница стоимости включительно или {@code null}, если она не ограничена
+     * @param to верхняя граница стоимости не включительно или {@code null}, если она не ограничена
+     * @param count количество товаров в диапазоне
+     */
+    public CostBucketDTO(Integer from, Integer to, long count) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+    }
+
+    /**
+     * Получить нижнюю границу стоимости
+     */
+    public Integer getFrom() {
+        return from;
+    }
+
+    /**
+     * Получить верхнюю границу стоимости
+     */
+    public Integer getTo() {
+        return to;
+    }
+
+    /**
+     * Получить количество товаров в диапазоне
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,129 @@
+package ru.project.buySellStore.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * <b>DTO выбора товаров для массового изменения.</b>
+ * <p>Товары выбираются либо списком id, либо фильтром по категории и диапазону стоимости</p>
+ */
+public class ProductBulkRequestDTO {
+
+    /**
+     * Максимальное количество id в одном запросе
+     */
+    public static final int MAX_IDS = 10_000;
+
+    @Size(max = MAX_IDS, message = "За один запрос можно изменить не более " + MAX_IDS + " товаров")
+    private List<@NotNull(message = "id не может быть пустым") Long> ids;
+
+    private String category;
+
+    private Integer minCost;
+
+    private Integer maxCost;
+
+    /**
+     * Создание выбора по списку id
+     */
+    public ProductBulkRequestDTO(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Создание выбора по фильтру
+     * @param category категория товаров
+     * @param minCost минимальная стоимость включительно
+     * @param maxCost максимальная стоимость включительно
+     */
+    public ProductBulkRequestDTO(String category, Integer minCost, Integer maxCost) {
+        this.category = category;
+        this.minCost = minCost;
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Пустой конструктор
+     */
+    public ProductBulkRequestDTO() {
+    }
+
+    /**
+     * Проверить, что товары выбраны ровно одним способом.
+     * Фильтр без условий не допускается, чтобы случайно не изменить весь каталог
+     */
+    @JsonIgnore
+    @AssertTrue(message = "Нужно указать либо ids, либо хотя бы одно условие фильтра")
+    public boolean isSelectionValid() {
+        boolean byFilter = category != null || minCost != null || maxCost != null;
+        return ids != null ? !byFilter : byFilter;
+    }
+
+    /**
+     * Получить фильтр, по которому выбираются товары
+     */
+    @JsonIgnore
+    public ProductFilter getFilter() {
+        return new ProductFilter(category, minCost, maxCost);
+    }
+
+    /**
+     * Получить id товаров или {@code null}, если товары выбираются фильтром
+     */
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    /**
+     * Установить id товаров
+     */
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Получить категорию
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Установить категорию
+     */
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    /**
+     * Получить минимальную стоимость
+     */
+    public Integer getMinCost() {
+        return minCost;
+    }
+
+    /**
+     * Установить минимальную стоимость
+     */
+    public void setMinCost(Integer minCost) {
+        this.minCost = minCost;
+    }
+
+    /**
+     * Получить максимальную стоимость
+     */
+    public Integer getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Установить максимальную стоимость
+     */
+    public void setMaxCost(Integer maxCost) {
+        this.maxCost = maxCost;
+    }
+}
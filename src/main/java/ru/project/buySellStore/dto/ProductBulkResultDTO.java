@@ -0,0 +1,48 @@
+package ru.project.buySellStore.dto;
+
+import java.util.List;
+
+/**
+ * DTO результата массового изменения товаров
+ */
+public class ProductBulkResultDTO {
+
+    private final int affected;
+
+    private final List<Long> skipped;
+
+    private final List<Long> missing;
+
+    /**
+     * Создание результата
+     * @param affected количество измененных товаров
+     * @param skipped id существующих товаров, которые не изменены, потому что уже находятся в нужном состоянии
+     * @param missing id товаров, которых не существует
+     */
+    public ProductBulkResultDTO(int affected, List<Long> skipped, List<Long> missing) {
+        this.affected = affected;
+        this.skipped = skipped;
+        this.missing = missing;
+    }
+
+    /**
+     * Получить количество измененных товаров
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+    /**
+     * Получить id пропущенных товаров
+     */
+    public List<Long> getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Получить id несуществующих товаров
+     */
+    public List<Long> getMissing() {
+        return missing;
+    }
+}
@@ -0,0 +1,97 @@
+package ru.project.buySellStore.dto;
+
+import ru.project.buySellStore.exception.productEx.InvalidProductCursorException;
+import ru.project.buySellStore.model.Product;
+
+import java.util.Objects;
+
+/**
+ * <b>Курсор постраничного получения каталога.</b>
+ * <p>
+ *     Хранит ключ сортировки последнего товара страницы: id, а при сортировке по стоимости -
+ *     стоимость и id. Клиенту передается в виде строки {@code id} или {@code стоимость:id}
+ * </p>
+ */
+public class ProductCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final Integer cost;
+
+    private final long id;
+
+    /**
+     * Создание курсора
+     * @param cost стоимость последнего товара или {@code null}, если сортировка не по стоимости
+     * @param id id последнего товара
+     */
+    public ProductCursor(Integer cost, long id) {
+        this.cost = cost;
+        this.id = id;
+    }
+
+    /**
+     * Создание курсора, указывающего на товар
+     * @param product последний товар страницы
+     * @param sort порядок сортировки страницы
+     */
+    public static ProductCursor of(Product product, ProductSort sort) {
+        return new ProductCursor(sort.byCost() ? product.getCost() : null, product.getId());
+    }
+
+    /**
+     * Разбор курсора, полученного от клиента
+     * @param value строковое представление курсора
+     * @param sort порядок сортировки, для которого был выдан курсор
+     * @throws InvalidProductCursorException если курсор не соответствует порядку сортировки
+     */
+    public static ProductCursor decode(String value, ProductSort sort) throws InvalidProductCursorException {
+        try {
+            if (!sort.byCost()) {
+                return new ProductCursor(null, Long.parseLong(value));
+            }
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidProductCursorException(value);
+            }
+            return new ProductCursor(Integer.parseInt(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new InvalidProductCursorException(value);
+        }
+    }
+
+    /**
+     * Получить строковое представление курсора для передачи клиенту
+     */
+    public String encode() {
+        return cost == null ? Long.toString(id) : cost + SEPARATOR + id;
+    }
+
+    /**
+     * Получить стоимость последнего товара
+     */
+    public Integer getCost() {
+        return cost;
+    }
+
+    /**
+     * Получить id последнего товара
+     */
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductCursor that = (ProductCursor) o;
+        return id == that.id && Objects.equals(cost, that.cost);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cost, id);
+    }
+}
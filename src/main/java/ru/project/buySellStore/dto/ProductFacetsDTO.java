@@ -0,0 +1,38 @@
+package ru.project.buySellStore.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO с количеством товаров открытого каталога по категориям и диапазонам стоимости
+ */
+public class ProductFacetsDTO {
+
+    private final Map<String, Long> categories;
+
+    private final List<CostBucketDTO> costBuckets;
+
+    /**
+     * Создание DTO
+     * @param categories количество товаров по категориям
+     * @param costBuckets количество товаров по диапазонам стоимости
+     */
+    public ProductFacetsDTO(Map<String, Long> categories, List<CostBucketDTO> costBuckets) {
+        this.categories = categories;
+        this.costBuckets = costBuckets;
+    }
+
+    /**
+     * Получить количество товаров по категориям
+     */
+    public Map<String, Long> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Получить количество товаров по диапазонам стоимости
+     */
+    public List<CostBucketDTO> getCostBuckets() {
+        return costBuckets;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.project.buySellStore.dto;
+
+import java.util.Objects;
+
+/**
+ * Фильтр товаров при постраничном получении каталога.
+ * Незаданные условия не ограничивают выборку
+ */
+public class ProductFilter {
+
+    private final String category;
+
+    private final Integer minCost;
+
+    private final Integer maxCost;
+
+    /**
+     * Создание фильтра
+     * @param category категория товаров
+     * @param minCost минимальная стоимость включительно
+     * @param maxCost максимальная стоимость включительно
+     */
+    public ProductFilter(String category, Integer minCost, Integer maxCost) {
+        this.category = category;
+        this.minCost = minCost;
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Получить категорию
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Получить минимальную стоимость
+     */
+    public Integer getMinCost() {
+        return minCost;
+    }
+
+    /**
+     * Получить максимальную стоимость
+     */
+    public Integer getMaxCost() {
+        return maxCost;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductFilter that = (ProductFilter) o;
+        return Objects.equals(category, that.category)
+                && Objects.equals(minCost, that.minCost)
+                && Objects.equals(maxCost, that.maxCost);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, minCost, maxCost);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.project.buySellStore.dto;
+
+/**
+ * DTO строки CSV-файла, отклоненной при загрузке товаров
+ */
+public class ProductImportRejectDTO {
+
+    private final long line;
+
+    private final String message;
+
+    /**
+     * Создание отклоненной строки
+     * @param line номер строки файла, с которой начинается запись
+     * @param message причина отклонения
+     */
+    public ProductImportRejectDTO(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    /**
+     * Получить номер строки файла
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Получить причину отклонения
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.project.buySellStore.dto;
+
+import java.util.List;
+
+/**
+ * DTO результата загрузки товаров из CSV-файла
+ */
+public class ProductImportResultDTO {
+
+    private final long imported;
+
+    private final long rejected;
+
+    private final List<ProductImportRejectDTO> rejects;
+
+    /**
+     * Создание результата
+     * @param imported количество загруженных товаров
+     * @param rejected количество отклоненных строк
+     * @param rejects первые отклоненные строки с причинами
+     */
+    public ProductImportResultDTO(long imported, long rejected, List<ProductImportRejectDTO> rejects) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.rejects = rejects;
+    }
+
+    /**
+     * Получить количество загруженных товаров
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Получить количество отклоненных строк
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Получить первые отклоненные строки.
+     * Их может быть меньше, чем {@link #getRejected()}
+     */
+    public List<ProductImportRejectDTO> getRejects() {
+        return rejects;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.project.buySellStore.dto;
+
+import java.util.List;
+
+/**
+ * DTO страницы товаров при постраничном получении каталога
+ */
+public class ProductPageDTO {
+
+    private List<ProductDTO> items;
+
+    private String nextCursor;
+
+    /**
+     * Создание страницы
+     * @param items товары на странице
+     * @param nextCursor курсор последнего товара страницы, который передается
+     *                   в параметре {@code after} для получения следующей страницы.
+     *                   Равен {@code null}, если страница последняя
+     */
+    public ProductPageDTO(List<ProductDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Создание экземпляра без полей
+     */
+    public ProductPageDTO() {
+    }
+
+    /**
+     * Получить товары на странице
+     */
+    public List<ProductDTO> getItems() {
+        return items;
+    }
+
+    /**
+     * Установить товары на странице
+     */
+    public void setItems(List<ProductDTO> items) {
+        this.items = items;
+    }
+
+    /**
+     * Получить курсор следующей страницы
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Установить курсор следующей страницы
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.project.buySellStore.dto;
+
+/**
+ * Порядок сортировки товаров при постраничном получении каталога
+ */
+public enum ProductSort {
+
+    /**
+     * Сначала старые товары (по возрастанию id)
+     */
+    OLDEST,
+
+    /**
+     * Сначала новые товары (по убыванию id)
+     */
+    NEWEST,
+
+    /**
+     * Сначала дешевые товары
+     */
+    COST_ASC,
+
+    /**
+     * Сначала дорогие товары
+     */
+    COST_DESC;
+
+    /**
+     * Сортируется ли каталог по стоимости
+     */
+    public boolean byCost() {
+        return this == COST_ASC || this == COST_DESC;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.project.buySellStore.dto;
+
+/**
+ * DTO статистики встроенного поискового индекса товаров
+ */
+public class SearchIndexStatsDTO {
+
+    private final long documents;
+
+    private final long terms;
+
+    private final long postings;
+
+    private final long estimatedBytes;
+
+    /**
+     * Создание статистики
+     * @param documents количество проиндексированных товаров
+     * @param terms количество различных терминов
+     * @param postings суммарное количество вхождений терминов
+     * @param estimatedBytes оценка занимаемой индексом памяти в байтах
+     */
+    public SearchIndexStatsDTO(long documents, long terms, long postings, long estimatedBytes) {
+        this.documents = documents;
+        this.terms = terms;
+        this.postings = postings;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * Получить количество проиндексированных товаров
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Получить количество различных терминов
+     */
+    public long getTerms() {
+        return terms;
+    }
+
+    /**
+     * Получить суммарное количество вхождений терминов
+     */
+    public long getPostings() {
+        return postings;
+    }
+
+    /**
+     * Получить оценку занимаемой индексом памяти в байтах
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+}
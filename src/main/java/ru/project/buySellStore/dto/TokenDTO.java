@@ -0,0 +1,58 @@
+package ru.project.buySellStore.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * DTO токена доступа.
+ * Возвращается при входе и обновлении токена и принимается при обновлении
+ */
+public class TokenDTO {
+
+    /**
+     * Подписанный токен для заголовка {@code Authorization: Bearer}
+     */
+    @NotBlank(message = "Токен не должен быть пустым")
+    private String token;
+
+    /**
+     * Время действия токена в секундах
+     */
+    private long expiresIn;
+
+    /**
+     * Конструктор
+     * @param token подписанный токен
+     * @param expiresIn время действия токена в секундах
+     */
+    public TokenDTO(String token, long expiresIn) {
+        this.token = token;
+        this.expiresIn = expiresIn;
+    }
+
+    /**
+     * Пустой конструктор
+     */
+    public TokenDTO() {
+    }
+
+    /**
+     * Получить подписанный токен
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Получить тип токена для заголовка {@code Authorization}
+     */
+    public String getTokenType() {
+        return "Bearer";
+    }
+
+    /**
+     * Получить время действия токена в секундах
+     */
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.project.buySellStore.event;
+
+/**
+ * Событие изменения товара в открытом каталоге.
+ * <p>Публикуется сервисом товаров при создании, изменении, архивировании,
+ * восстановлении и удалении товара. Получатели, поддерживающие производные
+ * от каталога структуры, обрабатывают его после фиксации транзакции</p>
+ */
+public class ProductChangedEvent {
+
+    private final long productId;
+
+    private final ProductSnapshot before;
+
+    private final ProductSnapshot after;
+
+    /**
+     * Создание события
+     * @param productId id измененного товара
+     * @param before состояние товара до изменения или {@code null},
+     *               если товара не было в открытом каталоге
+     * @param after состояние товара после изменения или {@code null},
+     *              если товар удален или находится в архиве
+     */
+    public ProductChangedEvent(long productId, ProductSnapshot before, ProductSnapshot after) {
+        this.productId = productId;
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * Получить id измененного товара
+     */
+    public long getProductId() {
+        return productId;
+    }
+
+    /**
+     * Получить состояние товара до изменения.
+     * @return снимок товара или {@code null}, если товара не было в открытом каталоге
+     */
+    public ProductSnapshot getBefore() {
+        return before;
+    }
+
+    /**
+     * Получить состояние товара после изменения.
+     * @return снимок товара или {@code null}, если товара больше нет в открытом каталоге
+     */
+    public ProductSnapshot getAfter() {
+        return after;
+    }
+}
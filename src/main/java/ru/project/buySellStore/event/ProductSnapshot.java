@@ -0,0 +1,92 @@
+package ru.project.buySellStore.event;
+
+import ru.project.buySellStore.model.Product;
+
+/**
+ * Неизменяемый снимок данных товара на момент его изменения.
+ * <p>Передается в событиях, чтобы получатели не зависели от состояния сущности
+ * и контекста персистентности</p>
+ */
+public final class ProductSnapshot {
+
+    private final long id;
+
+    private final String name;
+
+    private final String description;
+
+    private final String category;
+
+    private final Integer cost;
+
+    private final long version;
+
+    /**
+     * Создание снимка с указанными данными
+     */
+    public ProductSnapshot(long id, String name, String description, String category, Integer cost,
+                           long version) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.category = category;
+        this.cost = cost;
+        this.version = version;
+    }
+
+    /**
+     * Создание снимка текущего состояния товара
+     */
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getCategory(),
+                product.getCost(),
+                product.getVersion()
+        );
+    }
+
+    /**
+     * Получить id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Получить имя
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Получить описание
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Получить категорию
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Получить стоимость
+     */
+    public Integer getCost() {
+        return cost;
+    }
+
+    /**
+     * Получить версию товара на момент снимка
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.project.buySellStore.event;
+
+/**
+ * Событие массовой загрузки товаров в обход сущностей.
+ * <p>Загруженные товары не сопровождаются {@link ProductChangedEvent}, поэтому
+ * получатели, поддерживающие производные от каталога структуры, пересчитывают их целиком.
+ * Событие публикуется в потоке запроса загрузки после фиксации, поэтому получатели выполняют
+ * пересчет в фоне</p>
+ */
+public class ProductsImportedEvent {
+
+    private final long imported;
+
+    private final long firstId;
+
+    /**
+     * Создание события
+     * @param imported количество загруженных товаров
+     * @param firstId наименьший id загруженных товаров
+     */
+    public ProductsImportedEvent(long imported, long firstId) {
+        this.imported = imported;
+        this.firstId = firstId;
+    }
+
+    /**
+     * Получить количество загруженных товаров
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Получить наименьший id загруженных товаров.
+     * Загруженным товарам выделяются возрастающие id
+     */
+    public long getFirstId() {
+        return firstId;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.project.buySellStore.event;
+
+/**
+ * Событие изменения или удаления пользователя.
+ * <p>Публикуется сервисом пользователей. Получатели, хранящие копии пользователя,
+ * обрабатывают его после фиксации транзакции</p>
+ */
+public class UserChangedEvent {
+
+    private final long userId;
+
+    /**
+     * Создание события
+     * @param userId id измененного или удаленного пользователя
+     */
+    public UserChangedEvent(long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Получить id измененного или удаленного пользователя
+     */
+    public long getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.project.buySellStore.exception.globalEx;
+
+/**
+ * Exception при некорректных данных запроса
+ */
+public class BuySellStoreBadRequestException extends BuySellStoreException {
+    public BuySellStoreBadRequestException(String message) {
+        super(message);
+    }
+}
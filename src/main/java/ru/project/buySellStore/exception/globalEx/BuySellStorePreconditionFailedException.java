@@ -0,0 +1,10 @@
+package ru.project.buySellStore.exception.globalEx;
+
+/**
+ * Exception, когда не выполнено условие запроса, например If-Match
+ */
+public class BuySellStorePreconditionFailedException extends BuySellStoreException {
+    public BuySellStorePreconditionFailedException(String message) {
+        super(message);
+    }
+}
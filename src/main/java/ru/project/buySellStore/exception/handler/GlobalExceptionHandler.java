@@ -1,34 +1,73 @@
 package ru.project.buySellStore.exception.handler;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 import ru.project.buySellStore.dto.ErrorDTO;
+import ru.project.buySellStore.exception.globalEx.BuySellStoreBadRequestException;
 import ru.project.buySellStore.exception.globalEx.BuySellStoreConflictException;
 import ru.project.buySellStore.exception.globalEx.BuySellStoreNotFoundException;
+import ru.project.buySellStore.exception.globalEx.BuySellStorePreconditionFailedException;
+import ru.project.buySellStore.exception.securityEx.InvalidTokenException;
+import ru.project.buySellStore.exception.securityEx.PasswordHashingRejectedException;
 
 import java.util.stream.Collectors;
 
 /**
- * Глобальный обработчик исключений
+ * Глобальный обработчик исключений.
+ * Каждое обработанное исключение учитывается в счетчике {@value #EXCEPTIONS_METRIC}
+ * с типом исключения и кодом ответа
  */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * Название счетчика обработанных исключений
+     */
+    public static final String EXCEPTIONS_METRIC = "exceptions.handled";
+
     private final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Создание обработчика с реестром метрик приложения. Если реестра нет,
+     * например в тестах контроллеров, счетчики ведутся в отдельном реестре в памяти
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public GlobalExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+        this(meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Создание обработчика с указанным реестром метрик
+     * @param meterRegistry реестр метрик
+     */
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * Обрабатывает, когда отсутствует объект из базы данных
      */
     @ExceptionHandler(BuySellStoreNotFoundException.class)
     public ResponseEntity<ErrorDTO> handleNotFoundEx(BuySellStoreNotFoundException ex) {
         logger.error("NotFoundException: {}", ex.getMessage(), ex);
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorDTO(ex.getMessage()));
+        return respond(HttpStatus.NOT_FOUND, ex, ex.getMessage());
     }
 
     /**
@@ -37,7 +76,34 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(BuySellStoreConflictException.class)
     public ResponseEntity<ErrorDTO> handleConflictEx(BuySellStoreConflictException ex) {
         logger.error("ConflictException: {}", ex.getMessage(), ex);
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorDTO(ex.getMessage()));
+        return respond(HttpStatus.CONFLICT, ex, ex.getMessage());
+    }
+
+    /**
+     * Обрабатывает некорректные данные запроса
+     */
+    @ExceptionHandler(BuySellStoreBadRequestException.class)
+    public ResponseEntity<ErrorDTO> handleBadRequestEx(BuySellStoreBadRequestException ex) {
+        logger.error("BadRequestException: {}", ex.getMessage(), ex);
+        return respond(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+    }
+
+    /**
+     * Обрабатывает невыполненные условия запроса
+     */
+    @ExceptionHandler(BuySellStorePreconditionFailedException.class)
+    public ResponseEntity<ErrorDTO> handlePreconditionFailedEx(BuySellStorePreconditionFailedException ex) {
+        logger.error("PreconditionFailedException: {}", ex.getMessage(), ex);
+        return respond(HttpStatus.PRECONDITION_FAILED, ex, ex.getMessage());
+    }
+
+    /**
+     * Обрабатывает одновременное изменение сущности несколькими запросами
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDTO> handleOptimisticLockingEx(ObjectOptimisticLockingFailureException ex) {
+        logger.error("OptimisticLockingFailureException: {}", ex.getMessage(), ex);
+        return respond(HttpStatus.CONFLICT, ex, "Объект был изменен другим запросом, повторите попытку");
     }
 
     /**
@@ -46,8 +112,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(NoResourceFoundException.class)
     public ResponseEntity<ErrorDTO> handleNotFoundEx(NoResourceFoundException ex) {
         logger.error("NoResourceFoundException: {}", ex.getMessage(), ex);
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(new ErrorDTO("Ресурс /%s не существует".formatted(ex.getResourcePath())));
+        return respond(HttpStatus.NOT_FOUND, ex, "Ресурс /%s не существует".formatted(ex.getResourcePath()));
     }
 
     /**
@@ -61,7 +126,46 @@ public class GlobalExceptionHandler {
                     return fieldName + ": " + fe.getDefaultMessage();
                 }).collect(Collectors.joining(", ")));
         logger.error("ValidationException: {}", description, ex);
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorDTO(description));
+        return respond(HttpStatus.BAD_REQUEST, ex, description);
+    }
+
+    /**
+     * Обрабатывает ошибки валидации параметров запроса
+     */
+    @ExceptionHandler({HandlerMethodValidationException.class})
+    public ResponseEntity<ErrorDTO> handle(HandlerMethodValidationException ex) {
+        String description = "%s %s".formatted("Неправильно заполнены параметры.",
+                ex.getParameterValidationResults().stream().flatMap((result) -> {
+                    String parameterName = result.getMethodParameter().getParameterName();
+                    return result.getResolvableErrors().stream()
+                            .map((error) -> parameterName + ": " + error.getDefaultMessage());
+                }).collect(Collectors.joining(", ")));
+        logger.error("ValidationException: {}", description, ex);
+        return respond(HttpStatus.BAD_REQUEST, ex, description);
+    }
+
+    /**
+     * Обрабатывает, когда очередь хеширования паролей заполнена.
+     * Ошибка не логируется: при перегрузке их много, они учитываются в счетчике
+     */
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<ErrorDTO> handlePasswordHashingRejectedEx(PasswordHashingRejectedException ex) {
+        ResponseEntity<ErrorDTO> response = respond(HttpStatus.SERVICE_UNAVAILABLE, ex, ex.getMessage());
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response.getBody());
+    }
+
+    /**
+     * Обрабатывает недействительный токен доступа.
+     * Ошибка не логируется: это ответ на данные клиента, а не сбой
+     */
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<ErrorDTO> handleInvalidTokenEx(InvalidTokenException ex) {
+        ResponseEntity<ErrorDTO> response = respond(HttpStatus.UNAUTHORIZED, ex, ex.getMessage());
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"")
+                .body(response.getBody());
     }
 
     /**
@@ -70,7 +174,19 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorDTO> handleInternalServerEx(Exception ex) {
         logger.error("Exception: {}", ex.getMessage(), ex);
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ErrorDTO(ex.getMessage()));
+        return respond(HttpStatus.INTERNAL_SERVER_ERROR, ex, ex.getMessage());
+    }
+
+    /**
+     * Учесть исключение в счетчике и сформировать ответ с ошибкой
+     */
+    private ResponseEntity<ErrorDTO> respond(HttpStatus status, Exception ex, String message) {
+        Counter.builder(EXCEPTIONS_METRIC)
+                .description("Исключения, обработанные глобальным обработчиком")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+        return ResponseEntity.status(status).body(new ErrorDTO(message));
     }
 }
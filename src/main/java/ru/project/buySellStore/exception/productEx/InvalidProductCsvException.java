@@ -0,0 +1,12 @@
+package ru.project.buySellStore.exception.productEx;
+
+import ru.project.buySellStore.exception.globalEx.BuySellStoreBadRequestException;
+
+/**
+ * Exception при CSV-файле товаров, который невозможно разобрать
+ */
+public class InvalidProductCsvException extends BuySellStoreBadRequestException {
+    public InvalidProductCsvException(String message) {
+        super("Некорректный CSV-файл товаров: " + message);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.project.buySellStore.exception.productEx;
+
+import ru.project.buySellStore.exception.globalEx.BuySellStoreBadRequestException;
+
+/**
+ * Exception при некорректном курсоре постраничного получения товаров
+ */
+public class InvalidProductCursorException extends BuySellStoreBadRequestException {
+    public InvalidProductCursorException(String cursor) {
+        super("Некорректный курсор страницы: " + cursor);
+    }
+}
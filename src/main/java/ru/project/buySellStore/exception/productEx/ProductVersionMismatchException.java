@@ -0,0 +1,13 @@
+package ru.project.buySellStore.exception.productEx;
+
+import ru.project.buySellStore.exception.globalEx.BuySellStorePreconditionFailedException;
+
+/**
+ * Exception, когда версия товара не совпадает с указанной в If-Match
+ */
+public class ProductVersionMismatchException extends BuySellStorePreconditionFailedException {
+
+    public ProductVersionMismatchException(Long id) {
+        super("Товар с id = " + id + " был изменен после получения");
+    }
+}
@@ -0,0 +1,16 @@
+package ru.project.buySellStore.exception.securityEx;
+
+import ru.project.buySellStore.exception.globalEx.BuySellStoreException;
+
+/**
+ * Исключение, когда токен доступа поврежден, подписан другим ключом, истек или отозван
+ */
+public class InvalidTokenException extends BuySellStoreException {
+
+    /**
+     * Создание c указанным сообщением
+     */
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.project.buySellStore.exception.securityEx;
+
+/**
+ * Исключение, когда очередь хеширования паролей заполнена.
+ * Непроверяемое, так как выбрасывается из {@link org.springframework.security.crypto.password.PasswordEncoder},
+ * в том числе внутри Spring Security
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    /**
+     * Создание исключения
+     */
+    public PasswordHashingRejectedException() {
+        super("Сервис перегружен, повторите попытку позже");
+    }
+}
@@ -0,0 +1,16 @@
+package ru.project.buySellStore.exception.securityEx;
+
+import ru.project.buySellStore.exception.globalEx.BuySellStoreBadRequestException;
+
+/**
+ * Исключение, когда токен доступа нельзя выпустить, так как пользователю не назначена роль
+ */
+public class RoleNotAssignedException extends BuySellStoreBadRequestException {
+
+    /**
+     * Создание по id пользователя
+     */
+    public RoleNotAssignedException(long userId) {
+        super("Пользователю с id = %d не назначена роль, вход по токену невозможен".formatted(userId));
+    }
+}
@@ -0,0 +1,12 @@
+package ru.project.buySellStore.exception.userEx;
+
+import ru.project.buySellStore.exception.globalEx.BuySellStorePreconditionFailedException;
+
+/**
+ * Exception, когда версия профиля пользователя не совпадает с указанной в If-Match
+ */
+public class UserVersionMismatchException extends BuySellStorePreconditionFailedException {
+    public UserVersionMismatchException(Long id) {
+        super("Профиль пользователя с id = " + id + " был изменен после получения");
+    }
+}
@@ -2,6 +2,7 @@ package ru.project.buySellStore.mapper;
 
 import org.springframework.stereotype.Component;
 import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.event.ProductSnapshot;
 import ru.project.buySellStore.model.Product;
 
 /**
@@ -22,4 +23,29 @@ public class ProductMapper {
                 product.getCost()
         );
     }
+
+    /**
+     * Преобразование снимка товара в DTO
+     */
+    public ProductDTO toDto(ProductSnapshot product) {
+        return new ProductDTO(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getCategory(),
+                product.getCost()
+        );
+    }
+
+    /**
+     * Преобразование DTO в новую сущность товара. Id из DTO не переносится
+     */
+    public Product toEntity(ProductDTO productDto) {
+        Product product = new Product();
+        product.setName(productDto.getName());
+        product.setDescription(productDto.getDescription());
+        product.setCategory(productDto.getCategory());
+        product.setCost(productDto.getCost());
+        return product;
+    }
 }
@@ -4,6 +4,8 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 
 import java.util.Objects;
 
@@ -13,14 +15,30 @@ import java.util.Objects;
 @MappedSuperclass
 public abstract class BaseEntity {
 
+    /**
+     * Шаг последовательности id. Должен совпадать с INCREMENT BY последовательности в базе данных
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * <b>Идентификатор сущности</b>
-     * <p>Определяется при создании</p>
+     * <p>Определяется при создании из общей последовательности {@code entity_id_seq}.
+     * Hibernate резервирует по {@link #ID_ALLOCATION_SIZE} значений за одно обращение,
+     * поэтому id известен до вставки и вставки могут отправляться пакетами</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entity_id_seq")
+    @SequenceGenerator(name = "entity_id_seq", sequenceName = "entity_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private long id;
 
+    /**
+     * <b>Версия сущности</b>
+     * <p>Увеличивается при каждом изменении. Используется для оптимистической блокировки
+     * и как ETag в HTTP-ответах</p>
+     */
+    @Version
+    private long version;
+
     /**
      * Метод получения id пользователя
      */
@@ -35,6 +53,20 @@ public abstract class BaseEntity {
         this.id = id;
     }
 
+    /**
+     * Получить версию сущности
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Установить версию сущности
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,17 @@
+package ru.project.buySellStore.repository;
+
+/**
+ * Проекция результата группировки товаров по категории
+ */
+public interface CategoryCount {
+
+    /**
+     * Получить категорию
+     */
+    String getCategory();
+
+    /**
+     * Получить количество товаров в категории
+     */
+    long getCount();
+}
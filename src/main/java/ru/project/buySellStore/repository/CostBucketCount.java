@@ -0,0 +1,17 @@
+package ru.project.buySellStore.repository;
+
+/**
+ * Проекция результата группировки товаров по диапазону стоимости
+ */
+public interface CostBucketCount {
+
+    /**
+     * Получить номер диапазона стоимости
+     */
+    int getBucket();
+
+    /**
+     * Получить количество товаров в диапазоне
+     */
+    long getCount();
+}
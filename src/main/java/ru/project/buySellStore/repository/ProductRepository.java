@@ -1,12 +1,309 @@
 package ru.project.buySellStore.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.project.buySellStore.model.Product;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  *  Репозиторий для управления Товара
  */
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /**
+     * Количество строк, получаемых из базы данных за одно обращение при чтении потоком
+     */
+    int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Столбцы, возвращаемые массовыми изменениями в {@link ProductRow}
+     */
+    String RETURNING_ROW = " RETURNING id, name, description, category, cost, archived, version";
+
+    /**
+     * Условие фильтра массовых изменений по категории и диапазону стоимости.
+     * Категория {@code null} не ограничивает выборку
+     */
+    String MATCHES_FILTER = " AND (CAST(:category AS VARCHAR) IS NULL OR category = :category)"
+            + " AND cost BETWEEN :minCost AND :maxCost";
+
+    /**
+     * Начало запросов страниц каталога: товары, не находящиеся в архиве, в диапазоне стоимости
+     */
+    String ACTIVE_IN_COST_RANGE = "select p from Product p where p.archived = false "
+            + "and p.cost between :minCost and :maxCost ";
+
+    /**
+     * Условие продолжения страницы после товара с ключом (стоимость, id) по возрастанию.
+     * Первое неравенство позволяет начать чтение индекса сразу с нужной стоимости
+     */
+    String AFTER_COST_ASC = "and p.cost >= :afterCost and (p.cost > :afterCost or p.id > :afterId) ";
+
+    /**
+     * Условие продолжения страницы после товара с ключом (стоимость, id) по убыванию
+     */
+    String AFTER_COST_DESC = "and p.cost <= :afterCost and (p.cost < :afterCost or p.id < :afterId) ";
+
+    /**
+     * Получить страницу товаров, не находящихся в архиве, по возрастанию id.
+     * Использует частичный индекс по id
+     * @param minCost минимальная стоимость включительно
+     * @param maxCost максимальная стоимость включительно
+     * @param afterId id последнего товара предыдущей страницы
+     * @param limit максимальное количество товаров на странице
+     */
+    @Query(ACTIVE_IN_COST_RANGE + "and p.id > :afterId order by p.id")
+    List<Product> findActiveOrderByIdAsc(@Param("minCost") int minCost, @Param("maxCost") int maxCost,
+                                         @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Получить страницу товаров категории, не находящихся в архиве, по возрастанию id.
+     * Использует частичный индекс по (категория, id)
+     */
+    @Query(ACTIVE_IN_COST_RANGE + "and p.category = :category and p.id > :afterId order by p.id")
+    List<Product> findActiveByCategoryOrderByIdAsc(@Param("category") String category,
+                                                   @Param("minCost") int minCost, @Param("maxCost") int maxCost,
+                                                   @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Получить страницу товаров, не находящихся в архиве, по убыванию id.
+     * Использует частичный индекс по id в обратном порядке
+     */
+    @Query(ACTIVE_IN_COST_RANGE + "and p.id < :afterId order by p.id desc")
+    List<Product> findActiveOrderByIdDesc(@Param("minCost") int minCost, @Param("maxCost") int maxCost,
+                                          @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Получить страницу товаров категории, не находящихся в архиве, по убыванию id.
+     * Использует частичный индекс по (категория, id) в обратном порядке
+     */
+    @Query(ACTIVE_IN_COST_RANGE + "and p.category = :category and p.id < :afterId order by p.id desc")
+    List<Product> findActiveByCategoryOrderByIdDesc(@Param("category") String category,
+                                                    @Param("minCost") int minCost, @Param("maxCost") int maxCost,
+                                                    @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Получить страницу товаров, не находящихся в архиве, по возрастанию стоимости.
+     * Использует частичный индекс по (стоимость, id)
+     * @param afterCost стоимость последнего товара предыдущей страницы
+     * @param afterId id последнего товара предыдущей страницы
+     */
+    @Query(ACTIVE_IN_COST_RANGE + AFTER_COST_ASC + "order by p.cost, p.id")
+    List<Product> findActiveOrderByCostAsc(@Param("minCost") int minCost, @Param("maxCost") int maxCost,
+                                           @Param("afterCost") int afterCost, @Param("afterId") long afterId,
+                                           Limit limit);
+
+    /**
+     * Получить страницу товаров категории, не находящихся в архиве, по возрастанию стоимости.
+     * Использует частичный индекс по (категория, стоимость, id)
+     */
+    @Query(ACTIVE_IN_COST_RANGE + "and p.category = :category " + AFTER_COST_ASC + "order by p.cost, p.id")
+    List<Product> findActiveByCategoryOrderByCostAsc(@Param("category") String category,
+                                                     @Param("minCost") int minCost, @Param("maxCost") int maxCost,
+                                                     @Param("afterCost") int afterCost,
+                                                     @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Получить страницу товаров, не находящихся в архиве, по убыванию стоимости.
+     * Использует частичный индекс по (стоимость, id) в обратном порядке
+     */
+    @Query(ACTIVE_IN_COST_RANGE + AFTER_COST_DESC + "order by p.cost desc, p.id desc")
+    List<Product> findActiveOrderByCostDesc(@Param("minCost") int minCost, @Param("maxCost") int maxCost,
+                                            @Param("afterCost") int afterCost, @Param("afterId") long afterId,
+                                            Limit limit);
+
+    /**
+     * Получить страницу товаров категории, не находящихся в архиве, по убыванию стоимости.
+     * Использует частичный индекс по (категория, стоимость, id) в обратном порядке
+     */
+    @Query(ACTIVE_IN_COST_RANGE + "and p.category = :category " + AFTER_COST_DESC
+            + "order by p.cost desc, p.id desc")
+    List<Product> findActiveByCategoryOrderByCostDesc(@Param("category") String category,
+                                                      @Param("minCost") int minCost, @Param("maxCost") int maxCost,
+                                                      @Param("afterCost") int afterCost,
+                                                      @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Получить поток всех товаров, не находящихся в архиве, упорядоченных по id.
+     * <p>Строки читаются из базы данных порциями по {@value #STREAM_FETCH_SIZE},
+     * а не загружаются целиком. Поток должен быть закрыт и использоваться внутри транзакции</p>
+     */
+    @Query("select p from Product p where p.archived = false order by p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamAllActive();
+
+    /**
+     * Получить поток товаров, не находящихся в архиве, с id не меньше указанного, упорядоченных по id.
+     * Читается так же, как {@link #streamAllActive()}
+     * @param fromId наименьший id
+     */
+    @Query("select p from Product p where p.archived = false and p.id >= :fromId order by p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamActiveFromId(@Param("fromId") long fromId);
+
+    /**
+     * Полнотекстовый поиск товаров, не находящихся в архиве, по названию и описанию.
+     * <p>Использует GIN-индекс по столбцу {@code search_vector}. Совпадения в названии весят больше,
+     * чем совпадения в описании. Результаты упорядочены по убыванию релевантности</p>
+     * @param query поисковый запрос в формате {@code websearch_to_tsquery}
+     * @param limit максимальное количество товаров в результате
+     * @param offset количество пропускаемых товаров
+     */
+    @Query(value = """
+            SELECT p.* FROM product p, websearch_to_tsquery('russian', :query) q
+            WHERE p.archived = false AND p.search_vector @@ q
+            ORDER BY ts_rank(p.search_vector, q) DESC, p.id
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<Product> search(@Param("query") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+    /**
+     * Подсчитать товары, не находящиеся в архиве, по категориям
+     */
+    @Query("select p.category as category, count(p) as count from Product p "
+            + "where p.archived = false group by p.category")
+    List<CategoryCount> countActiveByCategory();
+
+    /**
+     * Подсчитать товары, не находящиеся в архиве, по диапазонам стоимости одним запросом.
+     * Номер диапазона считает {@code width_bucket} так же, как
+     * {@link ru.project.buySellStore.catalog.ProductFacetCounter#bucketOf}: 0 - дешевле первой границы,
+     * i - от границы i - 1 включительно до границы i. Границы должны совпадать
+     * с {@code ProductFacetCounter.COST_BUCKET_BOUNDS}. Товары без стоимости не учитываются
+     */
+    @Query(value = "SELECT width_bucket(cost, ARRAY[1000, 5000, 10000, 50000]) AS bucket, count(*) AS count"
+            + " FROM product WHERE archived = false AND cost IS NOT NULL GROUP BY bucket", nativeQuery = true)
+    List<CostBucketCount> countActiveByCostBucket();
+
+    /**
+     * Изменить название, описание и стоимость товара одним запросом без предварительного чтения.
+     * Строка блокируется подзапросом, поэтому возвращаемое состояние до изменения согласовано с изменением
+     * @param id id товара
+     * @param expectedVersion версия товара, которую видел клиент, или {@code null}, если проверка не нужна
+     * @return товар до изменения или пустой результат, если товара не существует или версия не совпадает
+     */
+    @Transactional
+    @Query(value = "WITH previous AS (SELECT id, name, description, category, cost, archived, version"
+            + " FROM product WHERE id = :id FOR UPDATE)"
+            + " UPDATE product p SET name = :name, description = :description, cost = :cost, version = p.version + 1"
+            + " FROM previous WHERE p.id = previous.id"
+            + " AND (CAST(:expectedVersion AS BIGINT) IS NULL OR previous.version = :expectedVersion)"
+            + " RETURNING previous.id, previous.name, previous.description, previous.category, previous.cost,"
+            + " previous.archived, previous.version", nativeQuery = true)
+    Optional<ProductRow> updateReturningPreviousById(@Param("id") Long id, @Param("name") String name,
+                                                     @Param("description") String description,
+                                                     @Param("cost") Integer cost,
+                                                     @Param("expectedVersion") Long expectedVersion);
+
+    /**
+     * Отправить товар в архив одним запросом, если он существует и еще не находится в архиве
+     * @param id id товара
+     * @return измененный товар или пустой результат, если ни одна строка не изменена
+     */
+    @Transactional
+    @Query(value = "UPDATE product SET archived = true, version = version + 1"
+            + " WHERE id = :id AND archived = false" + RETURNING_ROW, nativeQuery = true)
+    Optional<ProductRow> archiveById(@Param("id") Long id);
+
+    /**
+     * Восстановить товар из архива одним запросом, если он существует и находится в архиве
+     * @param id id товара
+     * @return измененный товар или пустой результат, если ни одна строка не изменена
+     */
+    @Transactional
+    @Query(value = "UPDATE product SET archived = false, version = version + 1"
+            + " WHERE id = :id AND archived = true" + RETURNING_ROW, nativeQuery = true)
+    Optional<ProductRow> restoreById(@Param("id") Long id);
+
+    /**
+     * Удалить товар одним запросом без предварительного чтения
+     * @param id id товара
+     * @return удаленный товар в состоянии до удаления или пустой результат, если товара не было
+     */
+    @Transactional
+    @Query(value = "DELETE FROM product WHERE id = :id" + RETURNING_ROW, nativeQuery = true)
+    Optional<ProductRow> deleteReturningById(@Param("id") Long id);
+
+    /**
+     * Отправить в архив товары с указанными id одним запросом.
+     * Товары, уже находящиеся в архиве, не изменяются
+     * @param ids id товаров
+     * @return измененные товары
+     */
+    @Transactional
+    @Query(value = "UPDATE product SET archived = true, version = version + 1"
+            + " WHERE id = ANY(:ids) AND archived = false" + RETURNING_ROW, nativeQuery = true)
+    List<ProductRow> archiveAllByIds(@Param("ids") Long[] ids);
+
+    /**
+     * Отправить в архив товары, подходящие под фильтр, одним запросом
+     * @return измененные товары
+     */
+    @Transactional
+    @Query(value = "UPDATE product SET archived = true, version = version + 1"
+            + " WHERE archived = false" + MATCHES_FILTER + RETURNING_ROW, nativeQuery = true)
+    List<ProductRow> archiveAllByFilter(@Param("category") String category,
+                                        @Param("minCost") int minCost, @Param("maxCost") int maxCost);
+
+    /**
+     * Восстановить из архива товары с указанными id одним запросом.
+     * Товары, не находящиеся в архиве, не изменяются
+     * @param ids id товаров
+     * @return измененные товары
+     */
+    @Transactional
+    @Query(value = "UPDATE product SET archived = false, version = version + 1"
+            + " WHERE id = ANY(:ids) AND archived = true" + RETURNING_ROW, nativeQuery = true)
+    List<ProductRow> restoreAllByIds(@Param("ids") Long[] ids);
+
+    /**
+     * Восстановить из архива товары, подходящие под фильтр, одним запросом
+     * @return измененные товары
+     */
+    @Transactional
+    @Query(value = "UPDATE product SET archived = false, version = version + 1"
+            + " WHERE archived = true" + MATCHES_FILTER + RETURNING_ROW, nativeQuery = true)
+    List<ProductRow> restoreAllByFilter(@Param("category") String category,
+                                        @Param("minCost") int minCost, @Param("maxCost") int maxCost);
+
+    /**
+     * Удалить товары с указанными id одним запросом
+     * @param ids id товаров
+     * @return удаленные товары в состоянии до удаления
+     */
+    @Transactional
+    @Query(value = "DELETE FROM product WHERE id = ANY(:ids)" + RETURNING_ROW, nativeQuery = true)
+    List<ProductRow> deleteAllByIds(@Param("ids") Long[] ids);
+
+    /**
+     * Удалить товары, подходящие под фильтр, включая архивные, одним запросом
+     * @return удаленные товары в состоянии до удаления
+     */
+    @Transactional
+    @Query(value = "DELETE FROM product WHERE true" + MATCHES_FILTER + RETURNING_ROW, nativeQuery = true)
+    List<ProductRow> deleteAllByFilter(@Param("category") String category,
+                                       @Param("minCost") int minCost, @Param("maxCost") int maxCost);
+
+    /**
+     * Получить id существующих товаров из указанных
+     */
+    @Query(value = "SELECT id FROM product WHERE id = ANY(:ids)", nativeQuery = true)
+    List<Long> findExistingIds(@Param("ids") Long[] ids);
 }
@@ -0,0 +1,45 @@
+package ru.project.buySellStore.repository;
+
+/**
+ * Проекция строки товара, возвращаемой изменениями через RETURNING.
+ * <p>Состояние строки зависит от запроса: архивирование и восстановление возвращают товар
+ * после изменения, удаление - удаленный товар, а
+ * {@link ProductRepository#updateReturningPreviousById} - товар до изменения</p>
+ */
+public interface ProductRow {
+
+    /**
+     * Получить id
+     */
+    Long getId();
+
+    /**
+     * Получить имя
+     */
+    String getName();
+
+    /**
+     * Получить описание
+     */
+    String getDescription();
+
+    /**
+     * Получить категорию
+     */
+    String getCategory();
+
+    /**
+     * Получить стоимость
+     */
+    Integer getCost();
+
+    /**
+     * Узнать, находится ли товар в архиве, в состоянии, которое возвращает запрос
+     */
+    Boolean getArchived();
+
+    /**
+     * Получить версию в состоянии, которое возвращает запрос
+     */
+    Long getVersion();
+}
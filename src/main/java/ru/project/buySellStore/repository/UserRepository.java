@@ -1,9 +1,15 @@
 package ru.project.buySellStore.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.project.buySellStore.model.Role;
 import ru.project.buySellStore.model.User;
 
+import java.util.Date;
 import java.util.Optional;
 
 /**
@@ -25,4 +31,48 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * Получение {@link User} из БД по его email (если пользователь существует)
      */
     Optional<User> findByEmail(String email);
+
+    /**
+     * Получение роли пользователя по id без загрузки сущности
+     * @param id id пользователя
+     * @return роль или пустой результат, если пользователя не существует
+     */
+    @Query("select u.role from User u where u.id = :id")
+    Optional<Role> findRoleById(@Param("id") Long id);
+
+    /**
+     * Удаление пользователя по id одним запросом без предварительного чтения
+     * @param id id пользователя
+     * @return количество удаленных строк: {@code 0}, если пользователя не существует
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
+
+    /**
+     * Изменение профиля пользователя одним запросом без предварительного чтения
+     * @param id id пользователя
+     * @param expectedVersion версия профиля, которую видел клиент, или {@code null}, если проверка не нужна
+     * @return количество измененных строк: {@code 0}, если пользователя не существует или версия не совпадает
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.login = :login, u.email = :email, u.birthDate = :birthDate, u.city = :city,"
+            + " u.description = :description, u.version = u.version + 1"
+            + " where u.id = :id and (:expectedVersion is null or u.version = :expectedVersion)")
+    int updateProfileById(@Param("id") Long id, @Param("login") String login, @Param("email") String email,
+                          @Param("birthDate") Date birthDate, @Param("city") String city,
+                          @Param("description") String description, @Param("expectedVersion") Long expectedVersion);
+
+    /**
+     * Замена хеша пароля без изменения версии профиля: пароль не входит в профиль
+     * @param id id пользователя
+     * @param password новый хеш пароля
+     * @return количество измененных строк
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePasswordById(@Param("id") Long id, @Param("password") String password);
 }
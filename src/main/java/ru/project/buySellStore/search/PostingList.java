@@ -0,0 +1,132 @@
+package ru.project.buySellStore.search;
+
+import java.util.Arrays;
+
+/**
+ * Список вхождений термина - отсортированный по возрастанию массив id товаров без повторов.
+ * <p>Хранит id в примитивном массиве {@code long[]} с запасом емкости, чтобы не упаковывать
+ * каждое значение в объект. Класс не потокобезопасен: синхронизация выполняется индексом</p>
+ */
+final class PostingList {
+
+    /**
+     * Пустой список. Не должен изменяться
+     */
+    static final PostingList EMPTY = new PostingList(new long[0], 0);
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] ids;
+
+    private int size;
+
+    /**
+     * Создание пустого списка
+     */
+    PostingList() {
+        this(new long[INITIAL_CAPACITY], 0);
+    }
+
+    private PostingList(long[] ids, int size) {
+        this.ids = ids;
+        this.size = size;
+    }
+
+    /**
+     * Получить количество id в списке
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Получить id по позиции в списке
+     */
+    long get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Получить количество байт, занимаемых массивом id
+     */
+    long capacityBytes() {
+        return (long) ids.length * Long.BYTES;
+    }
+
+    /**
+     * Добавить id с сохранением порядка.
+     * <p>Добавление id больше всех имеющихся выполняется за амортизированное O(1)</p>
+     */
+    void add(long id) {
+        int position = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    /**
+     * Удалить id из списка, если он там есть
+     */
+    void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    /**
+     * Пересечение с другим списком слиянием за O(n + m)
+     */
+    PostingList intersect(PostingList other) {
+        long[] result = new long[Math.min(size, other.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            long left = ids[i];
+            long right = other.ids[j];
+            if (left == right) {
+                result[count++] = left;
+                i++;
+                j++;
+            } else if (left < right) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return new PostingList(result, count);
+    }
+
+    /**
+     * Объединение с другим списком слиянием за O(n + m)
+     */
+    PostingList union(PostingList other) {
+        long[] result = new long[size + other.size];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            long next;
+            if (j == other.size || (i < size && ids[i] < other.ids[j])) {
+                next = ids[i++];
+            } else if (i == size || other.ids[j] < ids[i]) {
+                next = other.ids[j++];
+            } else {
+                next = ids[i++];
+                j++;
+            }
+            result[count++] = next;
+        }
+        return new PostingList(result, count);
+    }
+}
@@ -0,0 +1,406 @@
+package ru.project.buySellStore.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.project.buySellStore.dto.SearchIndexStatsDTO;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductSnapshot;
+import ru.project.buySellStore.event.ProductsImportedEvent;
+import ru.project.buySellStore.service.ProductService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * <b>Встроенный инвертированный индекс товаров открытого каталога.</b>
+ * <p>
+ *     Индексирует название, описание и категорию товара. Для каждого термина хранится
+ *     {@link PostingList} - отсортированный массив id товаров, поэтому запросы с префиксами
+ *     и операторами AND/OR выполняются в памяти без обращения к базе данных.
+ * </p>
+ * <p>
+ *     Индекс строится один раз при запуске приложения и затем обновляется по событиям
+ *     {@link ProductChangedEvent} после фиксации транзакций. Включается свойством
+ *     {@code buy-sell-store.search.index.enabled}
+ * </p>
+ * <p>
+ *     Построение и индексирование загруженных товаров читают каталог, пока приложение уже
+ *     обрабатывает запросы. Прочитанная строка может быть старше события, поэтому такие проходы
+ *     только добавляют отсутствующие товары и пропускают товары, удаленные из индекса во время прохода
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "buy-sell-store.search.index.enabled", havingValue = "true")
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final String PREFIX_MARKER = "*";
+
+    /**
+     * Оценка накладных расходов на один термин: строка, узел дерева и объект списка вхождений
+     */
+    private static final long TERM_OVERHEAD_BYTES = 40 + 40 + 32;
+
+    /**
+     * Оценка накладных расходов на один товар: узел хеш-таблицы, ключ и объект снимка
+     */
+    private static final long DOCUMENT_OVERHEAD_BYTES = 48 + 16 + 40;
+
+    private final ProductService productService;
+
+    private final TaskScheduler taskScheduler;
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+    private final Map<Long, ProductSnapshot> documents = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Id товаров, удаленных из индекса во время прохода по каталогу. Хранятся, пока идет хотя бы один проход
+     */
+    private final Set<Long> tombstones = new HashSet<>();
+
+    /**
+     * Количество выполняющихся проходов по каталогу
+     */
+    private int activeScans;
+
+    /**
+     * Создание индекса с внедрением нужных зависимостей
+     * @param productService сервис товаров, из которого индекс строится при запуске
+     * @param taskScheduler планировщик, в котором индексируются товары после массовой загрузки
+     */
+    @Autowired
+    public ProductSearchIndex(ProductService productService, TaskScheduler taskScheduler) {
+        this.productService = productService;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Построение индекса по всем товарам открытого каталога при запуске приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        beginScan();
+        try {
+            productService.forEachActive(product -> indexIfAbsent(ProductSnapshot.of(product)));
+        } finally {
+            endScan();
+        }
+        SearchIndexStatsDTO stats = stats();
+        logger.info("Поисковый индекс построен за {} мс: товаров {}, терминов {}, ~{} байт",
+                (System.nanoTime() - start) / 1_000_000, stats.getDocuments(), stats.getTerms(),
+                stats.getEstimatedBytes());
+    }
+
+    /**
+     * Обновление индекса после изменения товара
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getAfter() == null) {
+            remove(event.getProductId());
+        } else {
+            index(event.getAfter());
+        }
+    }
+
+    /**
+     * Планирование индексирования товаров после массовой загрузки.
+     * Индексирование выполняется в планировщике, а не в потоке запроса загрузки
+     */
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        taskScheduler.schedule(() -> indexImported(event.getFirstId()), Instant.now());
+    }
+
+    /**
+     * Индексирование загруженных товаров.
+     * <p>Читаются только товары с id не меньше первого загруженного, а индексируются только те,
+     * которых еще нет в индексе и которые не удалены во время чтения: остальные уже поддерживаются
+     * событиями {@link ProductChangedEvent}. Повторное индексирование всего каталога перестраивало бы
+     * большие списки вхождений</p>
+     */
+    private void indexImported(long firstId) {
+        long start = System.nanoTime();
+        long[] added = {0};
+        beginScan();
+        try {
+            productService.forEachActive(firstId, product -> {
+                if (indexIfAbsent(ProductSnapshot.of(product))) {
+                    added[0]++;
+                }
+            });
+        } finally {
+            endScan();
+        }
+        logger.info("В поисковый индекс добавлены загруженные товары за {} мс: {}",
+                (System.nanoTime() - start) / 1_000_000, added[0]);
+    }
+
+    /**
+     * Добавить товар в индекс или заменить его предыдущую версию
+     */
+    public void index(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            ProductSnapshot previous = documents.put(product.getId(), product);
+            if (previous != null) {
+                removeTerms(previous);
+            }
+            addTerms(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавить товар, прочитанный проходом по каталогу, если его нет в индексе
+     * и он не удален из индекса во время прохода
+     * @return {@code true}, если товар добавлен
+     */
+    private boolean indexIfAbsent(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            if (tombstones.contains(product.getId()) || documents.putIfAbsent(product.getId(), product) != null) {
+                return false;
+            }
+            addTerms(product);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удалить товар из индекса, если он там есть
+     */
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            if (activeScans > 0) {
+                tombstones.add(productId);
+            }
+            ProductSnapshot previous = documents.remove(productId);
+            if (previous != null) {
+                removeTerms(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Найти товары по запросу.
+     * <p>Запрос разбивается на термины так же, как индексируемые тексты.
+     * Термин, оканчивающийся на {@code *}, ищется как префикс</p>
+     * @param query поисковый запрос
+     * @param operator оператор объединения терминов
+     * @param limit максимальное количество товаров в результате
+     * @return найденные товары в порядке возрастания id
+     */
+    public List<ProductSnapshot> search(String query, SearchOperator operator, int limit) {
+        List<String> clauses = parse(query);
+        if (clauses.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<PostingList> matches = new ArrayList<>(clauses.size());
+            for (String clause : clauses) {
+                matches.add(match(clause));
+            }
+            PostingList result = combine(matches, operator);
+            List<ProductSnapshot> found = new ArrayList<>(Math.min(limit, result.size()));
+            for (int i = 0; i < result.size() && found.size() < limit; i++) {
+                found.add(documents.get(result.get(i)));
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Получить статистику индекса с оценкой занимаемой памяти
+     */
+    public SearchIndexStatsDTO stats() {
+        lock.readLock().lock();
+        try {
+            long postingCount = 0;
+            long bytes = 0;
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                postingCount += entry.getValue().size();
+                bytes += TERM_OVERHEAD_BYTES + stringBytes(entry.getKey()) + entry.getValue().capacityBytes();
+            }
+            for (ProductSnapshot document : documents.values()) {
+                bytes += DOCUMENT_OVERHEAD_BYTES + stringBytes(document.getName())
+                        + stringBytes(document.getDescription()) + stringBytes(document.getCategory());
+            }
+            return new SearchIndexStatsDTO(documents.size(), postings.size(), postingCount, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Начало прохода по каталогу: с этого момента удаленные товары запоминаются
+     */
+    private void beginScan() {
+        lock.writeLock().lock();
+        try {
+            activeScans++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Окончание прохода по каталогу. После последнего прохода удаленные товары забываются
+     */
+    private void endScan() {
+        lock.writeLock().lock();
+        try {
+            if (--activeScans == 0) {
+                tombstones.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Найти вхождения одного термина запроса
+     */
+    private PostingList match(String clause) {
+        if (!clause.endsWith(PREFIX_MARKER)) {
+            return postings.getOrDefault(clause, PostingList.EMPTY);
+        }
+        String prefix = clause.substring(0, clause.length() - 1);
+        PostingList result = PostingList.EMPTY;
+        for (PostingList list : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            result = result.union(list);
+        }
+        return result;
+    }
+
+    /**
+     * Объединить вхождения терминов. Пересечение начинается с самого короткого списка
+     */
+    private static PostingList combine(List<PostingList> matches, SearchOperator operator) {
+        if (operator == SearchOperator.AND) {
+            matches.sort(Comparator.comparingInt(PostingList::size));
+        }
+        PostingList result = matches.get(0);
+        for (int i = 1; i < matches.size(); i++) {
+            if (operator == SearchOperator.AND) {
+                if (result.size() == 0) {
+                    break;
+                }
+                result = result.intersect(matches.get(i));
+            } else {
+                result = result.union(matches.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Добавить товар в списки его терминов
+     */
+    private void addTerms(ProductSnapshot product) {
+        for (String term : terms(product)) {
+            postings.computeIfAbsent(term, key -> new PostingList()).add(product.getId());
+        }
+    }
+
+    /**
+     * Удалить вхождения товара из списков его терминов
+     */
+    private void removeTerms(ProductSnapshot product) {
+        for (String term : terms(product)) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(product.getId());
+                if (list.size() == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Получить различные термины индексируемых полей товара
+     */
+    private static Set<String> terms(ProductSnapshot product) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms.addAll(tokenize(product.getName()));
+        terms.addAll(tokenize(product.getDescription()));
+        terms.addAll(tokenize(product.getCategory()));
+        return terms;
+    }
+
+    /**
+     * Разбить запрос на термины, сохранив признак префикса у последнего термина каждого слова
+     */
+    private static List<String> parse(String query) {
+        List<String> clauses = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            boolean prefix = word.endsWith(PREFIX_MARKER);
+            List<String> terms = tokenize(prefix ? word.substring(0, word.length() - 1) : word);
+            for (int i = 0; i < terms.size(); i++) {
+                boolean last = i == terms.size() - 1;
+                clauses.add(prefix && last ? terms.get(i) + PREFIX_MARKER : terms.get(i));
+            }
+        }
+        return clauses;
+    }
+
+    /**
+     * Разбить текст на термины в нижнем регистре
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Оценка размера строки в памяти
+     */
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.project.buySellStore.search;
+
+/**
+ * Оператор объединения терминов поискового запроса
+ */
+public enum SearchOperator {
+
+    /**
+     * Товар должен содержать все термины запроса
+     */
+    AND,
+
+    /**
+     * Товар должен содержать хотя бы один термин запроса
+     */
+    OR
+}
@@ -0,0 +1,43 @@
+package ru.project.buySellStore.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * <b>Хеширование и проверка паролей в {@link PasswordHashingExecutor}.</b>
+ * <p>
+ *     Используется и при регистрации, и при проверке пароля в Spring Security,
+ *     поэтому вся работа BCrypt выполняется в отдельном пуле, а не в потоках запросов.
+ *     Проверка необходимости перехеширования не вычисляет хеш и выполняется сразу
+ * </p>
+ */
+public class ExecutorPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final PasswordHashingExecutor executor;
+
+    /**
+     * Создание кодировщика
+     * @param delegate кодировщик, который вычисляет хеши
+     * @param executor пул хеширования
+     */
+    public ExecutorPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.project.buySellStore.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import ru.project.buySellStore.exception.securityEx.PasswordHashingRejectedException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <b>Отдельный пул для хеширования паролей.</b>
+ * <p>
+ *     BCrypt нагружает процессор на десятки миллисекунд, поэтому одновременно хешируется не больше
+ *     паролей, чем потоков в пуле, а остальные ждут в ограниченной очереди. Если очередь заполнена,
+ *     запрос сразу отклоняется с {@link PasswordHashingRejectedException}, и всплеск входов
+ *     не занимает процессор, нужный остальным запросам.
+ * </p>
+ * <p>
+ *     Метрики пула, в том числе длина очереди, публикуются как {@code executor.*}
+ *     с тегом {@code name="}{@value #NAME}{@code "}, отклоненные задачи - в {@value #REJECTED_METRIC}
+ * </p>
+ */
+public class PasswordHashingExecutor implements MeterBinder, AutoCloseable {
+
+    /**
+     * Название пула в метриках
+     */
+    public static final String NAME = "password.hashing";
+
+    /**
+     * Количество задач, отклоненных из-за заполненной очереди
+     */
+    public static final String REJECTED_METRIC = "password.hashing.rejected";
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Создание пула
+     * @param threads количество потоков, {@code 0} - по количеству процессоров
+     * @param queueCapacity наибольшее количество задач, ожидающих свободного потока
+     */
+    public PasswordHashingExecutor(int threads, int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger number = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + number.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, NAME, Tags.empty()).bindTo(registry);
+        FunctionCounter.builder(REJECTED_METRIC, rejected, AtomicLong::get)
+                .register(registry);
+    }
+
+    /**
+     * Выполнить задачу в пуле и дождаться результата
+     * @throws PasswordHashingRejectedException если очередь заполнена
+     */
+    public <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new PasswordHashingRejectedException();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Остановка пула
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,110 @@
+package ru.project.buySellStore.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.project.buySellStore.dto.ErrorDTO;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <b>Фильтр ограничения количества запросов.</b>
+ * <p>
+ *     Каждый запрос учитывается по IP-адресу клиента, а запрос аутентифицированного пользователя -
+ *     еще и по его id, который не меняется при изменении email в профиле. Запрос отклоняется,
+ *     если исчерпано любое из ограничений, поэтому несколько аккаунтов с одного адреса не получают
+ *     больше запросов, чем сам адрес. Фильтр должен стоять в цепочке безопасности после
+ *     восстановления контекста из сессии. За прокси IP-адрес клиента берется из
+ *     {@code X-Forwarded-For} только при настроенном {@code server.forward-headers-strategy}
+ * </p>
+ * <p>
+ *     В ответ добавляются заголовки {@value #LIMIT_HEADER}, {@value #REMAINING_HEADER}
+ *     и {@value #RESET_HEADER}. Превышение ограничения отклоняется с кодом 429
+ *     и заголовком {@code Retry-After}
+ * </p>
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String LIMIT_HEADER = "RateLimit-Limit";
+
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+
+    public static final String RESET_HEADER = "RateLimit-Reset";
+
+    private static final String MESSAGE = "Слишком много запросов, повторите попытку позже";
+
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    private final RateLimiter rateLimiter;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Создание фильтра
+     * @param rateLimiter ограничитель запросов
+     * @param objectMapper преобразование ошибки в JSON
+     */
+    public RateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String ip = "ip:" + request.getRemoteAddr();
+        String user = user();
+        RateLimiter.Decision decision = user == null
+                ? rateLimiter.acquire(request, ip)
+                : rateLimiter.acquire(request, ip, user);
+        if (decision == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setHeader(LIMIT_HEADER, String.valueOf(decision.getLimit()));
+        response.setHeader(REMAINING_HEADER, String.valueOf(decision.getRemaining()));
+        response.setHeader(RESET_HEADER, String.valueOf(seconds(decision.getResetNanos())));
+        if (decision.isAllowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds(decision.getRetryAfterNanos()))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDTO(MESSAGE));
+    }
+
+    /**
+     * Получить ключ аутентифицированного пользователя или {@code null}, если пользователь не аутентифицирован
+     */
+    private String user() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!trustResolver.isAuthenticated(authentication)) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return "user:" + principal.getId();
+        }
+        return "user:" + authentication.getName();
+    }
+
+    /**
+     * Перевести наносекунды в секунды с округлением вверх
+     */
+    private static long seconds(long nanos) {
+        return (Math.max(0, nanos) + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.project.buySellStore.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.time.Duration;
+
+/**
+ * <b>Ограничение количества запросов для группы маршрутов.</b>
+ * <p>
+ *     Каждый пользователь или IP-адрес может выполнить {@code limit} запросов подряд,
+ *     после чего запросы восстанавливаются равномерно: полностью - за {@code period}
+ * </p>
+ */
+public class RateLimitRule {
+
+    private final String group;
+
+    private final RequestMatcher matcher;
+
+    private final int limit;
+
+    private final long intervalNanos;
+
+    private final long capacityNanos;
+
+    /**
+     * Создание ограничения
+     * @param group название группы маршрутов в метриках и ключах
+     * @param matcher запросы, которые относятся к группе
+     * @param limit количество запросов за период
+     * @param period время, за которое восстанавливаются все запросы
+     */
+    public RateLimitRule(String group, RequestMatcher matcher, int limit, Duration period) {
+        if (limit <= 0 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Некорректное ограничение запросов для группы " + group);
+        }
+        this.group = group;
+        this.matcher = matcher;
+        this.limit = limit;
+        this.intervalNanos = Math.max(1, period.toNanos() / limit);
+        this.capacityNanos = intervalNanos * limit;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Относится ли запрос к группе
+     */
+    boolean matches(HttpServletRequest request) {
+        return matcher.matches(request);
+    }
+
+    /**
+     * Время восстановления одного запроса в наносекундах
+     */
+    long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Время восстановления всех запросов в наносекундах
+     */
+    long getCapacityNanos() {
+        return capacityNanos;
+    }
+}
@@ -0,0 +1,230 @@
+package ru.project.buySellStore.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <b>Ограничение количества запросов по группам маршрутов.</b>
+ * <p>
+ *     Для каждой пары группы и пользователя (или IP-адреса) хранится одно число - момент,
+ *     когда набранные запросы полностью восстановятся (алгоритм GCRA, эквивалентный
+ *     ведру токенов). Запрос принимается, если после его учета этот момент отстоит
+ *     от текущего не больше чем на период группы. Состояние меняется одной операцией
+ *     compare-and-set без блокировок, а чтение из {@link ConcurrentHashMap} не блокирует
+ *     потоки, поэтому проверка не становится общей точкой синхронизации.
+ * </p>
+ * <p>
+ *     Ведро, запросы которого полностью восстановились, не отличается от отсутствующего,
+ *     поэтому такие ведра периодически удаляются. Количество отклоненных запросов публикуется
+ *     в {@value #REJECTED_METRIC} с тегом группы, количество ведер - в {@value #BUCKETS_METRIC}
+ * </p>
+ */
+public class RateLimiter implements MeterBinder {
+
+    /**
+     * Количество запросов, отклоненных из-за превышения ограничения
+     */
+    public static final String REJECTED_METRIC = "rate.limit.rejected";
+
+    /**
+     * Количество хранимых ведер
+     */
+    public static final String BUCKETS_METRIC = "rate.limit.buckets";
+
+    private final List<RateLimitRule> rules;
+
+    private final Map<RateLimitRule, LongAdder> rejected = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Создание ограничителя
+     * @param rules ограничения групп маршрутов; к запросу применяется первое подходящее
+     */
+    public RateLimiter(List<RateLimitRule> rules) {
+        this.rules = List.copyOf(rules);
+        this.rules.forEach(rule -> rejected.put(rule, new LongAdder()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        rejected.forEach((rule, count) -> FunctionCounter.builder(REJECTED_METRIC, count, LongAdder::sum)
+                .description("Запросы, отклоненные из-за превышения ограничения")
+                .tag("group", rule.getGroup())
+                .register(registry));
+        Gauge.builder(BUCKETS_METRIC, buckets, Map::size)
+                .description("Пользователи и IP-адреса с неполностью восстановленными запросами")
+                .register(registry);
+    }
+
+    /**
+     * Учесть запрос в ведрах всех указанных субъектов
+     * @param request HTTP-запрос, по которому выбирается группа маршрутов
+     * @param subjects IP-адрес и, если он известен, пользователь, выполняющие запрос
+     * @return решение по запросу или {@code null}, если на маршрут нет ограничений
+     */
+    public Decision acquire(HttpServletRequest request, String... subjects) {
+        for (RateLimitRule rule : rules) {
+            if (rule.matches(request)) {
+                return acquire(rule, List.of(subjects), System.nanoTime());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Учесть запрос группы в ведрах всех субъектов в указанный момент.
+     * Запрос принимается, только если его принимает каждое ведро. Если одно из ведер его отклоняет,
+     * в уже учтенные ведра запрос возвращается, так как он не выполняется
+     */
+    Decision acquire(RateLimitRule rule, List<String> subjects, long now) {
+        Decision result = null;
+        for (int i = 0; i < subjects.size(); i++) {
+            Decision decision = acquire(rule, subjects.get(i), now);
+            if (!decision.isAllowed()) {
+                for (int j = 0; j < i; j++) {
+                    release(rule, subjects.get(j));
+                }
+                return decision;
+            }
+            result = result == null ? decision : result.and(decision);
+        }
+        return result;
+    }
+
+    /**
+     * Учесть запрос группы в указанный момент
+     */
+    Decision acquire(RateLimitRule rule, String subject, long now) {
+        String key = key(rule, subject);
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long restored = bucket.get();
+            long next = (restored - now > 0 ? restored : now) + rule.getIntervalNanos();
+            long debt = next - now;
+            if (debt > rule.getCapacityNanos()) {
+                rejected.get(rule).increment();
+                return new Decision(false, rule.getLimit(), 0, restored - now, debt - rule.getCapacityNanos());
+            }
+            if (bucket.compareAndSet(restored, next)) {
+                int remaining = (int) ((rule.getCapacityNanos() - debt) / rule.getIntervalNanos());
+                return new Decision(true, rule.getLimit(), remaining, debt, 0);
+            }
+        }
+    }
+
+    /**
+     * Вернуть в ведро учтенный запрос. Если ведро уже удалено, возвращать некуда: оно было полным
+     */
+    private void release(RateLimitRule rule, String subject) {
+        AtomicLong bucket = buckets.get(key(rule, subject));
+        if (bucket != null) {
+            bucket.addAndGet(-rule.getIntervalNanos());
+        }
+    }
+
+    private static String key(RateLimitRule rule, String subject) {
+        return rule.getGroup() + ':' + subject;
+    }
+
+    /**
+     * Удаление ведер, запросы которых полностью восстановились.
+     * Если ведро удаляется одновременно с учетом запроса, этот запрос не будет учтен,
+     * но ведро перед этим было полным, поэтому ограничение превышается не больше чем на один запрос
+     */
+    @Scheduled(fixedDelayString = "${buy-sell-store.rate-limit.eviction-interval}",
+            initialDelayString = "${buy-sell-store.rate-limit.eviction-interval}")
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    void evictIdle(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    /**
+     * <b>Решение по запросу.</b>
+     * Содержит значения для заголовков {@code RateLimit-*} и {@code Retry-After}
+     */
+    public static final class Decision {
+
+        private final boolean allowed;
+
+        private final int limit;
+
+        private final int remaining;
+
+        private final long resetNanos;
+
+        private final long retryAfterNanos;
+
+        Decision(boolean allowed, int limit, int remaining, long resetNanos, long retryAfterNanos) {
+            this.allowed = allowed;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetNanos = resetNanos;
+            this.retryAfterNanos = retryAfterNanos;
+        }
+
+        /**
+         * Объединить с решением другого ведра той же группы: остаток - наименьший,
+         * время восстановления - наибольшее
+         */
+        Decision and(Decision other) {
+            return new Decision(allowed && other.allowed, limit, Math.min(remaining, other.remaining),
+                    Math.max(resetNanos, other.resetNanos), Math.max(retryAfterNanos, other.retryAfterNanos));
+        }
+
+        /**
+         * Принят ли запрос
+         */
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        /**
+         * Количество запросов за период группы
+         */
+        public int getLimit() {
+            return limit;
+        }
+
+        /**
+         * Количество запросов, которые можно выполнить сразу
+         */
+        public int getRemaining() {
+            return remaining;
+        }
+
+        /**
+         * Время до полного восстановления запросов в наносекундах
+         */
+        public long getResetNanos() {
+            return resetNanos;
+        }
+
+        /**
+         * Время до восстановления одного запроса в наносекундах, если запрос отклонен
+         */
+        public long getRetryAfterNanos() {
+            return retryAfterNanos;
+        }
+    }
+}
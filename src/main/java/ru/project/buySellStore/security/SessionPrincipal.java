@@ -0,0 +1,92 @@
+package ru.project.buySellStore.security;
+
+import ru.project.buySellStore.model.Role;
+import ru.project.buySellStore.model.User;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * <b>Аутентифицированный пользователь, сохраняемый в сессии.</b>
+ * <p>
+ *     Содержит только то, что нужно для обработки запросов: id, email, логин и роль.
+ *     Хеш пароля и профиль в сессию не попадают, а полный {@link User} загружается
+ *     по id, когда он действительно нужен
+ * </p>
+ */
+public final class SessionPrincipal implements UserPrincipal, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long id;
+
+    private final String email;
+
+    private final String login;
+
+    private final Role role;
+
+    /**
+     * Создание по пользователю, прошедшему аутентификацию
+     */
+    public SessionPrincipal(User user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.login = user.getLogin();
+        this.role = user.getRole();
+    }
+
+    private SessionPrincipal(long id, String email, String login, Role role) {
+        this.id = id;
+        this.email = email;
+        this.login = login;
+        this.role = role;
+    }
+
+    /**
+     * Получить копию с измененным профилем, чтобы сессия не хранила прежние email и логин
+     * @param email новый адрес электронной почты
+     * @param login новый логин
+     */
+    public SessionPrincipal withProfile(String email, String login) {
+        return new SessionPrincipal(id, email, login, role);
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Получить адрес электронной почты, по которому выполнен вход или на который он изменен в профиле
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Получить логин пользователя на момент входа или последнего изменения профиля
+     */
+    public String getLogin() {
+        return login;
+    }
+
+    @Override
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Имя для Spring Security - адрес электронной почты, как в {@link UserDetailsImpl#getUsername()}
+     */
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionPrincipal{id=" + id + ", email='" + email + "', role=" + role + '}';
+    }
+}
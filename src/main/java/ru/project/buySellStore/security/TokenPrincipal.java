@@ -0,0 +1,82 @@
+package ru.project.buySellStore.security;
+
+import ru.project.buySellStore.model.Role;
+
+import java.time.Instant;
+
+/**
+ * <b>Аутентифицированный пользователь из подписанного токена.</b>
+ * <p>Создается {@link TokenService} при проверке токена, без обращения к БД и сессии</p>
+ */
+public final class TokenPrincipal implements UserPrincipal {
+
+    private final long id;
+
+    private final Role role;
+
+    private final String tokenId;
+
+    private final Instant authenticatedAt;
+
+    private final Instant expiresAt;
+
+    /**
+     * Создание пользователя из содержимого токена
+     * @param id id пользователя
+     * @param role роль пользователя
+     * @param tokenId уникальный идентификатор токена, по которому он отзывается
+     * @param authenticatedAt время входа по паролю; сохраняется при обновлении токена
+     * @param expiresAt время, после которого токен недействителен
+     */
+    public TokenPrincipal(long id, Role role, String tokenId, Instant authenticatedAt, Instant expiresAt) {
+        this.id = id;
+        this.role = role;
+        this.tokenId = tokenId;
+        this.authenticatedAt = authenticatedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Получить уникальный идентификатор токена
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * Получить время входа по паролю
+     */
+    public Instant getAuthenticatedAt() {
+        return authenticatedAt;
+    }
+
+    /**
+     * Получить время, после которого токен недействителен
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Имя для Spring Security - id пользователя: email в токен не входит
+     */
+    @Override
+    public String getName() {
+        return String.valueOf(id);
+    }
+
+    @Override
+    public String toString() {
+        return "TokenPrincipal{id=" + id + ", role=" + role + ", expiresAt=" + expiresAt + '}';
+    }
+}
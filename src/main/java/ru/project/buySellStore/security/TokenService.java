@@ -0,0 +1,242 @@
+package ru.project.buySellStore.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.project.buySellStore.exception.securityEx.InvalidTokenException;
+import ru.project.buySellStore.exception.securityEx.RoleNotAssignedException;
+import ru.project.buySellStore.model.Role;
+import ru.project.buySellStore.repository.UserRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <b>Выпуск и проверка подписанных токенов доступа.</b>
+ * <p>
+ *     Токен - это {@code содержимое.подпись} в Base64url, где содержимое - id и роль пользователя,
+ *     время входа по паролю, время истечения и случайный идентификатор токена, а подпись - HMAC-SHA256
+ *     с общим для всех узлов ключом. Проверка не обращается ни к БД, ни к сессии, поэтому запросы
+ *     пользователя может обслуживать любой узел.
+ * </p>
+ * <p>
+ *     Токен действует недолго. Его можно обменять на новый в течение {@code refreshWindow} после
+ *     истечения, но не позже {@code maxLifetime} после входа по паролю. Обмененные и отозванные
+ *     при выходе токены хранятся в списке отзыва в памяти узла, пока их еще можно было бы использовать.
+ *     Список не передается другим узлам: на них отозванный токен действует до истечения
+ * </p>
+ * <p>
+ *     Обмен - единственная операция, обращающаяся к БД: роль пользователя читается заново,
+ *     и токен удаленного пользователя или пользователя со сменившейся ролью не обменивается
+ * </p>
+ */
+public class TokenService implements MeterBinder {
+
+    /**
+     * Количество отозванных токенов, которые еще не истекли
+     */
+    public static final String REVOKED_METRIC = "auth.tokens.revoked";
+
+    /**
+     * Наименьшая длина ключа подписи в байтах
+     */
+    static final int MIN_SECRET_LENGTH = 32;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final String INVALID_MESSAGE = "Недействительный токен";
+
+    private static final int TOKEN_ID_BYTES = 12;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Mac mac;
+
+    private final Duration timeToLive;
+
+    private final Duration refreshWindow;
+
+    private final Duration maxLifetime;
+
+    private final Clock clock;
+
+    private final UserRepository userRepository;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Отозванные токены и время, после которого их уже нельзя использовать или обменять
+     */
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * Создание сервиса
+     * @param secret ключ подписи, не короче {@value #MIN_SECRET_LENGTH} байт
+     * @param timeToLive время действия токена
+     * @param refreshWindow время после истечения, в течение которого токен можно обменять на новый
+     * @param maxLifetime время после входа по паролю, после которого токен нельзя обменять
+     * @param clock часы
+     * @param userRepository репозиторий для проверки пользователя при обмене токена
+     */
+    public TokenService(byte[] secret, Duration timeToLive, Duration refreshWindow, Duration maxLifetime, Clock clock,
+                        UserRepository userRepository) {
+        if (secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Ключ подписи токенов должен быть не короче " + MIN_SECRET_LENGTH + " байт");
+        }
+        try {
+            this.mac = Mac.getInstance(ALGORITHM);
+            this.mac.init(new SecretKeySpec(secret, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        this.timeToLive = timeToLive;
+        this.refreshWindow = refreshWindow;
+        this.maxLifetime = maxLifetime;
+        this.clock = clock;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(REVOKED_METRIC, revoked, Map::size)
+                .description("Отозванные токены, которые еще не истекли")
+                .register(registry);
+    }
+
+    /**
+     * Выпустить токен после входа по паролю
+     * @throws RoleNotAssignedException если пользователю не назначена роль: ее нельзя записать в токен
+     */
+    public String issue(UserPrincipal principal) throws RoleNotAssignedException {
+        if (principal.getRole() == null) {
+            throw new RoleNotAssignedException(principal.getId());
+        }
+        return issue(principal.getId(), principal.getRole(), clock.instant());
+    }
+
+    /**
+     * Проверить токен
+     * @return пользователь из токена
+     * @throws InvalidTokenException если токен поврежден, подписан другим ключом, истек или отозван
+     */
+    public TokenPrincipal verify(String token) throws InvalidTokenException {
+        TokenPrincipal principal = parse(token);
+        if (!clock.instant().isBefore(principal.getExpiresAt()) || revoked.containsKey(principal.getTokenId())) {
+            throw new InvalidTokenException(INVALID_MESSAGE);
+        }
+        return principal;
+    }
+
+    /**
+     * Обменять токен на новый с текущей ролью пользователя из БД.
+     * Прежний токен отзывается, поэтому обменять его можно только один раз
+     * @throws InvalidTokenException если токен недействителен, отозван, его уже нельзя обменять,
+     *                               пользователь удален или его роль изменилась
+     */
+    public String refresh(String token) throws InvalidTokenException {
+        TokenPrincipal principal = parse(token);
+        Instant now = clock.instant();
+        Instant refreshDeadline = refreshDeadline(principal);
+        if (!now.isBefore(refreshDeadline) || !now.isBefore(principal.getAuthenticatedAt().plus(maxLifetime))
+                || revoked.containsKey(principal.getTokenId())) {
+            throw new InvalidTokenException(INVALID_MESSAGE);
+        }
+        Role role = userRepository.findRoleById(principal.getId()).orElse(null);
+        if (role != principal.getRole()) {
+            // Пользователь удален или его права изменились: нужен повторный вход по паролю
+            revoked.put(principal.getTokenId(), refreshDeadline);
+            throw new InvalidTokenException(INVALID_MESSAGE);
+        }
+        if (revoked.putIfAbsent(principal.getTokenId(), refreshDeadline) != null) {
+            throw new InvalidTokenException(INVALID_MESSAGE);
+        }
+        return issue(principal.getId(), role, principal.getAuthenticatedAt());
+    }
+
+    /**
+     * Отозвать токен, например при выходе
+     */
+    public void revoke(TokenPrincipal principal) {
+        revoked.put(principal.getTokenId(), refreshDeadline(principal));
+    }
+
+    /**
+     * Получить время действия токена
+     */
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Удаление из списка отзыва токенов, которые уже нельзя использовать или обменять
+     */
+    @Scheduled(fixedDelayString = "${buy-sell-store.auth.token.cleanup-interval}",
+            initialDelayString = "${buy-sell-store.auth.token.cleanup-interval}")
+    public void evictRevoked() {
+        Instant now = clock.instant();
+        revoked.values().removeIf(deadline -> !now.isBefore(deadline));
+    }
+
+    private String issue(long userId, Role role, Instant authenticatedAt) {
+        byte[] tokenId = new byte[TOKEN_ID_BYTES];
+        random.nextBytes(tokenId);
+        String payload = userId + ":" + role + ":" + authenticatedAt.getEpochSecond() + ":"
+                + clock.instant().plus(timeToLive).getEpochSecond() + ":" + ENCODER.encodeToString(tokenId);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.US_ASCII);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Проверить подпись и разобрать содержимое токена без проверки срока действия
+     */
+    private TokenPrincipal parse(String token) throws InvalidTokenException {
+        int separator = token == null ? -1 : token.indexOf('.');
+        if (separator < 0) {
+            throw new InvalidTokenException(INVALID_MESSAGE);
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, separator));
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(payloadBytes))) {
+                throw new InvalidTokenException(INVALID_MESSAGE);
+            }
+            String[] fields = new String(payloadBytes, StandardCharsets.US_ASCII).split(":");
+            if (fields.length != 5) {
+                throw new InvalidTokenException(INVALID_MESSAGE);
+            }
+            return new TokenPrincipal(Long.parseLong(fields[0]), Role.valueOf(fields[1]), fields[4],
+                    Instant.ofEpochSecond(Long.parseLong(fields[2])), Instant.ofEpochSecond(Long.parseLong(fields[3])));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException(INVALID_MESSAGE);
+        }
+    }
+
+    private Instant refreshDeadline(TokenPrincipal principal) {
+        return principal.getExpiresAt().plus(refreshWindow);
+    }
+
+    /**
+     * Подписать содержимое. {@link Mac} не потокобезопасен, поэтому каждый вызов работает с копией
+     */
+    private byte[] sign(byte[] payload) {
+        try {
+            return ((Mac) mac.clone()).doFinal(payload);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.project.buySellStore.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.project.buySellStore.event.UserChangedEvent;
+import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * <b>Кэш пользователей для аутентификации по email.</b>
+ * <p>
+ *     Хранит пользователей ограниченное время, чтобы повторные входы не обращались к базе данных.
+ *     Запись удаляется после фиксации транзакции, изменившей или удалившей пользователя,
+ *     по событию {@link UserChangedEvent}, и после пересчета хеша пароля.
+ *     Отсутствующие пользователи не кэшируются. Событие содержит только id пользователя,
+ *     поэтому кэш хранит соответствие id и email закэшированных пользователей
+ * </p>
+ * <p>
+ *     Кэшированный пользователь не передается наружу: каждый вызов получает свою копию,
+ *     так как сущность изменяемая. Загрузка выполняется вне блокировок кэша. Если пользователь
+ *     изменился во время загрузки, загруженная запись удаляется, чтобы не сохранить устаревшие данные
+ * </p>
+ */
+@Component
+public class UserDetailsCache {
+
+    static final String CACHE_NAME = "users";
+
+    private final UserRepository userRepository;
+
+    private final Cache<String, User> cache;
+
+    /**
+     * Email закэшированных пользователей по id. Запись удаляется вместе с пользователем: при вытеснении -
+     * слушателем вытеснения, при явном удалении - в {@link #remove}, так как Caffeine не вызывает
+     * слушатель вытеснения для явных удалений
+     */
+    private final Map<Long, String> emails = new ConcurrentHashMap<>();
+
+    private final Counter invalidations;
+
+    /**
+     * Номер последнего удаления по событию. Загрузка сравнивает его до и после сохранения записи
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Создание кэша с внедрением нужных зависимостей
+     * @param userRepository репозиторий для загрузки пользователей
+     * @param meterRegistry реестр метрик для публикации попаданий, промахов и вытеснений
+     * @param maximumSize максимальное количество пользователей в кэше
+     * @param timeToLive время хранения пользователя в кэше после загрузки
+     */
+    @Autowired
+    public UserDetailsCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                            @Value("${buy-sell-store.user-cache.maximum-size}") long maximumSize,
+                            @Value("${buy-sell-store.user-cache.time-to-live}") Duration timeToLive) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .<String, User>evictionListener((email, user, cause) -> emails.remove(user.getId(), email))
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("cache.invalidations")
+                .tag("cache", CACHE_NAME)
+                .description("Количество записей, удаленных из кэша после изменения пользователя")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Получить копию пользователя по email из кэша или из базы данных
+     * @return пользователь или {@code null}, если пользователь не найден
+     */
+    public User get(String email) {
+        User cached = cache.getIfPresent(email);
+        if (cached != null) {
+            return copy(cached);
+        }
+        long loadGeneration = generation.get();
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        cache.put(email, copy(user));
+        // После записи в кэш: вытеснение не должно удалить соответствие новой записи
+        emails.put(user.getId(), email);
+        if (generation.get() != loadGeneration) {
+            remove(email, any -> true);
+        }
+        return user;
+    }
+
+    /**
+     * Удаление пользователя из кэша по email
+     */
+    public void invalidate(String email) {
+        remove(email, any -> true);
+        invalidations.increment();
+    }
+
+    /**
+     * Удаление пользователя из кэша после фиксации транзакции, изменившей или удалившей его.
+     * Email мог измениться, поэтому запись ищется по email, под которым пользователь закэширован
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        generation.incrementAndGet();
+        long userId = event.getUserId();
+        String email = emails.remove(userId);
+        if (email != null && remove(email, cached -> cached.getId() == userId)) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Удалить запись по email вместе с соответствием id и email, если закэшированный пользователь подходит.
+     * Выполняется внутри операции над записью кэша, поэтому загрузка того же email сохранит
+     * свое соответствие только после удаления прежнего
+     * @return удалена ли запись
+     */
+    private boolean remove(String email, Predicate<User> condition) {
+        boolean[] removed = {false};
+        cache.asMap().computeIfPresent(email, (key, cached) -> {
+            if (!condition.test(cached)) {
+                return cached;
+            }
+            emails.remove(cached.getId(), key);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private static User copy(User user) {
+        User copy = new User(user.getId(), user.getLogin(), user.getEmail(), user.getPassword(),
+                user.getBirthDate() == null ? null : new Date(user.getBirthDate().getTime()),
+                user.getCity(), user.getDescription(), user.getRole());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+}
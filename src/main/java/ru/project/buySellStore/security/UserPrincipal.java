@@ -0,0 +1,22 @@
+package ru.project.buySellStore.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import ru.project.buySellStore.model.Role;
+
+/**
+ * <b>Аутентифицированный пользователь без обращения к БД.</b>
+ * <p>Реализуется пользователем из сессии {@link SessionPrincipal} и пользователем
+ * из подписанного токена {@link TokenPrincipal}</p>
+ */
+public interface UserPrincipal extends AuthenticatedPrincipal {
+
+    /**
+     * Получить id пользователя
+     */
+    long getId();
+
+    /**
+     * Получить роль пользователя
+     */
+    Role getRole();
+}
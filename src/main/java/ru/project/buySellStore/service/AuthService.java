@@ -5,7 +5,9 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import ru.project.buySellStore.dto.LoginDTO;
 import ru.project.buySellStore.dto.RegisterDTO;
 import ru.project.buySellStore.exception.userEx.UserAlreadyExistsException;
+import ru.project.buySellStore.exception.userEx.UserNotFoundException;
 import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.security.SessionPrincipal;
 
 /**
  * Интерфейс для сервиса, предоставляющего методы для работы с аутентификацией
@@ -14,7 +16,13 @@ import ru.project.buySellStore.model.User;
 public interface AuthService {
 
     /**
-     * Вход пользователя в аккаунт
+     * Проверка email и пароля без сохранения пользователя в сессии
+     * @return аутентифицированный пользователь
+     */
+    SessionPrincipal authenticate(UsernamePasswordAuthenticationToken authenticationInputToken);
+
+    /**
+     * Вход пользователя в аккаунт с сохранением пользователя в сессии
      */
     void login(UsernamePasswordAuthenticationToken authenticationInputToken, HttpSession session);
 
@@ -24,8 +32,25 @@ public interface AuthService {
     void logout(HttpSession session);
 
     /**
-     * Получение авторизованного пользователя
+     * Обновление email и логина авторизованного пользователя в сессии после изменения его профиля.
+     * Если изменен профиль другого пользователя или сессии нет, ничего не делает
+     * @param userId id пользователя, профиль которого изменен
+     * @param email новый адрес электронной почты
+     * @param login новый логин
+     * @param session сессия запроса или {@code null}, если она не создана
+     */
+    void updatePrincipal(long userId, String email, String login, HttpSession session);
+
+    /**
+     * Получение авторизованного пользователя из сессии без обращения к БД
+     * @return id, email, логин и роль авторизованного пользователя
+     */
+    SessionPrincipal getAuthenticatedPrincipal();
+
+    /**
+     * Получение авторизованного пользователя из БД
      * @return авторизованный пользователь
+     * @throws UserNotFoundException если пользователь удален после входа
      */
-    User getAuthenticatedUser();
+    User getAuthenticatedUser() throws UserNotFoundException;
 }
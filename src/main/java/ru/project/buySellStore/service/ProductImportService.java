@@ -0,0 +1,23 @@
+package ru.project.buySellStore.service;
+
+import ru.project.buySellStore.dto.ProductImportResultDTO;
+import ru.project.buySellStore.exception.productEx.InvalidProductCsvException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Сервисный интерфейс для массовой загрузки товаров
+ */
+public interface ProductImportService {
+
+    /**
+     * Загрузить товары из CSV-файла с заголовком {@code name,description,category,cost}.
+     * Строки, не прошедшие проверку, пропускаются и попадают в отчет,
+     * остальные загружаются вместе: либо все, либо ни одной
+     * @param csv содержимое файла в UTF-8, читается потоком
+     * @throws InvalidProductCsvException если файл невозможно разобрать
+     * @throws IOException если не удалось прочитать файл
+     */
+    ProductImportResultDTO importCsv(InputStream csv) throws InvalidProductCsvException, IOException;
+}
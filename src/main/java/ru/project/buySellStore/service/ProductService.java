@@ -1,13 +1,21 @@
 package ru.project.buySellStore.service;
 
+import ru.project.buySellStore.dto.ProductBulkRequestDTO;
+import ru.project.buySellStore.dto.ProductBulkResultDTO;
+import ru.project.buySellStore.dto.ProductCursor;
 import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.dto.ProductFilter;
+import ru.project.buySellStore.dto.ProductSort;
 import ru.project.buySellStore.dto.ProductUpdateDTO;
+import ru.project.buySellStore.event.ProductSnapshot;
 import ru.project.buySellStore.exception.productEx.ProductArchiveException;
 import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
 import ru.project.buySellStore.exception.productEx.ProductRestoreException;
+import ru.project.buySellStore.exception.productEx.ProductVersionMismatchException;
 import ru.project.buySellStore.model.Product;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Сервисный интерфейс для работы с сущностью Товара
@@ -15,14 +23,60 @@ import java.util.List;
 public interface ProductService {
 
     /**
-     * Сохранить товар
+     * Сохранить новый товар
+     * @param product новый товар без id
+     * @throws IllegalArgumentException если товару уже присвоен id: существующие товары
+     *                                  изменяются через {@link #update}
      */
     Product save(Product product);
 
     /**
-     * Получить все товары
+     * Сохранить новые товары пакетными вставками
+     * @param products новые товары
+     * @return сохраненные товары с присвоенными id
      */
-    List<Product> findAll();
+    List<Product> saveAll(List<Product> products);
+
+    /**
+     * Изменить название, описание и стоимость товара по id
+     * @param expectedVersion версия товара, которую видел клиент, или {@code null}, если проверка не нужна
+     * @return состояние товара после изменения
+     * @throws ProductNotFoundException если товара с указанным id не существует
+     * @throws ProductVersionMismatchException если версия товара не совпадает с ожидаемой
+     */
+    ProductSnapshot update(Long id, ProductUpdateDTO productUpdateDTO, Long expectedVersion)
+            throws ProductNotFoundException, ProductVersionMismatchException;
+
+    /**
+     * Получить страницу товаров, не считая архивных
+     * @param filter фильтр по категории и стоимости
+     * @param sort порядок сортировки
+     * @param after курсор последнего товара предыдущей страницы или {@code null} для первой страницы
+     * @param limit максимальное количество товаров на странице
+     */
+    List<Product> findAll(ProductFilter filter, ProductSort sort, ProductCursor after, int limit);
+
+    /**
+     * Найти товары, не считая архивных, по названию и описанию.
+     * Результаты упорядочены по убыванию релевантности
+     * @param query поисковый запрос
+     * @param page номер страницы, начиная с нуля
+     * @param size размер страницы
+     */
+    List<Product> search(String query, int page, int size);
+
+    /**
+     * Последовательно обработать все товары, не считая архивных, не загружая их в память целиком
+     * @param action действие, выполняемое над каждым товаром
+     */
+    void forEachActive(Consumer<Product> action);
+
+    /**
+     * Последовательно обработать товары, не считая архивных, с id не меньше указанного
+     * @param fromId наименьший id
+     * @param action действие, выполняемое над каждым товаром
+     */
+    void forEachActive(long fromId, Consumer<Product> action);
 
     /**
      * Получить товар по id
@@ -47,4 +101,25 @@ public interface ProductService {
      * @throws ProductRestoreException при попытке удалить из архива товар, которого там нет
      */
     void restore(Long id) throws ProductNotFoundException, ProductRestoreException;
+
+    /**
+     * Отправить в архив несколько товаров одним запросом к базе данных
+     * @param request id товаров или фильтр
+     * @return количество отправленных в архив товаров, id уже архивных и несуществующих товаров
+     */
+    ProductBulkResultDTO archiveAll(ProductBulkRequestDTO request);
+
+    /**
+     * Восстановить из архива несколько товаров одним запросом к базе данных
+     * @param request id товаров или фильтр
+     * @return количество восстановленных товаров, id не архивных и несуществующих товаров
+     */
+    ProductBulkResultDTO restoreAll(ProductBulkRequestDTO request);
+
+    /**
+     * Удалить несколько товаров одним запросом к базе данных
+     * @param request id товаров или фильтр
+     * @return количество удаленных товаров и id несуществующих товаров
+     */
+    ProductBulkResultDTO deleteAll(ProductBulkRequestDTO request);
 }
@@ -1,6 +1,8 @@
 package ru.project.buySellStore.service;
 
+import ru.project.buySellStore.dto.UserDTO;
 import ru.project.buySellStore.exception.userEx.UserNotFoundException;
+import ru.project.buySellStore.exception.userEx.UserVersionMismatchException;
 import ru.project.buySellStore.model.User;
 
 /**
@@ -14,6 +16,15 @@ public interface UserService {
      */
     User save(User user);
 
+    /**
+     * Изменение профиля {@link User} по id: логина, адреса электронной почты, даты рождения, города и описания
+     * @param expectedVersion версия профиля, которую видел клиент, или {@code null}, если проверка не нужна
+     * @throws UserNotFoundException если пользователь с указанным id не существует
+     * @throws UserVersionMismatchException если версия профиля не совпадает с ожидаемой
+     */
+    void update(Long userId, UserDTO userDTO, Long expectedVersion)
+            throws UserNotFoundException, UserVersionMismatchException;
+
     /**
      * Удаление {@link User} по id
      * @throws UserNotFoundException если пользователь с указанным id не существует
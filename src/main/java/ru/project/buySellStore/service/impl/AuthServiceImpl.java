@@ -7,14 +7,21 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import ru.project.buySellStore.exception.userEx.UserNotFoundException;
 import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.repository.UserRepository;
+import ru.project.buySellStore.security.SessionPrincipal;
 import ru.project.buySellStore.security.UserDetailsImpl;
+import ru.project.buySellStore.security.UserPrincipal;
 import ru.project.buySellStore.service.AuthService;
 
+import java.util.List;
+
 /**
  * Сервис, отвечающий за аутентификацию пользователей.
  * Реализует интерфейс {@link AuthService}.
  * Используется для регистрации, входа и выхода.
+ * В сессии сохраняется компактный {@link SessionPrincipal}, а не сущность пользователя
  * @author SapeginMihail
  */
 @Service
@@ -22,17 +29,27 @@ public class AuthServiceImpl implements AuthService {
 
     private final AuthenticationManager authenticationManager;
 
+    private final UserRepository userRepository;
+
     /**
      * Конструктор для внедрения нужных зависимостей и создания экземпляра класса AuthServiceImpl
      */
     @Autowired
-    public AuthServiceImpl(AuthenticationManager authenticationManager) {
+    public AuthServiceImpl(AuthenticationManager authenticationManager, UserRepository userRepository) {
         this.authenticationManager = authenticationManager;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public SessionPrincipal authenticate(UsernamePasswordAuthenticationToken authenticationInputToken) {
+        Authentication result = authenticationManager.authenticate(authenticationInputToken);
+        return new SessionPrincipal(((UserDetailsImpl) result.getPrincipal()).getUser());
     }
 
     @Override
     public void login(UsernamePasswordAuthenticationToken authenticationInputToken, HttpSession session){
-        Authentication authentication = authenticationManager.authenticate(authenticationInputToken);
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                authenticate(authenticationInputToken), null, List.of());
         SecurityContextHolder.getContext().setAuthentication(authentication);
         session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
     }
@@ -44,9 +61,27 @@ public class AuthServiceImpl implements AuthService {
     }
 
     @Override
-    public User getAuthenticatedUser(){
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        return userDetails.getUser();
+    public void updatePrincipal(long userId, String email, String login, HttpSession session) {
+        Authentication current = SecurityContextHolder.getContext().getAuthentication();
+        if (session == null || current == null
+                || !(current.getPrincipal() instanceof SessionPrincipal principal) || principal.getId() != userId) {
+            return;
+        }
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                principal.withProfile(email, login), null, current.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
+    }
+
+    @Override
+    public SessionPrincipal getAuthenticatedPrincipal() {
+        return (SessionPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    @Override
+    public User getAuthenticatedUser() throws UserNotFoundException {
+        long id = ((UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getId();
+        return userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
     }
 }
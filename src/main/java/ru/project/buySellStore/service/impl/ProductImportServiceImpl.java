@@ -0,0 +1,330 @@
+package ru.project.buySellStore.service.impl;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.apache.commons.csv.CSVException;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Service;
+import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.dto.ProductImportRejectDTO;
+import ru.project.buySellStore.dto.ProductImportResultDTO;
+import ru.project.buySellStore.event.ProductsImportedEvent;
+import ru.project.buySellStore.exception.productEx.InvalidProductCsvException;
+import ru.project.buySellStore.model.BaseEntity;
+import ru.project.buySellStore.service.ProductImportService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * <b>Реализация интерфейса {@link ProductImportService}.</b>
+ * <p>
+ *     Файл читается потоком: каждая запись проверяется по тем же правилам, что и {@link ProductDTO},
+ *     и сразу передается в PostgreSQL через протокол COPY, поэтому в памяти находится только буфер
+ *     отправки. Все строки загружаются в одной транзакции, которая откатывается при ошибке.
+ * </p>
+ * <p>
+ *     Id выделяются блоками из той же последовательности, что и у Hibernate. Пока идет COPY,
+ *     соединение не выполняет других команд, поэтому строки передаются несколькими командами COPY,
+ *     а между ними на том же соединении резервируются следующие блоки id. Загрузка занимает
+ *     одно соединение из пула
+ * </p>
+ */
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    /**
+     * Обязательные столбцы CSV-файла
+     */
+    static final List<String> COLUMNS = List.of("name", "description", "category", "cost");
+
+    /**
+     * Наибольшее количество отклоненных строк в отчете
+     */
+    static final int MAX_REPORTED_REJECTS = 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .build();
+
+    private static final String COPY = "COPY product (id, name, description, category, cost) FROM STDIN WITH (FORMAT csv)";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+
+    private final Validator validator;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Создание сервиса с внедрением нужных зависимостей
+     * @param dataSource источник соединений с PostgreSQL
+     * @param validator валидатор строк файла
+     * @param eventPublisher публикация события о загрузке товаров
+     */
+    @Autowired
+    public ProductImportServiceImpl(DataSource dataSource, Validator validator,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public ProductImportResultDTO importCsv(InputStream csv) throws InvalidProductCsvException, IOException {
+        long start = System.nanoTime();
+        try (CSVParser parser = parse(csv);
+             Connection connection = dataSource.getConnection()) {
+            if (!parser.getHeaderNames().containsAll(COLUMNS)) {
+                throw new InvalidProductCsvException("ожидается заголовок со столбцами " + String.join(",", COLUMNS));
+            }
+            connection.setAutoCommit(false);
+            CopySegments copy = new CopySegments(connection);
+            boolean committed = false;
+            long rejected = 0;
+            List<ProductImportRejectDTO> rejects = new ArrayList<>();
+            try {
+                // Номер строки, на которой закончилась предыдущая запись: записи могут занимать несколько строк
+                long lastLine = parser.getCurrentLineNumber();
+                for (CSVRecord record : parser) {
+                    long line = lastLine + 1;
+                    lastLine = parser.getCurrentLineNumber();
+                    String error = validate(record);
+                    if (error != null) {
+                        if (rejected++ < MAX_REPORTED_REJECTS) {
+                            rejects.add(new ProductImportRejectDTO(line, error));
+                        }
+                        continue;
+                    }
+                    copy.print(record);
+                }
+                long imported = copy.finish();
+                connection.commit();
+                committed = true;
+                logger.info("Загружено товаров из CSV: {}, отклонено строк: {}, за {} мс",
+                        imported, rejected, (System.nanoTime() - start) / 1_000_000);
+                if (imported > 0) {
+                    eventPublisher.publishEvent(new ProductsImportedEvent(imported, copy.firstId()));
+                }
+                return new ProductImportResultDTO(imported, rejected, rejects);
+            } catch (UncheckedIOException e) {
+                if (e.getCause() instanceof CSVException csvException) {
+                    throw new InvalidProductCsvException(csvException.getMessage());
+                }
+                throw e.getCause();
+            } finally {
+                if (!committed) {
+                    copy.cancel();
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Загрузка товаров из CSV", COPY, e);
+        }
+    }
+
+    private static CSVParser parse(InputStream csv) throws InvalidProductCsvException, IOException {
+        try {
+            return CSV_FORMAT.parse(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        } catch (CSVException | IllegalArgumentException e) {
+            throw new InvalidProductCsvException(e.getMessage());
+        }
+    }
+
+    /**
+     * Проверить запись файла по правилам {@link ProductDTO}
+     * @return причина отклонения или {@code null}, если запись корректна
+     */
+    private String validate(CSVRecord record) {
+        if (!record.isConsistent()) {
+            return "Ожидается столбцов: " + record.getParser().getHeaderNames().size()
+                    + ", получено: " + record.size();
+        }
+        String cost = record.get("cost").trim();
+        ProductDTO product = new ProductDTO(record.get("name"), record.get("description"),
+                record.get("category"), null);
+        if (!cost.isEmpty()) {
+            try {
+                product.setCost(Integer.valueOf(cost));
+            } catch (NumberFormatException e) {
+                return "Стоимость должна быть целым числом";
+            }
+        }
+        var violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing((ConstraintViolation<ProductDTO> violation) ->
+                        COLUMNS.indexOf(violation.getPropertyPath().toString())))
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Передача строк в PostgreSQL командами COPY в одной транзакции.
+     * <p>Пока COPY не завершена, соединение не выполняет других команд. Когда выделенные id
+     * заканчиваются, текущая COPY завершается, на том же соединении резервируются следующие блоки id
+     * и начинается новая COPY. Поэтому загрузка занимает одно соединение из пула</p>
+     */
+    private static final class CopySegments {
+
+        private final Connection connection;
+
+        private final IdBlocks ids;
+
+        private PGCopyOutputStream copy;
+
+        private CSVPrinter printer;
+
+        private long imported;
+
+        CopySegments(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.ids = new IdBlocks(connection);
+        }
+
+        /**
+         * Передать проверенную запись файла
+         */
+        void print(CSVRecord record) throws SQLException, IOException {
+            if (!ids.hasNext()) {
+                endCopy();
+                ids.reserve();
+            }
+            if (copy == null) {
+                copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY, COPY_BUFFER_SIZE);
+                printer = new CSVPrinter(new OutputStreamWriter(copy, StandardCharsets.UTF_8),
+                        CSVFormat.POSTGRESQL_CSV);
+            }
+            printer.printRecord(ids.next(), record.get("name"), record.get("description"),
+                    record.get("category"), record.get("cost").trim());
+        }
+
+        /**
+         * Завершить последнюю COPY
+         * @return количество переданных строк
+         */
+        long finish() throws SQLException, IOException {
+            endCopy();
+            return imported;
+        }
+
+        /**
+         * Отменить незавершенную COPY
+         */
+        void cancel() throws SQLException {
+            if (copy != null && copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+
+        /**
+         * Получить первый выделенный id
+         */
+        long firstId() {
+            return ids.first();
+        }
+
+        private void endCopy() throws SQLException, IOException {
+            if (copy == null) {
+                return;
+            }
+            printer.flush();
+            imported += copy.endCopy();
+            copy = null;
+            printer = null;
+        }
+    }
+
+    /**
+     * Выделение id блоками по {@link BaseEntity#ID_ALLOCATION_SIZE}, как это делает Hibernate:
+     * значение последовательности - последний id блока. За одно обращение резервируется
+     * {@link #BLOCKS_PER_QUERY} блоков
+     */
+    private static final class IdBlocks {
+
+        private static final int BLOCKS_PER_QUERY = 100;
+
+        private final PreparedStatement reserve;
+
+        private final Deque<Long> blocks = new ArrayDeque<>();
+
+        private long firstId = -1;
+
+        private long nextId = 1;
+
+        private long maxId = 0;
+
+        IdBlocks(Connection connection) throws SQLException {
+            this.reserve = connection.prepareStatement(
+                    "SELECT nextval('entity_id_seq') FROM generate_series(1, " + BLOCKS_PER_QUERY + ")");
+        }
+
+        /**
+         * Есть ли выделенные id без обращения к последовательности
+         */
+        boolean hasNext() {
+            return nextId <= maxId || !blocks.isEmpty();
+        }
+
+        long next() {
+            if (nextId > maxId) {
+                maxId = blocks.poll();
+                nextId = maxId - BaseEntity.ID_ALLOCATION_SIZE + 1;
+                if (firstId < 0) {
+                    firstId = nextId;
+                }
+            }
+            return nextId++;
+        }
+
+        /**
+         * Получить первый выделенный id. Последовательность возрастает, поэтому он наименьший
+         */
+        long first() {
+            return firstId;
+        }
+
+        /**
+         * Зарезервировать следующие блоки id
+         */
+        void reserve() throws SQLException {
+            try (ResultSet result = reserve.executeQuery()) {
+                while (result.next()) {
+                    blocks.add(result.getLong(1));
+                }
+            }
+        }
+    }
+}
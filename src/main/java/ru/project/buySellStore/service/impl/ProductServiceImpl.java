@@ -1,43 +1,190 @@
 package ru.project.buySellStore.service.impl;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.project.buySellStore.dto.ProductBulkRequestDTO;
+import ru.project.buySellStore.dto.ProductBulkResultDTO;
+import ru.project.buySellStore.dto.ProductCursor;
+import ru.project.buySellStore.dto.ProductFilter;
+import ru.project.buySellStore.dto.ProductSort;
+import ru.project.buySellStore.dto.ProductUpdateDTO;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductSnapshot;
 import ru.project.buySellStore.exception.productEx.ProductArchiveException;
 import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
 import ru.project.buySellStore.exception.productEx.ProductRestoreException;
+import ru.project.buySellStore.exception.productEx.ProductVersionMismatchException;
 import ru.project.buySellStore.model.Product;
 import ru.project.buySellStore.repository.ProductRepository;
+import ru.project.buySellStore.repository.ProductRow;
 import ru.project.buySellStore.service.ProductService;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
- * Сервис для управления сущностью товара
+ * Сервис для управления сущностью товара.
+ * Время выполнения публичных методов измеряется таймером {@code service.calls}
  */
 @Service
+@Timed("service.calls")
 public class ProductServiceImpl implements ProductService {
 
+    /**
+     * Количество товаров, после которого контекст персистентности сбрасывается в базу данных и очищается.
+     * Совпадает с {@code hibernate.jdbc.batch_size}
+     */
+    private static final int PERSIST_BATCH_SIZE = 50;
+
     private final ProductRepository productRepository;
 
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Создание экземпляра с внедрением нужных зависимостей
      * @param productRepository репозиторий для работы с сущностью Товара
+     * @param entityManager менеджер сущностей для отсоединения товаров, прочитанных потоком
+     * @param eventPublisher публикатор событий об изменении товаров
      */
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, EntityManager entityManager,
+                              ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public Product save(Product product) {
-        return productRepository.save(product);
+        // Событие публикуется без состояния до изменения, поэтому существующий товар сохранять нельзя
+        if (product.getId() != 0) {
+            throw new IllegalArgumentException("Сохранить можно только новый товар, id = " + product.getId());
+        }
+        Product saved = productRepository.save(product);
+        publishChanged(saved, null);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<Product> saveAll(List<Product> products) {
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            entityManager.persist(product);
+            publishChanged(product, null);
+            if ((i + 1) % PERSIST_BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public ProductSnapshot update(Long id, ProductUpdateDTO productUpdateDTO, Long expectedVersion)
+            throws ProductNotFoundException, ProductVersionMismatchException {
+        Optional<ProductRow> previous = productRepository.updateReturningPreviousById(id,
+                productUpdateDTO.getName(), productUpdateDTO.getDescription(), productUpdateDTO.getCost(),
+                expectedVersion);
+        if (previous.isEmpty()) {
+            // Строка не изменена: один дополнительный запрос различает отсутствие товара и версию
+            if (productRepository.existsById(id)) {
+                throw new ProductVersionMismatchException(id);
+            }
+            throw new ProductNotFoundException(id);
+        }
+        // Запрос возвращает товар до изменения, а изменение увеличивает версию на единицу
+        ProductRow row = previous.get();
+        ProductSnapshot updated = new ProductSnapshot(id, productUpdateDTO.getName(),
+                productUpdateDTO.getDescription(), row.getCategory(), productUpdateDTO.getCost(),
+                row.getVersion() + 1);
+        boolean archived = row.getArchived();
+        eventPublisher.publishEvent(new ProductChangedEvent(id,
+                archived ? null : snapshot(row), archived ? null : updated));
+        return updated;
     }
 
     @Override
-    public List<Product> findAll() {
-        return productRepository.findAll().stream()
-                .filter(product -> !product.isArchived()).collect(Collectors.toList());
+    public List<Product> findAll(ProductFilter filter, ProductSort sort, ProductCursor after, int limit) {
+        String category = filter.getCategory();
+        int minCost = minCost(filter);
+        int maxCost = maxCost(filter);
+        Limit pageLimit = Limit.of(limit);
+        return switch (sort) {
+            case OLDEST -> {
+                long afterId = after == null ? 0 : after.getId();
+                yield category == null
+                        ? productRepository.findActiveOrderByIdAsc(minCost, maxCost, afterId, pageLimit)
+                        : productRepository.findActiveByCategoryOrderByIdAsc(
+                                category, minCost, maxCost, afterId, pageLimit);
+            }
+            case NEWEST -> {
+                long afterId = after == null ? Long.MAX_VALUE : after.getId();
+                yield category == null
+                        ? productRepository.findActiveOrderByIdDesc(minCost, maxCost, afterId, pageLimit)
+                        : productRepository.findActiveByCategoryOrderByIdDesc(
+                                category, minCost, maxCost, afterId, pageLimit);
+            }
+            case COST_ASC -> {
+                int afterCost = after == null ? Integer.MIN_VALUE : after.getCost();
+                long afterId = after == null ? 0 : after.getId();
+                yield category == null
+                        ? productRepository.findActiveOrderByCostAsc(minCost, maxCost, afterCost, afterId, pageLimit)
+                        : productRepository.findActiveByCategoryOrderByCostAsc(
+                                category, minCost, maxCost, afterCost, afterId, pageLimit);
+            }
+            case COST_DESC -> {
+                int afterCost = after == null ? Integer.MAX_VALUE : after.getCost();
+                long afterId = after == null ? Long.MAX_VALUE : after.getId();
+                yield category == null
+                        ? productRepository.findActiveOrderByCostDesc(minCost, maxCost, afterCost, afterId, pageLimit)
+                        : productRepository.findActiveByCategoryOrderByCostDesc(
+                                category, minCost, maxCost, afterCost, afterId, pageLimit);
+            }
+        };
+    }
+
+    @Override
+    public List<Product> search(String query, int page, int size) {
+        return productRepository.search(query, size, (long) page * size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachActive(Consumer<Product> action) {
+        forEach(productRepository.streamAllActive(), action);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachActive(long fromId, Consumer<Product> action) {
+        forEach(productRepository.streamActiveFromId(fromId), action);
+    }
+
+    /**
+     * Обработать товары из потока, отсоединяя каждый от контекста персистентности,
+     * чтобы прочитанные товары не накапливались в памяти
+     */
+    private void forEach(Stream<Product> stream, Consumer<Product> action) {
+        try (Stream<Product> products = stream) {
+            products.forEach(product -> {
+                action.accept(product);
+                entityManager.detach(product);
+            });
+        }
     }
 
     @Override
@@ -48,35 +195,115 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public void delete(Long id) throws ProductNotFoundException {
-        try{
-            Product product = findById(id);
-            productRepository.delete(product);
-        } catch (ProductNotFoundException e) {
-            throw new ProductNotFoundException(id);
-        }
+        ProductRow row = productRepository.deleteReturningById(id)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+        eventPublisher.publishEvent(new ProductChangedEvent(id, row.getArchived() ? null : snapshot(row), null));
     }
 
     @Override
     public void archive(Long id) throws ProductNotFoundException, ProductArchiveException {
-        Product product = findById(id);
+        Optional<ProductRow> row = productRepository.archiveById(id);
+        if (row.isEmpty()) {
+            // Строка не изменена: один дополнительный запрос различает отсутствие товара и его состояние
+            if (productRepository.existsById(id)) {
+                throw new ProductArchiveException(id);
+            }
+            throw new ProductNotFoundException(id);
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(id, snapshot(row.get()), null));
+    }
 
-        if(product.isArchived()) {
-            throw new ProductArchiveException(id);
+    @Override
+    public void restore(Long id) throws ProductNotFoundException, ProductRestoreException {
+        Optional<ProductRow> row = productRepository.restoreById(id);
+        if (row.isEmpty()) {
+            // Строка не изменена: один дополнительный запрос различает отсутствие товара и его состояние
+            if (productRepository.existsById(id)) {
+                throw new ProductRestoreException(id);
+            }
+            throw new ProductNotFoundException(id);
         }
+        eventPublisher.publishEvent(new ProductChangedEvent(id, null, snapshot(row.get())));
+    }
 
-        product.setArchived(true);
-        productRepository.save(product);
+    @Override
+    @Transactional
+    public ProductBulkResultDTO archiveAll(ProductBulkRequestDTO request) {
+        ProductFilter filter = request.getFilter();
+        List<ProductRow> rows = request.getIds() != null
+                ? productRepository.archiveAllByIds(request.getIds().toArray(Long[]::new))
+                : productRepository.archiveAllByFilter(filter.getCategory(), minCost(filter), maxCost(filter));
+        rows.forEach(row -> eventPublisher.publishEvent(new ProductChangedEvent(row.getId(), snapshot(row), null)));
+        return bulkResult(request, rows);
     }
 
     @Override
-    public void restore(Long id) throws ProductNotFoundException, ProductRestoreException {
-        Product product = findById(id);
+    @Transactional
+    public ProductBulkResultDTO restoreAll(ProductBulkRequestDTO request) {
+        ProductFilter filter = request.getFilter();
+        List<ProductRow> rows = request.getIds() != null
+                ? productRepository.restoreAllByIds(request.getIds().toArray(Long[]::new))
+                : productRepository.restoreAllByFilter(filter.getCategory(), minCost(filter), maxCost(filter));
+        rows.forEach(row -> eventPublisher.publishEvent(new ProductChangedEvent(row.getId(), null, snapshot(row))));
+        return bulkResult(request, rows);
+    }
 
-        if (!product.isArchived()) {
-            throw new ProductRestoreException(id);
+    @Override
+    @Transactional
+    public ProductBulkResultDTO deleteAll(ProductBulkRequestDTO request) {
+        ProductFilter filter = request.getFilter();
+        List<ProductRow> rows = request.getIds() != null
+                ? productRepository.deleteAllByIds(request.getIds().toArray(Long[]::new))
+                : productRepository.deleteAllByFilter(filter.getCategory(), minCost(filter), maxCost(filter));
+        rows.forEach(row -> eventPublisher.publishEvent(new ProductChangedEvent(
+                row.getId(), row.getArchived() ? null : snapshot(row), null)));
+        return bulkResult(request, rows);
+    }
+
+    /**
+     * Сформировать результат массового изменения. Если товары выбирались по id,
+     * неизмененные id разделяются на пропущенные и несуществующие одним дополнительным запросом
+     * @param request выбор товаров
+     * @param rows измененные товары
+     */
+    private ProductBulkResultDTO bulkResult(ProductBulkRequestDTO request, List<ProductRow> rows) {
+        if (request.getIds() == null) {
+            return new ProductBulkResultDTO(rows.size(), List.of(), List.of());
+        }
+        Set<Long> remaining = new LinkedHashSet<>(request.getIds());
+        rows.forEach(row -> remaining.remove(row.getId()));
+        if (remaining.isEmpty()) {
+            return new ProductBulkResultDTO(rows.size(), List.of(), List.of());
         }
+        Set<Long> existing = new HashSet<>(productRepository.findExistingIds(remaining.toArray(Long[]::new)));
+        List<Long> skipped = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : remaining) {
+            (existing.contains(id) ? skipped : missing).add(id);
+        }
+        return new ProductBulkResultDTO(rows.size(), skipped, missing);
+    }
+
+    private static ProductSnapshot snapshot(ProductRow row) {
+        return new ProductSnapshot(row.getId(), row.getName(), row.getDescription(), row.getCategory(),
+                row.getCost(), row.getVersion());
+    }
+
+    private static int minCost(ProductFilter filter) {
+        return filter.getMinCost() == null ? Integer.MIN_VALUE : filter.getMinCost();
+    }
 
-        product.setArchived(false);
-        productRepository.save(product);
+    private static int maxCost(ProductFilter filter) {
+        return filter.getMaxCost() == null ? Integer.MAX_VALUE : filter.getMaxCost();
+    }
+
+    /**
+     * Опубликовать событие об изменении товара с его текущим состоянием
+     * @param product товар после изменения
+     * @param before состояние товара в открытом каталоге до изменения
+     */
+    private void publishChanged(Product product, ProductSnapshot before) {
+        ProductSnapshot after = product.isArchived() ? null : ProductSnapshot.of(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), before, after));
     }
 }
\ No newline at end of file
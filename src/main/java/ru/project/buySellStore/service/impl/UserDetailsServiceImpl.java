@@ -2,36 +2,58 @@ package ru.project.buySellStore.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import ru.project.buySellStore.model.User;
 import ru.project.buySellStore.repository.UserRepository;
+import ru.project.buySellStore.security.UserDetailsCache;
 import ru.project.buySellStore.security.UserDetailsImpl;
 
 /**
- * Реализация интерфейса {@link UserDetailsService}.
+ * Реализация интерфейсов {@link UserDetailsService} и {@link UserDetailsPasswordService}.
  * Используется Spring Security для получения информации о пользователе в виде объекта {@link UserDetails}
+ * и для сохранения пересчитанного хеша пароля после успешного входа.
+ * Пользователи получаются через {@link UserDetailsCache}
  * @author SapeginMihail
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
+    private final UserDetailsCache userDetailsCache;
+
     /**
      * Конструктор для внедрения нужных зависимостей и создания экземпляра класса {@link UserDetailsServiceImpl}.
      * @param userRepository репозиторий для работы с сущностью {@link User}
+     * @param userDetailsCache кэш пользователей по email
      */
     @Autowired
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("Пользователь с таким email не найден!"));
+        User user = userDetailsCache.get(email);
+        if (user == null) {
+            throw new UsernameNotFoundException("Пользователь с таким email не найден!");
+        }
         return new UserDetailsImpl(user);
     }
+
+    /**
+     * Сохранение хеша пароля, пересчитанного при входе, например после увеличения стоимости BCrypt.
+     * Загруженная сущность не изменяется, чтобы при завершении транзакции не выполнялось
+     * еще одно изменение строки с увеличением версии. Кэшированный пользователь со старым хешем удаляется
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordById(((UserDetailsImpl) user).getUser().getId(), newPassword);
+        userDetailsCache.invalidate(user.getUsername());
+        return user;
+    }
 }
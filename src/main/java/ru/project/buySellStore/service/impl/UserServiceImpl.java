@@ -1,28 +1,40 @@
 package ru.project.buySellStore.service.impl;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.project.buySellStore.dto.UserDTO;
+import ru.project.buySellStore.event.UserChangedEvent;
 import ru.project.buySellStore.exception.userEx.UserNotFoundException;
+import ru.project.buySellStore.exception.userEx.UserVersionMismatchException;
 import ru.project.buySellStore.model.User;
 import ru.project.buySellStore.repository.UserRepository;
 import ru.project.buySellStore.service.UserService;
 
 /**
- * Реализация интерфейса {@link UserService}
+ * Реализация интерфейса {@link UserService}.
+ * Время выполнения публичных методов измеряется таймером {@code service.calls}.
+ * Об изменении и удалении пользователя публикуется {@link UserChangedEvent}
  * @author SapeginMihail
  */
 @Service
+@Timed("service.calls")
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Конструктор для внедрения нужных зависимостей и создания экземпляра класса {@link UserServiceImpl}.
      * @param userRepository репозиторий для работы с сущностью {@link User}
+     * @param eventPublisher публикатор событий об изменении пользователей
      */
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -30,14 +42,27 @@ public class UserServiceImpl implements UserService {
         return userRepository.save(user);
     }
 
+    @Override
+    public void update(Long userId, UserDTO userDTO, Long expectedVersion)
+            throws UserNotFoundException, UserVersionMismatchException {
+        int updated = userRepository.updateProfileById(userId, userDTO.getLogin(), userDTO.getEmail(),
+                userDTO.getBirthDate(), userDTO.getCity(), userDTO.getDescription(), expectedVersion);
+        if (updated == 0) {
+            // Строка не изменена: один дополнительный запрос различает отсутствие пользователя и версию
+            if (userRepository.existsById(userId)) {
+                throw new UserVersionMismatchException(userId);
+            }
+            throw new UserNotFoundException(userId);
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+    }
+
     @Override
     public void delete(Long userId) throws UserNotFoundException {
-        try{
-            User user = getUserById(userId);
-            userRepository.delete(user);
-        } catch (UserNotFoundException e) {
+        if (userRepository.deleteUserById(userId) == 0) {
             throw new UserNotFoundException(userId);
         }
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
     }
 
     @Override
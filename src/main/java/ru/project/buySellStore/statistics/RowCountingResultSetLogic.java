@@ -0,0 +1,67 @@
+package ru.project.buySellStore.statistics;
+
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+
+/**
+ * <b>Подсчет строк результата SELECT для журнала SQL-команд.</b>
+ * <p>
+ *     Вызовы передаются результату без слушателей datasource-proxy. Если команда отобрана
+ *     для журнала, считаются успешные вызовы {@code next()}, а при закрытии результата
+ *     запись с количеством строк передается в {@link SlowQueryLogWriter}
+ * </p>
+ */
+final class RowCountingResultSetLogic implements ResultSetProxyLogic {
+
+    private final ResultSet resultSet;
+
+    private final ProxyConfig proxyConfig;
+
+    private final SlowQueryLogWriter writer;
+
+    private SlowQuery query;
+
+    private long rows;
+
+    RowCountingResultSetLogic(ResultSet resultSet, ProxyConfig proxyConfig, SlowQueryLogWriter writer) {
+        this.resultSet = resultSet;
+        this.proxyConfig = proxyConfig;
+        this.writer = writer;
+    }
+
+    /**
+     * Передать запись в журнал при закрытии результата
+     */
+    void logOnClose(SlowQuery query) {
+        this.query = query;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == ProxyJdbcObject.class) {
+            return "getProxyConfig".equals(method.getName()) ? proxyConfig : resultSet;
+        }
+        Object result;
+        try {
+            result = method.invoke(resultSet, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+        if (query != null) {
+            String name = method.getName();
+            if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                rows++;
+            } else if ("close".equals(name)) {
+                query.setRows(rows);
+                writer.write(query);
+                query = null;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.project.buySellStore.statistics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpSessionAttributeListener;
+import jakarta.servlet.http.HttpSessionBindingEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * <b>Размер атрибутов HTTP-сессии.</b>
+ * <p>
+ *     При записи атрибута в сессию измеряет его размер после сериализации - столько он занимает
+ *     при сохранении или репликации сессии - и записывает в {@value #SIZE_METRIC} с названием атрибута.
+ *     Атрибуты записываются при входе, а не при каждом запросе, поэтому сериализация не влияет
+ *     на обычные запросы. Несериализуемые атрибуты учитываются в {@value #NOT_SERIALIZABLE_METRIC}
+ * </p>
+ */
+@Component
+public class SessionSizeListener implements HttpSessionAttributeListener {
+
+    /**
+     * Размер атрибута сессии в байтах
+     */
+    public static final String SIZE_METRIC = "http.session.attribute.size";
+
+    /**
+     * Количество записей атрибутов, которые невозможно сериализовать
+     */
+    public static final String NOT_SERIALIZABLE_METRIC = "http.session.attribute.not.serializable";
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionSizeListener.class);
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Создание слушателя
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public SessionSizeListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void attributeAdded(HttpSessionBindingEvent event) {
+        record(event.getName(), event.getSession().getAttribute(event.getName()));
+    }
+
+    @Override
+    public void attributeReplaced(HttpSessionBindingEvent event) {
+        record(event.getName(), event.getSession().getAttribute(event.getName()));
+    }
+
+    private void record(String name, Object value) {
+        long size;
+        try {
+            size = serializedSize(value);
+        } catch (IOException e) {
+            logger.debug("Атрибут сессии {} невозможно сериализовать", name, e);
+            meterRegistry.counter(NOT_SERIALIZABLE_METRIC, "attribute", name).increment();
+            return;
+        }
+        DistributionSummary.builder(SIZE_METRIC)
+                .description("Размер атрибута HTTP-сессии после сериализации")
+                .baseUnit("bytes")
+                .tag("attribute", name)
+                .register(meterRegistry)
+                .record(size);
+    }
+
+    /**
+     * Размер объекта после сериализации в байтах. Сериализованные данные не сохраняются
+     */
+    static long serializedSize(Object value) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(counter)) {
+            output.writeObject(value);
+        }
+        return counter.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.project.buySellStore.statistics;
+
+import java.util.List;
+
+/**
+ * <b>Запись журнала SQL-команд.</b>
+ * <p>
+ *     Создается в потоке запроса и хранит значения параметров без форматирования:
+ *     строка журнала собирается в потоке {@link SlowQueryLogWriter}
+ * </p>
+ */
+final class SlowQuery {
+
+    /**
+     * Количество строк неизвестно, например команда завершилась ошибкой
+     */
+    static final long UNKNOWN_ROWS = -1;
+
+    private final boolean slow;
+
+    private final String sql;
+
+    private final List<Object[]> parameters;
+
+    private final int parameterSets;
+
+    private final String endpoint;
+
+    private final long elapsedMillis;
+
+    private final boolean success;
+
+    private long rows = UNKNOWN_ROWS;
+
+    /**
+     * Создание записи
+     * @param slow команда выполнялась дольше порога, а не попала в выборку
+     * @param sql текст команды
+     * @param parameters значения параметров, по массиву на каждый набор пакета, попадающий в журнал
+     * @param parameterSets количество наборов параметров в пакете
+     * @param endpoint HTTP-запрос, из которого выполнена команда, или {@code null}
+     * @param elapsedMillis время выполнения в миллисекундах
+     * @param success выполнена ли команда без ошибки
+     */
+    SlowQuery(boolean slow, String sql, List<Object[]> parameters, int parameterSets, String endpoint,
+              long elapsedMillis, boolean success) {
+        this.slow = slow;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.parameterSets = parameterSets;
+        this.endpoint = endpoint;
+        this.elapsedMillis = elapsedMillis;
+        this.success = success;
+    }
+
+    boolean isSlow() {
+        return slow;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    List<Object[]> getParameters() {
+        return parameters;
+    }
+
+    int getParameterSets() {
+        return parameterSets;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    boolean isSuccess() {
+        return success;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    void setRows(long rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,226 @@
+package ru.project.buySellStore.statistics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.JdbcProxyFactory;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.proxy.jdk.JdkJdbcProxyFactory;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * <b>Отбор SQL-команд для журнала.</b>
+ * <p>
+ *     Слушатель datasource-proxy: команды, которые выполнялись не меньше порога, попадают
+ *     в журнал всегда, остальные - с заданной долей выборки. Запись содержит текст команды,
+ *     значения параметров, HTTP-запрос, из которого она выполнена, количество строк и время выполнения.
+ * </p>
+ * <p>
+ *     Попадет ли команда в выборку, решается до ее выполнения. Результаты SELECT, попавшие в выборку
+ *     или выполнявшиеся не меньше порога, оборачиваются в {@link RowCountingResultSetLogic}: строки
+ *     считаются по мере чтения, а запись передается в журнал при закрытии результата. Остальные
+ *     результаты не оборачиваются ({@link #jdbcProxyFactory()}), поэтому чтение строк команд,
+ *     не попадающих в журнал, не замедляется. Для изменений количество строк берется из ответа
+ *     базы данных сразу
+ * </p>
+ */
+public class SlowQueryLogListener implements QueryExecutionListener, ResultSetProxyLogicFactory {
+
+    /**
+     * Состояние выполняемой в потоке команды. datasource-proxy вызывает {@link #beforeQuery},
+     * создание обертки результата и {@link #afterQuery} в одном потоке
+     */
+    private static final ThreadLocal<Execution> EXECUTION = ThreadLocal.withInitial(Execution::new);
+
+    private final SlowQueryLogWriter writer;
+
+    private final long thresholdMillis;
+
+    private final long thresholdNanos;
+
+    private final double sampleRate;
+
+    /**
+     * Создание слушателя
+     * @param writer журнал, в который передаются записи
+     * @param threshold время выполнения, начиная с которого команда считается медленной
+     * @param sampleRate доля остальных команд, попадающих в журнал, от 0 до 1
+     */
+    public SlowQueryLogListener(SlowQueryLogWriter writer, Duration threshold, double sampleRate) {
+        this.writer = writer;
+        this.thresholdMillis = threshold.toMillis();
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Фабрика оберток datasource-proxy, которая оборачивает результат только команд,
+     * попавших в выборку или выполнявшихся не меньше порога. Результат создается после
+     * выполнения команды, поэтому ее время к этому моменту уже известно
+     */
+    public JdbcProxyFactory jdbcProxyFactory() {
+        return new JdkJdbcProxyFactory() {
+            @Override
+            public ResultSet createResultSet(ResultSet resultSet, ConnectionInfo connectionInfo,
+                                             ProxyConfig proxyConfig) {
+                return countsRows() ? super.createResultSet(resultSet, connectionInfo, proxyConfig) : resultSet;
+            }
+        };
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Execution execution = EXECUTION.get();
+        execution.startNanos = System.nanoTime();
+        execution.sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        execution.resultSet = null;
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Execution execution = EXECUTION.get();
+        RowCountingResultSetLogic resultSet = execution.resultSet;
+        execution.resultSet = null;
+        boolean slow = execInfo.getElapsedTime() >= thresholdMillis;
+        if (!slow && !execution.sampled) {
+            return;
+        }
+        SlowQuery query = new SlowQuery(slow, sql(queryInfoList), parameters(queryInfoList),
+                parameterSets(queryInfoList), endpoint(), execInfo.getElapsedTime(), execInfo.isSuccess());
+        Object result = execInfo.getResult();
+        if (result instanceof ResultSet && resultSet != null) {
+            resultSet.logOnClose(query);
+            return;
+        }
+        query.setRows(rows(result));
+        writer.write(query);
+    }
+
+    @Override
+    public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+        RowCountingResultSetLogic logic = new RowCountingResultSetLogic(resultSet, proxyConfig, writer);
+        EXECUTION.get().resultSet = logic;
+        return logic;
+    }
+
+    /**
+     * Нужно ли считать строки результата выполняемой в потоке команды
+     */
+    boolean countsRows() {
+        Execution execution = EXECUTION.get();
+        return execution.sampled || System.nanoTime() - execution.startNanos >= thresholdNanos;
+    }
+
+    private static String sql(List<QueryInfo> queryInfoList) {
+        if (queryInfoList.size() == 1) {
+            return queryInfoList.get(0).getQuery();
+        }
+        return queryInfoList.stream()
+                .map(QueryInfo::getQuery)
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Скопировать значения параметров по порядковым номерам. Из пакета копируются
+     * только наборы, которые попадут в журнал
+     */
+    private static List<Object[]> parameters(List<QueryInfo> queryInfoList) {
+        List<Object[]> parameters = new ArrayList<>();
+        for (QueryInfo queryInfo : queryInfoList) {
+            for (List<ParameterSetOperation> operations : queryInfo.getParametersList()) {
+                if (parameters.size() == SlowQueryLogWriter.MAX_LOGGED_BATCHES) {
+                    return parameters;
+                }
+                if (!operations.isEmpty()) {
+                    parameters.add(values(operations));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static int parameterSets(List<QueryInfo> queryInfoList) {
+        int sets = 0;
+        for (QueryInfo queryInfo : queryInfoList) {
+            for (List<ParameterSetOperation> operations : queryInfo.getParametersList()) {
+                if (!operations.isEmpty()) {
+                    sets++;
+                }
+            }
+        }
+        return sets;
+    }
+
+    private static Object[] values(List<ParameterSetOperation> operations) {
+        int count = 0;
+        for (ParameterSetOperation operation : operations) {
+            if (operation.getArgs()[0] instanceof Integer index) {
+                count = Math.max(count, index);
+            }
+        }
+        Object[] values = new Object[count];
+        for (ParameterSetOperation operation : operations) {
+            if (operation.getArgs()[0] instanceof Integer index) {
+                values[index - 1] = ParameterSetOperation.isSetNullParameterOperation(operation)
+                        ? null : operation.getArgs()[1];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Получить метод и шаблон пути HTTP-запроса, обрабатываемого в текущем потоке
+     */
+    private static String endpoint() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return null;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Number count) {
+            return count.longValue();
+        }
+        if (result instanceof int[] counts) {
+            long rows = 0;
+            for (int count : counts) {
+                // Драйвер может не сообщать количество строк пакета, например при reWriteBatchedInserts
+                if (count < 0) {
+                    return SlowQuery.UNKNOWN_ROWS;
+                }
+                rows += count;
+            }
+            return rows;
+        }
+        return SlowQuery.UNKNOWN_ROWS;
+    }
+
+    /**
+     * Решение о выборке и обертка результата выполняемой в потоке команды
+     */
+    private static final class Execution {
+
+        private long startNanos;
+
+        private boolean sampled;
+
+        private RowCountingResultSetLogic resultSet;
+    }
+}
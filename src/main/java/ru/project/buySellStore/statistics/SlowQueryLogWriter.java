@@ -0,0 +1,179 @@
+package ru.project.buySellStore.statistics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <b>Запись журнала SQL-команд в отдельном потоке.</b>
+ * <p>
+ *     Потоки запросов только кладут запись в ограниченную очередь и никогда не ждут:
+ *     если очередь заполнена, запись отбрасывается и учитывается в метрике {@value #DROPPED_METRIC}.
+ *     Строка журнала форматируется и выводится потоком {@code slow-query-log}
+ * </p>
+ */
+public class SlowQueryLogWriter implements MeterBinder, AutoCloseable {
+
+    /**
+     * Количество записей журнала, с признаком медленной команды или выборки
+     */
+    public static final String ENTRIES_METRIC = "sql.log.entries";
+
+    /**
+     * Количество записей, отброшенных из-за заполненной очереди
+     */
+    public static final String DROPPED_METRIC = "sql.log.dropped";
+
+    /**
+     * Наибольшее количество наборов параметров пакета в одной записи
+     */
+    static final int MAX_LOGGED_BATCHES = 5;
+
+    /**
+     * Наибольшая длина значения параметра в записи
+     */
+    static final int MAX_VALUE_LENGTH = 64;
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLogWriter.class);
+
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private final BlockingQueue<SlowQuery> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final AtomicLong slow = new AtomicLong();
+
+    private final AtomicLong sampled = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread thread;
+
+    /**
+     * Создание журнала и запуск потока записи
+     */
+    public SlowQueryLogWriter() {
+        thread = new Thread(this::run, "slow-query-log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(ENTRIES_METRIC, slow, AtomicLong::get)
+                .tag("type", "slow")
+                .register(registry);
+        FunctionCounter.builder(ENTRIES_METRIC, sampled, AtomicLong::get)
+                .tag("type", "sampled")
+                .register(registry);
+        FunctionCounter.builder(DROPPED_METRIC, dropped, AtomicLong::get)
+                .register(registry);
+    }
+
+    /**
+     * Передать запись в журнал без ожидания
+     */
+    void write(SlowQuery query) {
+        if (!queue.offer(query)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        (query.isSlow() ? slow : sampled).incrementAndGet();
+    }
+
+    /**
+     * Остановка потока записи. Записи, оставшиеся в очереди, выводятся перед остановкой
+     */
+    @Override
+    public void close() throws InterruptedException {
+        thread.interrupt();
+        thread.join();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                log(queue.take());
+            }
+        } catch (InterruptedException e) {
+            List<SlowQuery> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            remaining.forEach(this::log);
+        }
+    }
+
+    private void log(SlowQuery query) {
+        try {
+            if (query.isSlow()) {
+                logger.warn(format(query));
+            } else {
+                logger.info(format(query));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Не удалось записать SQL-команду в журнал", e);
+        }
+    }
+
+    /**
+     * Собрать строку журнала
+     */
+    static String format(SlowQuery query) {
+        StringBuilder line = new StringBuilder(query.isSlow() ? "Медленный SQL: " : "SQL (выборка): ")
+                .append(query.getElapsedMillis()).append(" мс");
+        if (!query.isSuccess()) {
+            line.append(", ошибка");
+        } else if (query.getRows() != SlowQuery.UNKNOWN_ROWS) {
+            line.append(", строк: ").append(query.getRows());
+        }
+        line.append(", запрос: ").append(query.getEndpoint() == null ? "вне HTTP-запроса" : query.getEndpoint())
+                .append(", команда: ").append(query.getSql());
+        List<Object[]> parameters = query.getParameters();
+        if (!parameters.isEmpty()) {
+            line.append(", параметры: ");
+            parameters.forEach(values -> appendValues(line, values));
+            if (query.getParameterSets() > parameters.size()) {
+                line.append(" ... еще ").append(query.getParameterSets() - parameters.size());
+            }
+        }
+        return line.toString();
+    }
+
+    private static void appendValues(StringBuilder line, Object[] values) {
+        line.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(", ");
+            }
+            appendValue(line, values[i]);
+        }
+        line.append(']');
+    }
+
+    private static void appendValue(StringBuilder line, Object value) {
+        if (value == null) {
+            line.append("NULL");
+        } else if (value instanceof byte[] bytes) {
+            line.append('<').append(bytes.length).append(" байт>");
+        } else if (value instanceof CharSequence || value instanceof Temporal || value instanceof Date) {
+            String text = value.toString();
+            line.append('\'');
+            if (text.length() > MAX_VALUE_LENGTH) {
+                line.append(text, 0, MAX_VALUE_LENGTH).append("...");
+            } else {
+                line.append(text);
+            }
+            line.append('\'');
+        } else {
+            line.append(value);
+        }
+    }
+}
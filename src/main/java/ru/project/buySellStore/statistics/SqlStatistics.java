@@ -0,0 +1,82 @@
+package ru.project.buySellStore.statistics;
+
+/**
+ * <b>Счетчики SQL одного HTTP-запроса.</b>
+ * <p>
+ *     Привязываются к потоку на время обработки запроса в {@link SqlStatisticsFilter}
+ *     и заполняются Hibernate через {@link SqlStatisticsSessionListener} и {@link SqlStatisticsIntegrator}.
+ *     Запросы через JDBC в обход Hibernate, например COPY при загрузке CSV, не учитываются
+ * </p>
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private int entitiesLoaded;
+
+    private long sqlNanos;
+
+    /**
+     * Начать подсчет для текущего потока
+     * @return новые счетчики, привязанные к потоку
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Закончить подсчет для текущего потока
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Получить счетчики текущего потока
+     * @return счетчики или {@code null}, если поток не обрабатывает HTTP-запрос
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Учесть выполненную команду или пакет команд
+     * @param nanos время выполнения в наносекундах
+     */
+    void statementExecuted(long nanos) {
+        statements++;
+        sqlNanos += nanos;
+    }
+
+    /**
+     * Учесть загруженную сущность
+     */
+    void entityLoaded() {
+        entitiesLoaded++;
+    }
+
+    /**
+     * Получить количество обращений к базе данных: пакет команд считается одним обращением
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * Получить количество сущностей, загруженных из результатов запросов
+     */
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    /**
+     * Получить суммарное время выполнения SQL в наносекундах
+     */
+    public long getSqlNanos() {
+        return sqlNanos;
+    }
+}
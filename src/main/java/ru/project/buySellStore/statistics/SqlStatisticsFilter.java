@@ -0,0 +1,135 @@
+package ru.project.buySellStore.statistics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <b>Подсчет SQL для каждого HTTP-запроса.</b>
+ * <p>
+ *     На время обработки запроса привязывает к потоку {@link SqlStatistics}, а после обработки
+ *     записывает метрики с методом и шаблоном пути запроса: {@value #STATEMENTS_METRIC},
+ *     {@value #ENTITIES_METRIC} и {@value #TIME_METRIC}.
+ * </p>
+ * <p>
+ *     В диагностическом режиме счетчики также передаются в заголовках ответа
+ *     {@value #STATEMENTS_HEADER}, {@value #ENTITIES_HEADER} и {@value #TIME_HEADER}.
+ *     Для этого тело ответа буферизуется до окончания обработки, поэтому режим
+ *     не предназначен для постоянной работы. Потоковые ответы не буферизуются: для них
+ *     счетчики записываются в журнал приложения
+ * </p>
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    /**
+     * Количество обращений к базе данных за запрос
+     */
+    public static final String STATEMENTS_METRIC = "http.server.sql.statements";
+
+    /**
+     * Количество сущностей, загруженных за запрос
+     */
+    public static final String ENTITIES_METRIC = "http.server.sql.entities";
+
+    /**
+     * Время выполнения SQL за запрос
+     */
+    public static final String TIME_METRIC = "http.server.sql.time";
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+
+    public static final String ENTITIES_HEADER = "X-Sql-Entities-Loaded";
+
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean headers;
+
+    private final Set<String> streamingPaths;
+
+    /**
+     * Создание фильтра
+     * @param meterRegistry реестр метрик
+     * @param headers передавать ли счетчики в заголовках ответа
+     * @param streamingPaths пути потоковых ответов без контекста приложения. Их тело не буферизуется,
+     *                       а счетчики в диагностическом режиме записываются в журнал
+     */
+    public SqlStatisticsFilter(MeterRegistry meterRegistry, boolean headers, Set<String> streamingPaths) {
+        this.meterRegistry = meterRegistry;
+        this.headers = headers;
+        this.streamingPaths = streamingPaths;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        boolean streaming = headers && streamingPaths.contains(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        ContentCachingResponseWrapper cachingResponse = headers && !streaming
+                ? new ContentCachingResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, cachingResponse != null ? cachingResponse : response);
+        } finally {
+            SqlStatistics.stop();
+            record(request, statistics);
+            if (cachingResponse != null) {
+                cachingResponse.setHeader(STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+                cachingResponse.setHeader(ENTITIES_HEADER, String.valueOf(statistics.getEntitiesLoaded()));
+                cachingResponse.setHeader(TIME_HEADER, sqlMillis(statistics));
+                cachingResponse.copyBodyToResponse();
+            } else if (streaming) {
+                logger.info("{} {}: обращений к базе данных {}, загружено сущностей {}, время SQL {} мс",
+                        request.getMethod(), request.getRequestURI(), statistics.getStatements(),
+                        statistics.getEntitiesLoaded(), sqlMillis(statistics));
+            }
+        }
+    }
+
+    private static String sqlMillis(SqlStatistics statistics) {
+        return String.format(Locale.ROOT, "%.3f", statistics.getSqlNanos() / 1e6);
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+        String method = request.getMethod();
+        DistributionSummary.builder(STATEMENTS_METRIC)
+                .description("Обращения к базе данных за HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder(ENTITIES_METRIC)
+                .description("Сущности, загруженные за HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getEntitiesLoaded());
+        Timer.builder(TIME_METRIC)
+                .description("Время выполнения SQL за HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getSqlNanos(), TimeUnit.NANOSECONDS);
+    }
+}
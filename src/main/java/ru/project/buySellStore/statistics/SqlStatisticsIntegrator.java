@@ -0,0 +1,35 @@
+package ru.project.buySellStore.statistics;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Регистрация слушателя загрузки сущностей, который учитывает их в {@link SqlStatistics} текущего потока
+ */
+public class SqlStatisticsIntegrator implements Integrator {
+
+    private static final PostLoadEventListener ENTITY_LOADED = event -> {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.entityLoaded();
+        }
+    };
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        sessionFactory.getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, ENTITY_LOADED);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
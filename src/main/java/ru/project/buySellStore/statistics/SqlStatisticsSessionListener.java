@@ -0,0 +1,39 @@
+package ru.project.buySellStore.statistics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Слушатель событий сессии Hibernate, который учитывает выполнение команд и пакетов
+ * в {@link SqlStatistics} текущего потока. Создается Hibernate для каждой сессии
+ */
+public class SqlStatisticsSessionListener implements SessionEventListener {
+
+    private long executionStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed();
+    }
+
+    private void executed() {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.statementExecuted(System.nanoTime() - executionStart);
+        }
+    }
+}
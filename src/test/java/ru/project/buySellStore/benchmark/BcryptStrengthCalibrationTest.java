@@ -0,0 +1,73 @@
+package ru.project.buySellStore.benchmark;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * <b>Подбор стоимости BCrypt под целевое время хеширования на текущем оборудовании.</b>
+ * <p>
+ *     Для каждой стоимости, начиная с минимальной, измеряет медианное время одного хеша после прогрева
+ *     и выбирает наибольшую стоимость, время которой не превышает цели. Результат выводится
+ *     как значение {@code PASSWORD_BCRYPT_STRENGTH}. Время удваивается с каждой единицей стоимости,
+ *     поэтому измерение останавливается на первой стоимости дольше цели.
+ * </p>
+ * <p>
+ *     Запускается только при заданной переменной окружения {@code BCRYPT_TARGET_MS}, например:
+ *     {@code BCRYPT_TARGET_MS=250 mvn test -Dtest=BcryptStrengthCalibrationTest}.
+ *     Запускать нужно на том же оборудовании и при той же нагрузке на процессор, что и приложение
+ * </p>
+ */
+@EnabledIfEnvironmentVariable(named = "BCRYPT_TARGET_MS", matches = "\\d+")
+class BcryptStrengthCalibrationTest {
+
+    private static final int MIN_STRENGTH = 4;
+
+    private static final int MAX_STRENGTH = 16;
+
+    private static final int WARMUP_HASHES = 3;
+
+    private static final int MEASURED_HASHES = 7;
+
+    private static final String PASSWORD = "Passw0rd!calibration";
+
+    /**
+     * Измеряет время хеширования для возрастающей стоимости
+     *
+     * Ожидается, что хотя бы минимальная стоимость укладывается в целевое время
+     */
+    @Test
+    void calibrateStrength() {
+        double targetMillis = Double.parseDouble(System.getenv("BCRYPT_TARGET_MS"));
+        int recommended = -1;
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            double millis = medianMillis(new BCryptPasswordEncoder(strength));
+            System.out.printf("Стоимость %2d: %8.1f мс/хеш%n", strength, millis);
+            if (millis > targetMillis) {
+                break;
+            }
+            recommended = strength;
+        }
+
+        Assertions.assertTrue(recommended >= MIN_STRENGTH,
+                "Даже минимальная стоимость дольше " + targetMillis + " мс");
+        System.out.printf("Цель %.0f мс/хеш: PASSWORD_BCRYPT_STRENGTH=%d%n", targetMillis, recommended);
+    }
+
+    private static double medianMillis(BCryptPasswordEncoder encoder) {
+        for (int i = 0; i < WARMUP_HASHES; i++) {
+            encoder.encode(PASSWORD);
+        }
+        long[] nanos = new long[MEASURED_HASHES];
+        for (int i = 0; i < MEASURED_HASHES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(PASSWORD);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[MEASURED_HASHES / 2] / 1e6;
+    }
+}
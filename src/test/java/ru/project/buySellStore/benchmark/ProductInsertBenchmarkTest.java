@@ -0,0 +1,149 @@
+package ru.project.buySellStore.benchmark;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import ru.project.buySellStore.model.BaseEntity;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * <b>Сравнение скорости вставки товаров при разных способах генерации id.</b>
+ * <p>
+ *     Воспроизводит запросы, которые отправляет Hibernate: при IDENTITY каждая строка вставляется
+ *     отдельным запросом с получением id, при последовательности с шагом
+ *     {@link BaseEntity#ID_ALLOCATION_SIZE} id резервируются заранее, а строки отправляются пакетами.
+ *     Результат выводится в строках в секунду.
+ * </p>
+ * <p>
+ *     Запускается только при заданной переменной окружения {@code BENCHMARK_DATASOURCE_URL},
+ *     например: {@code BENCHMARK_DATASOURCE_URL=jdbc:postgresql://localhost:5432/store
+ *     BENCHMARK_DATASOURCE_USERNAME=postgres BENCHMARK_DATASOURCE_PASSWORD=postgres
+ *     mvn test -Dtest=ProductInsertBenchmarkTest}. Использует только временные таблицы
+ * </p>
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DATASOURCE_URL", matches = ".+")
+class ProductInsertBenchmarkTest {
+
+    private static final int ROWS = 20_000;
+
+    private static final int WARMUP_ROWS = 2_000;
+
+    private static final int BATCH_SIZE = 50;
+
+    private static final String INSERT = "INSERT INTO bench_product (id, name, description, category, cost, archived, version) "
+            + "VALUES (?, ?, ?, ?, ?, false, 0)";
+
+    private static final String INSERT_RETURNING_ID = "INSERT INTO bench_product (name, description, category, cost, archived, version) "
+            + "VALUES (?, ?, ?, ?, false, 0) RETURNING id";
+
+    /**
+     * Сравнивает вставку по одной строке с получением id и пакетную вставку с заранее выделенными id
+     *
+     * Ожидается, что пакетная вставка не медленнее вставки по одной строке
+     */
+    @Test
+    void compareInsertThroughput() throws SQLException {
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            createTables(connection);
+
+            insertReturningId(connection, WARMUP_ROWS);
+            insertBatched(connection, WARMUP_ROWS);
+
+            double identityRate = rate(ROWS, () -> insertReturningId(connection, ROWS));
+            double batchRate = rate(ROWS, () -> insertBatched(connection, ROWS));
+
+            System.out.printf("IDENTITY, по одной строке: %.0f строк/с%n", identityRate);
+            System.out.printf("SEQUENCE + пакеты по %d: %.0f строк/с (x%.1f)%n",
+                    BATCH_SIZE, batchRate, batchRate / identityRate);
+            Assertions.assertTrue(batchRate >= identityRate);
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", System.getenv().getOrDefault("BENCHMARK_DATASOURCE_USERNAME", "postgres"));
+        properties.setProperty("password", System.getenv().getOrDefault("BENCHMARK_DATASOURCE_PASSWORD", ""));
+        properties.setProperty("reWriteBatchedInserts", "true");
+        return DriverManager.getConnection(System.getenv("BENCHMARK_DATASOURCE_URL"), properties);
+    }
+
+    private static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP SEQUENCE bench_id_seq INCREMENT BY " + BaseEntity.ID_ALLOCATION_SIZE);
+            statement.execute("CREATE TEMP TABLE bench_product ("
+                    + "id BIGINT PRIMARY KEY DEFAULT nextval('bench_id_seq'), name VARCHAR(255) NOT NULL, "
+                    + "description TEXT, category VARCHAR(100) NOT NULL, cost INT NOT NULL, "
+                    + "archived BOOLEAN NOT NULL, version BIGINT NOT NULL)");
+        }
+        connection.commit();
+    }
+
+    /**
+     * Вставка так, как ее выполняет Hibernate при IDENTITY: пакеты отключены, id читается после каждой строки
+     */
+    private static void insertReturningId(Connection connection, int rows) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_RETURNING_ID)) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "Товар " + i);
+                insert.setString(2, "Описание товара " + i);
+                insert.setString(3, "CLOTHES");
+                insert.setInt(4, 1000 + i);
+                try (ResultSet id = insert.executeQuery()) {
+                    id.next();
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    /**
+     * Вставка так, как ее выполняет Hibernate при последовательности с шагом:
+     * одно обращение к последовательности на {@link BaseEntity#ID_ALLOCATION_SIZE} строк и пакетные вставки
+     */
+    private static void insertBatched(Connection connection, int rows) throws SQLException {
+        try (PreparedStatement nextId = connection.prepareStatement("SELECT nextval('bench_id_seq')");
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            long id = 0;
+            long maxId = -1;
+            for (int i = 0; i < rows; i++) {
+                if (id > maxId) {
+                    try (ResultSet result = nextId.executeQuery()) {
+                        result.next();
+                        maxId = result.getLong(1);
+                        id = maxId - BaseEntity.ID_ALLOCATION_SIZE + 1;
+                    }
+                }
+                insert.setLong(1, id++);
+                insert.setString(2, "Товар " + i);
+                insert.setString(3, "Описание товара " + i);
+                insert.setString(4, "CLOTHES");
+                insert.setInt(5, 1000 + i);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private static double rate(int rows, SqlAction action) throws SQLException {
+        long start = System.nanoTime();
+        action.run();
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+}
@@ -0,0 +1,150 @@
+package ru.project.buySellStore.benchmark;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.project.buySellStore.BuySellStoreApplication;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <b>Сравнение пропускной способности и задержек с платформенными и виртуальными потоками.</b>
+ * <p>
+ *     Запускает приложение дважды: с {@code spring.threads.virtual.enabled=false} и {@code true}.
+ *     В каждом режиме {@value #CONCURRENCY} одновременных клиентов запрашивают страницы каталога,
+ *     которые читаются из базы данных, и проверяют вход пользователя, который ждет BCrypt.
+ *     Для каждого режима выводятся запросы в секунду, p50 и p99.
+ * </p>
+ * <p>
+ *     Запускается только на Java 21+ при заданной переменной окружения {@code BENCHMARK_DATASOURCE_URL},
+ *     например: {@code BENCHMARK_DATASOURCE_URL=jdbc:postgresql://localhost:5432/store
+ *     BENCHMARK_DATASOURCE_USERNAME=postgres BENCHMARK_DATASOURCE_PASSWORD=postgres
+ *     mvn test -Dtest=VirtualThreadsBenchmarkTest}. Создает пользователя {@value #EMAIL}, если его нет.
+ *     Закрепление виртуальных потоков можно увидеть, добавив {@code -Djdk.tracePinnedThreads=short}
+ *     в {@code argLine}
+ * </p>
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DATASOURCE_URL", matches = ".+")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadsBenchmarkTest {
+
+    private static final int CONCURRENCY = 1000;
+
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+
+    /**
+     * Доля запросов входа среди всех запросов, в процентах
+     */
+    private static final int LOGIN_PERCENT = 5;
+
+    private static final String EMAIL = "benchmark@buy-sell-store.ru";
+
+    private static final String PASSWORD = "Benchmark_1";
+
+    private static final String CREDENTIALS = "{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}";
+
+    /**
+     * Сравнивает режимы работы на одной и той же нагрузке
+     *
+     * Ожидается, что оба режима обслуживают все запросы без ошибок
+     */
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%-12s %10s %10s %10s %8s%n", "потоки", "запр/с", "p50, мс", "p99, мс", "ошибки");
+        platform.print("платформ.");
+        virtual.print("виртуальные");
+        Assertions.assertEquals(0, platform.errors);
+        Assertions.assertEquals(0, virtual.errors);
+    }
+
+    private static Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BuySellStoreApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=" + System.getenv("BENCHMARK_DATASOURCE_URL"),
+                        "--spring.datasource.username=" + System.getenv().getOrDefault("BENCHMARK_DATASOURCE_USERNAME", "postgres"),
+                        "--spring.datasource.password=" + System.getenv().getOrDefault("BENCHMARK_DATASOURCE_PASSWORD", ""),
+                        "--buy-sell-store.rate-limit.enabled=false",
+                        "--logging.level.root=WARN")) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                    .cookieHandler(new CookieManager())
+                    .build();
+            client.send(post(baseUrl + "/api/auth/register", "{\"login\":\"benchmark\",\"email\":\"" + EMAIL
+                    + "\",\"password\":\"" + PASSWORD + "\",\"role\":\"BUYER\"}"), HttpResponse.BodyHandlers.discarding());
+            HttpResponse<Void> login = client.send(post(baseUrl + "/api/auth/login", CREDENTIALS),
+                    HttpResponse.BodyHandlers.discarding());
+            Assertions.assertEquals(200, login.statusCode());
+
+            load(client, baseUrl, WARMUP);
+            return load(client, baseUrl, MEASUREMENT);
+        }
+    }
+
+    /**
+     * Нагрузка с постоянным числом запросов в работе: следующий запрос отправляется,
+     * как только завершается один из предыдущих
+     */
+    private static Result load(HttpClient client, String baseUrl, Duration duration) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; System.nanoTime() < end; i++) {
+            inFlight.acquire();
+            HttpRequest request = i % 100 < LOGIN_PERCENT
+                    ? post(baseUrl + "/api/auth/login", CREDENTIALS)
+                    : HttpRequest.newBuilder(URI.create(baseUrl + "/api/products?limit=20&sort=COST_ASC")).build();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latencies.add(System.nanoTime() - sent);
+                if (error != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(CONCURRENCY);
+        long elapsed = System.nanoTime() - start;
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Result(sorted.length * 1e9 / elapsed, sorted, errors.get());
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private record Result(double throughput, long[] latencies, long errors) {
+
+        private double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+
+        private void print(String mode) {
+            System.out.printf("%-12s %10.0f %10.1f %10.1f %8d%n", mode, throughput,
+                    percentileMillis(50), percentileMillis(99), errors);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ru.project.buySellStore.catalog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductSnapshot;
+import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
+import ru.project.buySellStore.model.Product;
+import ru.project.buySellStore.repository.ProductRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тесты для кэша товаров
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        productCache = new ProductCache(productRepository, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Проверяет повторное получение товара
+     *
+     * Ожидается, что товар загрузится из базы данных один раз, а попадание и промах попадут в метрики
+     */
+    @Test
+    void getTest() throws ProductNotFoundException {
+        Mockito.when(productRepository.findById(1L)).thenReturn(Optional.of(product(1L, 1000)));
+
+        productCache.get(1L);
+        ProductSnapshot cached = productCache.get(1L);
+
+        Assertions.assertEquals(1000, cached.getCost());
+        Mockito.verify(productRepository, Mockito.times(1)).findById(1L);
+        Assertions.assertEquals(1, meterRegistry.get("cache.gets")
+                .tag("cache", ProductCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        Assertions.assertEquals(1, meterRegistry.get("cache.gets")
+                .tag("cache", ProductCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    /**
+     * Проверяет получение несуществующего товара
+     *
+     * Ожидается исключение, а отсутствие товара не кэшируется
+     */
+    @Test
+    void getNonExistingTest() {
+        Mockito.when(productRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(ProductNotFoundException.class, () -> productCache.get(1L));
+        Assertions.assertThrows(ProductNotFoundException.class, () -> productCache.get(1L));
+
+        Mockito.verify(productRepository, Mockito.times(2)).findById(1L);
+    }
+
+    /**
+     * Проверяет удаление товара из кэша после изменения
+     *
+     * Ожидается, что следующее получение загрузит новое состояние товара
+     */
+    @Test
+    void onProductChangedTest() throws ProductNotFoundException {
+        Mockito.when(productRepository.findById(1L))
+                .thenReturn(Optional.of(product(1L, 1000)), Optional.of(product(1L, 2000)));
+
+        productCache.get(1L);
+        productCache.onProductChanged(new ProductChangedEvent(1L, null, null));
+
+        Assertions.assertEquals(2000, productCache.get(1L).getCost());
+        Assertions.assertEquals(1, meterRegistry.get("cache.invalidations")
+                .tag("cache", ProductCache.CACHE_NAME).counter().count());
+    }
+
+    /**
+     * Проверяет одновременные промахи по одному товару
+     *
+     * Ожидается, что все потоки получат товар из одной загрузки
+     */
+    @Test
+    void concurrentMissesTest() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(productRepository.findById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(product(1L, 1000));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ProductSnapshot>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> productCache.get(1L)));
+            }
+            Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+            release.countDown();
+            for (Future<ProductSnapshot> result : results) {
+                Assertions.assertEquals(1000, result.get(5, TimeUnit.SECONDS).getCost());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Mockito.verify(productRepository, Mockito.times(1)).findById(1L);
+    }
+
+    private static Product product(long id, int cost) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCost(cost);
+        return product;
+    }
+}
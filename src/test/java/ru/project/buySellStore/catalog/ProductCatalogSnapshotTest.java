@@ -0,0 +1,98 @@
+package ru.project.buySellStore.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.mapper.ProductMapper;
+import ru.project.buySellStore.model.Product;
+import ru.project.buySellStore.service.ProductService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Тесты для снимка открытого каталога
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogSnapshotTest {
+
+    @Mock
+    private ProductService productService;
+
+    private ProductCatalogSnapshot productCatalogSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        productCatalogSnapshot = new ProductCatalogSnapshot(productService, new ProductMapper(),
+                new ObjectMapper(), Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productCatalogSnapshot.shutdown();
+    }
+
+    /**
+     * Проверяет сборку снимка
+     *
+     * Ожидается JSON-массив товаров и его сжатая копия с тем же содержимым
+     */
+    @Test
+    void buildTest() throws IOException {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Product> action = invocation.getArgument(0);
+            action.accept(product(1L, "name1", 1000));
+            action.accept(product(2L, "name2", 2000));
+            return null;
+        }).when(productService).forEachActive(Mockito.any());
+
+        productCatalogSnapshot.build();
+        CatalogSnapshot snapshot = productCatalogSnapshot.get();
+
+        String json = new String(snapshot.getJson(), StandardCharsets.UTF_8);
+        Assertions.assertEquals("[{\"id\":1,\"name\":\"name1\",\"description\":null,\"category\":null,\"cost\":1000},"
+                + "{\"id\":2,\"name\":\"name2\",\"description\":null,\"category\":null,\"cost\":2000}]", json);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzip()))) {
+            Assertions.assertEquals(json, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(2, snapshot.getProducts());
+        Assertions.assertEquals(1, snapshot.getVersion());
+    }
+
+    /**
+     * Проверяет пересборку снимка после нескольких изменений товаров
+     *
+     * Ожидается, что изменения за время задержки объединятся в одну пересборку
+     */
+    @Test
+    void onProductChangedTest() {
+        productCatalogSnapshot.build();
+
+        productCatalogSnapshot.onProductChanged(new ProductChangedEvent(1L, null, null));
+        productCatalogSnapshot.onProductChanged(new ProductChangedEvent(2L, null, null));
+        productCatalogSnapshot.onProductChanged(new ProductChangedEvent(3L, null, null));
+
+        Mockito.verify(productService, Mockito.timeout(2000).times(2)).forEachActive(Mockito.any());
+        Mockito.verify(productService, Mockito.after(300).times(2)).forEachActive(Mockito.any());
+        Assertions.assertEquals(2, productCatalogSnapshot.get().getVersion());
+    }
+
+    private static Product product(long id, String name, int cost) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCost(cost);
+        return product;
+    }
+}
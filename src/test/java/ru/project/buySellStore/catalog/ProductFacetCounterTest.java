@@ -0,0 +1,181 @@
+package ru.project.buySellStore.catalog;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.project.buySellStore.dto.CostBucketDTO;
+import ru.project.buySellStore.dto.ProductFacetsDTO;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductSnapshot;
+import ru.project.buySellStore.event.ProductsImportedEvent;
+import ru.project.buySellStore.repository.CategoryCount;
+import ru.project.buySellStore.repository.CostBucketCount;
+import ru.project.buySellStore.repository.ProductRepository;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Тесты для счетчиков товаров по категориям и диапазонам стоимости
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductFacetCounterTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @InjectMocks
+    private ProductFacetCounter productFacetCounter;
+
+    /**
+     * Проверяет пересчет счетчиков запросами к базе данных
+     *
+     * Ожидается, что счетчики совпадут с результатами запросов
+     */
+    @Test
+    void reconcileTest() {
+        Mockito.when(productRepository.countActiveByCategory())
+                .thenReturn(List.of(categoryCount("CLOTHES", 5), categoryCount("SHOES", 2)));
+        Mockito.when(productRepository.countActiveByCostBucket())
+                .thenReturn(List.of(costBucketCount(0, 4), costBucketCount(4, 3)));
+
+        productFacetCounter.reconcile();
+        ProductFacetsDTO facets = productFacetCounter.facets();
+
+        Assertions.assertEquals(Map.of("CLOTHES", 5L, "SHOES", 2L), facets.getCategories());
+        Assertions.assertEquals(List.of(4L, 0L, 0L, 0L, 3L), counts(facets));
+        Assertions.assertNull(facets.getCostBuckets().get(0).getFrom());
+        Assertions.assertNull(facets.getCostBuckets().get(4).getTo());
+    }
+
+    /**
+     * Проверяет обновление счетчиков по событиям
+     *
+     * Ожидается, что при изменении стоимости товар перейдет в другой диапазон,
+     * а категория без товаров пропадет из результата
+     */
+    @Test
+    void onProductChangedTest() {
+        ProductSnapshot cheap = new ProductSnapshot(1L, "name", "description", "CLOTHES", 500, 0);
+        ProductSnapshot expensive = new ProductSnapshot(1L, "name", "description", "CLOTHES", 7000, 0);
+        ProductSnapshot shoes = new ProductSnapshot(2L, "name", "description", "SHOES", 1500, 0);
+
+        productFacetCounter.onProductChanged(new ProductChangedEvent(1L, null, cheap));
+        productFacetCounter.onProductChanged(new ProductChangedEvent(2L, null, shoes));
+        productFacetCounter.onProductChanged(new ProductChangedEvent(1L, cheap, expensive));
+        productFacetCounter.onProductChanged(new ProductChangedEvent(2L, shoes, null));
+        ProductFacetsDTO facets = productFacetCounter.facets();
+
+        Assertions.assertEquals(Map.of("CLOTHES", 1L), facets.getCategories());
+        Assertions.assertEquals(List.of(0L, 0L, 1L, 0L, 0L), counts(facets));
+    }
+
+    /**
+     * Проверяет изменение товара, зафиксированное во время пересчета после чтения счетчиков
+     *
+     * Ожидается, что изменение не потеряется при замене счетчиков
+     */
+    @Test
+    void reconcileReplaysConcurrentChangesTest() {
+        ProductSnapshot shoes = new ProductSnapshot(2L, "name", "description", "SHOES", 1500, 0);
+        Mockito.when(productRepository.countActiveByCategory())
+                .thenReturn(List.of(categoryCount("CLOTHES", 5)));
+        Mockito.when(productRepository.countActiveByCostBucket())
+                .thenAnswer(invocation -> {
+                    productFacetCounter.onProductChanged(new ProductChangedEvent(2L, null, shoes));
+                    return List.of();
+                });
+
+        productFacetCounter.reconcile();
+        ProductFacetsDTO facets = productFacetCounter.facets();
+
+        Assertions.assertEquals(Map.of("CLOTHES", 5L, "SHOES", 1L), facets.getCategories());
+        Assertions.assertEquals(List.of(0L, 1L, 0L, 0L, 0L), counts(facets));
+    }
+
+    /**
+     * Проверяет реакцию на массовую загрузку товаров
+     *
+     * Ожидается, что пересчет запланирован в планировщике, а не выполнен в потоке события
+     */
+    @Test
+    void onProductsImportedTest() {
+        productFacetCounter.onProductsImported(new ProductsImportedEvent(10, 1L));
+
+        Mockito.verify(taskScheduler).schedule(Mockito.any(Runnable.class), Mockito.any(Instant.class));
+        Mockito.verifyNoInteractions(productRepository);
+    }
+
+    /**
+     * Проверяет определение диапазона стоимости
+     */
+    @Test
+    void bucketOfTest() {
+        Assertions.assertEquals(0, ProductFacetCounter.bucketOf(999));
+        Assertions.assertEquals(1, ProductFacetCounter.bucketOf(1000));
+        Assertions.assertEquals(4, ProductFacetCounter.bucketOf(1_000_000));
+    }
+
+    /**
+     * Проверяет границы диапазонов стоимости в запросе пересчета
+     *
+     * Ожидается, что запрос использует те же границы, что и счетчик
+     */
+    @Test
+    void countActiveByCostBucketBoundsTest() throws NoSuchMethodException {
+        String sql = ProductRepository.class.getMethod("countActiveByCostBucket").getAnnotation(Query.class).value();
+        String bounds = Arrays.stream(ProductFacetCounter.COST_BUCKET_BOUNDS)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(", ", "ARRAY[", "]"));
+
+        Assertions.assertTrue(sql.contains(bounds), sql);
+    }
+
+    private static List<Long> counts(ProductFacetsDTO facets) {
+        return facets.getCostBuckets().stream().map(CostBucketDTO::getCount).toList();
+    }
+
+    private static CostBucketCount costBucketCount(int bucket, long count) {
+        return new CostBucketCount() {
+            @Override
+            public int getBucket() {
+                return bucket;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+
+    private static CategoryCount categoryCount(String category, long count) {
+        return new CategoryCount() {
+            @Override
+            public String getCategory() {
+                return category;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
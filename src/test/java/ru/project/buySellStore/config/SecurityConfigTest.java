@@ -0,0 +1,73 @@
+package ru.project.buySellStore.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.project.buySellStore.security.PasswordHashingExecutor;
+
+/**
+ * Тесты для кодировщика паролей из конфигурации безопасности
+ */
+class SecurityConfigTest {
+
+    private static final String PASSWORD = "Passw0rd!";
+
+    private PasswordHashingExecutor executor;
+
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor(1, 4);
+        passwordEncoder = new SecurityConfig().passwordEncoder(executor, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    /**
+     * Проверяет новый хеш
+     *
+     * Ожидается хеш с префиксом и указанной стоимостью, который не требует пересчета
+     */
+    @Test
+    void encodeTest() {
+        String hash = passwordEncoder.encode(PASSWORD);
+
+        Assertions.assertTrue(hash.startsWith("{bcrypt}$2a$05$"));
+        Assertions.assertTrue(passwordEncoder.matches(PASSWORD, hash));
+        Assertions.assertFalse(passwordEncoder.upgradeEncoding(hash));
+    }
+
+    /**
+     * Проверяет хеш без префикса, сохраненный до перехода на префиксы
+     *
+     * Ожидается, что пароль проверяется, а хеш требует пересчета
+     */
+    @Test
+    void matchesLegacyHashTest() {
+        String hash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        Assertions.assertTrue(passwordEncoder.matches(PASSWORD, hash));
+        Assertions.assertFalse(passwordEncoder.matches("wrong", hash));
+        Assertions.assertTrue(passwordEncoder.upgradeEncoding(hash));
+    }
+
+    /**
+     * Проверяет хеш со стоимостью ниже указанной
+     *
+     * Ожидается, что хеш требует пересчета
+     */
+    @Test
+    void upgradeEncodingLowerStrengthTest() {
+        String hash = "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        Assertions.assertTrue(passwordEncoder.matches(PASSWORD, hash));
+        Assertions.assertTrue(passwordEncoder.upgradeEncoding(hash));
+    }
+}
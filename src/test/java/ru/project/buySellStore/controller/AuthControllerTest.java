@@ -19,6 +19,7 @@ import ru.project.buySellStore.dto.LoginDTO;
 import ru.project.buySellStore.dto.RegisterDTO;
 import ru.project.buySellStore.model.Role;
 import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.security.SessionPrincipal;
 import ru.project.buySellStore.service.impl.AuthServiceImpl;
 import ru.project.buySellStore.service.impl.UserServiceImpl;
 
@@ -111,8 +112,8 @@ class AuthControllerTest {
         Mockito.doNothing()
                 .when(authService)
                 .login(Mockito.any(UsernamePasswordAuthenticationToken.class), Mockito.any(HttpSession.class));
-        Mockito.when(authService.getAuthenticatedUser())
-                .thenReturn(user);
+        Mockito.when(authService.getAuthenticatedPrincipal())
+                .thenReturn(new SessionPrincipal(user));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -123,7 +124,7 @@ class AuthControllerTest {
         Mockito.verify(authService, Mockito.times(1))
                 .login(Mockito.any(UsernamePasswordAuthenticationToken.class), Mockito.any(HttpSession.class));
         Mockito.verify(authService)
-                .getAuthenticatedUser();
+                .getAuthenticatedPrincipal();
     }
 
     /**
@@ -137,4 +138,17 @@ class AuthControllerTest {
                 .logout(Mockito.any(HttpSession.class));
     }
 
-}
\ No newline at end of file
+    /**
+     * Проверяет обновление токена, когда включен вход по сессиям
+     *
+     * Ожидается ответ 401 с соответствующим сообщением
+     */
+    @Test
+    void refreshSessionModeTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"abc.def\"}"))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Вход по токенам отключен"));
+    }
+}
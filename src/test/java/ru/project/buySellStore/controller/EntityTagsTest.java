@@ -0,0 +1,35 @@
+package ru.project.buySellStore.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Тесты для ETag на основе версий сущностей
+ */
+class EntityTagsTest {
+
+    /**
+     * Проверяет получение версии из заголовка If-Match
+     *
+     * Ожидается версия из сильного ETag и отсутствие условия для пустого заголовка и {@code *}
+     */
+    @Test
+    void expectedVersionTest() {
+        Assertions.assertEquals(5L, EntityTags.expectedVersion(" \"5\" "));
+        Assertions.assertNull(EntityTags.expectedVersion(null));
+        Assertions.assertNull(EntityTags.expectedVersion(" "));
+        Assertions.assertNull(EntityTags.expectedVersion("*"));
+    }
+
+    /**
+     * Проверяет слабый, слишком длинный и некорректный ETag в заголовке If-Match
+     *
+     * Ожидается -1, которая не совпадает ни с одной версией, вместо версии или исключения
+     */
+    @Test
+    void expectedVersionMismatchTest() {
+        Assertions.assertEquals(-1L, EntityTags.expectedVersion("W/\"5\""));
+        Assertions.assertEquals(-1L, EntityTags.expectedVersion("\"12345678901234567890\""));
+        Assertions.assertEquals(-1L, EntityTags.expectedVersion("\"abc\""));
+    }
+}
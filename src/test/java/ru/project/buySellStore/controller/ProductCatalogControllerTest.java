@@ -0,0 +1,94 @@
+package ru.project.buySellStore.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import ru.project.buySellStore.catalog.CatalogSnapshot;
+import ru.project.buySellStore.catalog.ProductCatalogSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Тесты для ProductCatalogController
+ */
+@WebMvcTest(ProductCatalogController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = "buy-sell-store.catalog.snapshot.enabled=true")
+class ProductCatalogControllerTest {
+
+    private static final byte[] JSON = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] GZIP = {31, -117, 8, 0};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ProductCatalogSnapshot productCatalogSnapshot;
+
+    /**
+     * <b>Проверяет получение каталога клиентом без поддержки gzip</b>
+     * <p>Ожидается - JSON снимка без сжатия</p>
+     */
+    @Test
+    void testCatalog() throws Exception {
+        Mockito.when(productCatalogSnapshot.get())
+                .thenReturn(new CatalogSnapshot(JSON, GZIP, 1, 1, Instant.now()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/catalog"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(MockMvcResultMatchers.content().bytes(JSON));
+    }
+
+    /**
+     * <b>Проверяет получение каталога клиентом с поддержкой gzip</b>
+     * <p>Ожидается - сжатая копия снимка и заголовок Content-Encoding</p>
+     */
+    @Test
+    void testCatalogGzip() throws Exception {
+        Mockito.when(productCatalogSnapshot.get())
+                .thenReturn(new CatalogSnapshot(JSON, GZIP, 1, 1, Instant.now()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/catalog")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(MockMvcResultMatchers.content().bytes(GZIP));
+    }
+
+    /**
+     * <b>Проверяет получение каталога до сборки снимка</b>
+     * <p>Ожидается - статус 503 SERVICE UNAVAILABLE</p>
+     */
+    @Test
+    void testCatalogNotBuilt() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/catalog"))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+    }
+
+    /**
+     * <b>Проверяет разбор заголовка Accept-Encoding</b>
+     * <p>Ожидается - gzip с нулевым весом не принимается</p>
+     */
+    @Test
+    void testAcceptsGzip() {
+        Assertions.assertTrue(ProductCatalogController.acceptsGzip("gzip, deflate"));
+        Assertions.assertFalse(ProductCatalogController.acceptsGzip("gzip;q=0, deflate"));
+        Assertions.assertFalse(ProductCatalogController.acceptsGzip("identity"));
+        Assertions.assertFalse(ProductCatalogController.acceptsGzip(null));
+    }
+}
@@ -6,19 +6,33 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import ru.project.buySellStore.catalog.ProductCache;
+import ru.project.buySellStore.catalog.ProductFacetCounter;
+import ru.project.buySellStore.dto.CostBucketDTO;
+import ru.project.buySellStore.dto.ProductBulkRequestDTO;
+import ru.project.buySellStore.dto.ProductBulkResultDTO;
+import ru.project.buySellStore.dto.ProductCursor;
 import ru.project.buySellStore.dto.ProductDTO;
+import ru.project.buySellStore.dto.ProductFilter;
+import ru.project.buySellStore.dto.ProductSort;
+import ru.project.buySellStore.dto.ProductFacetsDTO;
 import ru.project.buySellStore.dto.ProductUpdateDTO;
+import ru.project.buySellStore.event.ProductSnapshot;
 import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
+import ru.project.buySellStore.exception.productEx.ProductVersionMismatchException;
 import ru.project.buySellStore.mapper.ProductMapper;
 import ru.project.buySellStore.model.Product;
 import ru.project.buySellStore.service.ProductService;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Тесты для ProductController
@@ -36,11 +50,18 @@ class ProductControllerTest {
     @MockitoBean
     private ProductMapper productMapper;
 
+    @MockitoBean
+    private ProductFacetCounter productFacetCounter;
+
+    @MockitoBean
+    private ProductCache productCache;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
-     * <b>Проверяет получение списка всех товаров</b>
-     * <p>Ожидается - корректное отображение данных всех продуктов в JSON-ответе</p>
+     * <b>Проверяет получение первой страницы товаров</b>
+     * <p>Ожидается - корректное отображение данных всех продуктов в JSON-ответе
+     * и отсутствие курсора следующей страницы</p>
      */
     @Test
     void testFindAll() throws Exception {
@@ -67,7 +88,7 @@ class ProductControllerTest {
                 "ELECTRONICS"
                 , 2000);
 
-        Mockito.when(productService.findAll())
+        Mockito.when(productService.findAll(new ProductFilter(null, null, null), ProductSort.OLDEST, null, 21))
                 .thenReturn(List.of(product1, product2));
         Mockito.when(productMapper.toDto(product1))
                 .thenReturn(productDTO1);
@@ -76,18 +97,190 @@ class ProductControllerTest {
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/products"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(productDTO1.getId()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value(productDTO1.getName()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].description").value(productDTO1.getDescription()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].category").value(productDTO1.getCategory()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].cost").value(productDTO1.getCost()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").value(productDTO2.getId()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[1].name").value(productDTO2.getName()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[1].description").value(productDTO2.getDescription()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[1].category").value(productDTO2.getCategory()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[1].cost").value(productDTO2.getCost()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(productDTO1.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].name").value(productDTO1.getName()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].description").value(productDTO1.getDescription()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].category").value(productDTO1.getCategory()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].cost").value(productDTO1.getCost()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].id").value(productDTO2.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].name").value(productDTO2.getName()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].description").value(productDTO2.getDescription()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].category").value(productDTO2.getCategory()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].cost").value(productDTO2.getCost()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").doesNotExist());
+
+        Mockito.verify(productService, Mockito.times(1)).findAll(new ProductFilter(null, null, null), ProductSort.OLDEST, null, 21);
+    }
+
+    /**
+     * <b>Проверяет получение страницы товаров категории по возрастанию стоимости, за которой есть следующая</b>
+     * <p>Ожидается - на странице {@code limit} товаров, а курсор указывает на последний из них</p>
+     */
+    @Test
+    void testFindAllWithNextPage() throws Exception {
+        Product product1 = new Product();
+        product1.setId(11L);
+        product1.setCost(1000);
+        Product product2 = new Product();
+        product2.setId(12L);
+        product2.setCost(1500);
+
+        Mockito.when(productService.findAll(new ProductFilter("CLOTHES", 500, null), ProductSort.COST_ASC,
+                        new ProductCursor(900, 10L), 2))
+                .thenReturn(List.of(product1, product2));
+        Mockito.when(productMapper.toDto(product1))
+                .thenReturn(new ProductDTO(11L, "name1", "description1", "CLOTHES", 1000));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products")
+                        .param("category", "CLOTHES")
+                        .param("minCost", "500")
+                        .param("sort", "COST_ASC")
+                        .param("limit", "1")
+                        .param("after", "900:10"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(11))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("1000:11"));
+
+        Mockito.verify(productMapper, Mockito.never()).toDto(product2);
+    }
+
+    /**
+     * <b>Проверяет получение страницы товаров с курсором, не подходящим к сортировке</b>
+     * <p>Ожидается - статус 400 BAD REQUEST</p>
+     */
+    @Test
+    void testFindAllWithInvalidCursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products")
+                        .param("sort", "COST_DESC")
+                        .param("after", "10"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(productService);
+    }
+
+    /**
+     * <b>Проверяет повторное получение неизменившейся страницы товаров</b>
+     * <p>Ожидается - статус 304 NOT MODIFIED, а при изменении версии товара - новая страница</p>
+     */
+    @Test
+    void testFindAllNotModified() throws Exception {
+        Product product = new Product();
+        product.setId(1L);
+        Mockito.when(productService.findAll(new ProductFilter(null, null, null), ProductSort.OLDEST, null, 21))
+                .thenReturn(List.of(product));
+        Mockito.when(productMapper.toDto(product))
+                .thenReturn(new ProductDTO(1L, "name1", "description1", "CLOTHES", 1000));
+
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/products"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        product.setVersion(1);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(1));
+    }
+
+    /**
+     * <b>Проверяет получение страницы товаров с недопустимым размером</b>
+     * <p>Ожидается - статус 400 BAD REQUEST</p>
+     */
+    @Test
+    void testFindAllWithInvalidLimit() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products")
+                        .param("limit", "1000"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(productService);
+    }
+
+    /**
+     * <b>Проверяет получение количества товаров по категориям и диапазонам стоимости</b>
+     * <p>Ожидается - счетчики отображаются в JSON-ответе</p>
+     */
+    @Test
+    void testFacets() throws Exception {
+        Mockito.when(productFacetCounter.facets())
+                .thenReturn(new ProductFacetsDTO(Map.of("CLOTHES", 3L),
+                        List.of(new CostBucketDTO(null, 1000, 1), new CostBucketDTO(1000, null, 2))));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/facets"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.categories.CLOTHES").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.costBuckets[0].to").value(1000))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.costBuckets[1].count").value(2));
+    }
+
+    /**
+     * <b>Проверяет полнотекстовый поиск товаров</b>
+     * <p>Ожидается - найденные товары отображаются в JSON-ответе в порядке, полученном от сервиса</p>
+     */
+    @Test
+    void testSearch() throws Exception {
+        Product product = new Product();
+        product.setId(3L);
+
+        Mockito.when(productService.search("футболка", 1, 10))
+                .thenReturn(List.of(product));
+        Mockito.when(productMapper.toDto(product))
+                .thenReturn(new ProductDTO(3L, "Футболка", "Хлопок", "CLOTHES", 1500));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/search")
+                        .param("query", "футболка")
+                        .param("page", "1")
+                        .param("size", "10"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("Футболка"));
+    }
+
+    /**
+     * <b>Проверяет полнотекстовый поиск с пустым запросом</b>
+     * <p>Ожидается - статус 400 BAD REQUEST</p>
+     */
+    @Test
+    void testSearchWithBlankQuery() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/search")
+                        .param("query", " "))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(productService);
+    }
+
+    /**
+     * <b>Проверяет выгрузку каталога в формате NDJSON</b>
+     * <p>Ожидается - каждый товар записан в ответ отдельной строкой</p>
+     */
+    @Test
+    void testExport() throws Exception {
+        Product product1 = new Product();
+        product1.setId(1L);
+        Product product2 = new Product();
+        product2.setId(2L);
 
-        Mockito.verify(productService, Mockito.times(1)).findAll();
+        Mockito.doAnswer(invocation -> {
+            Consumer<Product> action = invocation.getArgument(0);
+            action.accept(product1);
+            action.accept(product2);
+            return null;
+        }).when(productService).forEachActive(Mockito.any());
+        Mockito.when(productMapper.toDto(product1))
+                .thenReturn(new ProductDTO(1L, "name1", "description1", "CLOTHES", 1000));
+        Mockito.when(productMapper.toDto(product2))
+                .thenReturn(new ProductDTO(2L, "name2", "description2", "ELECTRONICS", 2000));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/export"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "{\"id\":1,\"name\":\"name1\",\"description\":\"description1\",\"category\":\"CLOTHES\",\"cost\":1000}\n"
+                        + "{\"id\":2,\"name\":\"name2\",\"description\":\"description2\",\"category\":\"ELECTRONICS\",\"cost\":2000}\n"));
     }
 
     /**
@@ -96,19 +289,14 @@ class ProductControllerTest {
      */
     @Test
     void testFindExistingProductById() throws Exception {
-        Product product = new Product();
-        product.setId(1L);
-        product.setName("name");
-        product.setDescription("description");
-        product.setCategory("CLOTHES");
-        product.setCost(1000);
+        ProductSnapshot product = new ProductSnapshot(1L, "name", "description", "CLOTHES", 1000, 0);
 
         ProductDTO productDTO = new ProductDTO(1L,"name",
                 "description",
                 "CLOTHES",
                 1000);
 
-        Mockito.when(productService.findById(1L))
+        Mockito.when(productCache.get(1L))
                 .thenReturn(product);
         Mockito.when(productMapper.toDto(product))
                 .thenReturn(productDTO);
@@ -120,10 +308,30 @@ class ProductControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(productDTO.getName()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.description").value(productDTO.getDescription()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.category").value(productDTO.getCategory()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.cost").value(productDTO.getCost()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.cost").value(productDTO.getCost()))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"0\""));
 
-        Mockito.verify(productService)
-                .findById(1L);
+        Mockito.verify(productCache)
+                .get(1L);
+        Mockito.verifyNoInteractions(productService);
+    }
+
+    /**
+     * <b>Проверяет повторное получение товара с ETag текущей версии</b>
+     * <p>Ожидается - статус 304 NOT MODIFIED без тела</p>
+     */
+    @Test
+    void testFindProductByIdNotModified() throws Exception {
+        Mockito.when(productCache.get(1L))
+                .thenReturn(new ProductSnapshot(1L, "name", "description", "CLOTHES", 1000, 4));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"4\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        Mockito.verifyNoInteractions(productMapper);
     }
 
     /**
@@ -133,7 +341,7 @@ class ProductControllerTest {
     @Test
     void testFindNonExistingProductById() throws Exception {
         Long nonExistingId = 1L;
-        Mockito.when(productService.findById(nonExistingId))
+        Mockito.when(productCache.get(nonExistingId))
                 .thenThrow(new ProductNotFoundException(nonExistingId));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/products/1"))
@@ -141,8 +349,8 @@ class ProductControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message")
                         .value("Товар с id = 1 не найден"));
 
-        Mockito.verify(productService)
-                .findById(nonExistingId);
+        Mockito.verify(productCache)
+                .get(nonExistingId);
     }
 
     /**
@@ -156,6 +364,8 @@ class ProductControllerTest {
                 "CLOTHES",
                 1000);
 
+        Mockito.when(productMapper.toEntity(Mockito.any(ProductDTO.class)))
+                .thenReturn(new Product());
         Mockito.when(productService.save(Mockito.any(Product.class)))
                         .thenReturn(new Product());
 
@@ -169,6 +379,47 @@ class ProductControllerTest {
                 .save(Mockito.any(Product.class));
     }
 
+    /**
+     * <b>Проверяет создание нескольких товаров одним запросом</b>
+     * <p>Ожидается - все товары передаются в сервис одним списком</p>
+     */
+    @Test
+    void testCreateAll() throws Exception {
+        List<ProductDTO> dtos = List.of(
+                new ProductDTO("First", "desc", "CLOTHES", 1000),
+                new ProductDTO("Second", "desc", "SHOES", 2000));
+
+        Mockito.when(productMapper.toEntity(Mockito.any(ProductDTO.class)))
+                .thenAnswer(invocation -> new Product());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dtos)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.content().string("Создано товаров: 2"));
+
+        Mockito.verify(productService)
+                .saveAll(Mockito.argThat(products -> products.size() == 2));
+    }
+
+    /**
+     * <b>Проверяет создание нескольких товаров, один из которых заполнен неправильно</b>
+     * <p>Ожидается - статус 400 BAD REQUEST, товары не создаются</p>
+     */
+    @Test
+    void testCreateAllWithInvalidProduct() throws Exception {
+        List<ProductDTO> dtos = List.of(
+                new ProductDTO("First", "desc", "CLOTHES", 1000),
+                new ProductDTO("Second", "desc", "SHOES", -5));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dtos)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(productService);
+    }
+
     /**
      * <b>Проверяет обновление существующего товара</b>
      * <p>Ожидается - тело ответа содержит сообщение "Продукт изменен!"</p>
@@ -180,10 +431,6 @@ class ProductControllerTest {
         updateDTO.setDescription("Updated desc");
         updateDTO.setCost(1500);
 
-        Product product = new Product();
-        Mockito.when(productService.findById(1L))
-                        .thenReturn(product);
-
         mockMvc.perform(MockMvcRequestBuilders.patch("/api/products/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(updateDTO)))
@@ -191,7 +438,30 @@ class ProductControllerTest {
                 .andExpect(MockMvcResultMatchers.content().string("Продукт изменен!"));
 
         Mockito.verify(productService)
-                .save(product);
+                .update(Mockito.eq(1L), Mockito.any(ProductUpdateDTO.class), Mockito.isNull());
+    }
+
+    /**
+     * <b>Проверяет обновление товара с If-Match, не совпадающим с версией товара</b>
+     * <p>Ожидается - статус 412 PRECONDITION FAILED</p>
+     */
+    @Test
+    void testUpdateWithStaleIfMatch() throws Exception {
+        ProductUpdateDTO updateDTO = new ProductUpdateDTO();
+        updateDTO.setName("Updated name");
+        updateDTO.setDescription("Updated desc");
+        updateDTO.setCost(1500);
+
+        Mockito.when(productService.update(Mockito.eq(1L), Mockito.any(ProductUpdateDTO.class), Mockito.eq(2L)))
+                .thenThrow(new ProductVersionMismatchException(1L));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(updateDTO)))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message")
+                        .value("Товар с id = 1 был изменен после получения"));
     }
 
     /**
@@ -238,4 +508,39 @@ class ProductControllerTest {
         Mockito.verify(productService)
                 .restore(1L);
     }
+
+    /**
+     * <b>Проверяет массовую архивацию товаров по id</b>
+     * <p>Ожидается - количество измененных товаров, пропущенные и несуществующие id в JSON-ответе</p>
+     */
+    @Test
+    void testArchiveAll() throws Exception {
+        Mockito.when(productService.archiveAll(Mockito.any(ProductBulkRequestDTO.class)))
+                .thenReturn(new ProductBulkResultDTO(2, List.of(3L), List.of(4L)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/bulk/archive")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2,3,4]}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.affected").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.skipped[0]").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missing[0]").value(4));
+
+        Mockito.verify(productService).archiveAll(Mockito.argThat(
+                request -> request.getIds().equals(List.of(1L, 2L, 3L, 4L))));
+    }
+
+    /**
+     * <b>Проверяет массовое удаление без указания товаров</b>
+     * <p>Ожидается - статус 400 BAD REQUEST, чтобы случайно не удалить весь каталог</p>
+     */
+    @Test
+    void testDeleteAllWithoutSelection() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(productService);
+    }
 }
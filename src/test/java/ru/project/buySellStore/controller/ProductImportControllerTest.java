@@ -0,0 +1,74 @@
+package ru.project.buySellStore.controller;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import ru.project.buySellStore.dto.ProductImportRejectDTO;
+import ru.project.buySellStore.dto.ProductImportResultDTO;
+import ru.project.buySellStore.exception.productEx.InvalidProductCsvException;
+import ru.project.buySellStore.service.ProductImportService;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Тесты для ProductImportController
+ */
+@WebMvcTest(ProductImportController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class ProductImportControllerTest {
+
+    private static final String CSV = "name,description,category,cost\nФутболка,Хлопок,CLOTHES,1000\n";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ProductImportService productImportService;
+
+    /**
+     * <b>Проверяет загрузку товаров из CSV-файла</b>
+     * <p>Ожидается - тело запроса передается в сервис, в ответе количество загруженных товаров
+     * и отклоненные строки</p>
+     */
+    @Test
+    void testImportCsv() throws Exception {
+        Mockito.when(productImportService.importCsv(Mockito.any(InputStream.class))).thenAnswer(invocation -> {
+            InputStream csv = invocation.getArgument(0);
+            return new String(csv.readAllBytes(), StandardCharsets.UTF_8).equals(CSV)
+                    ? new ProductImportResultDTO(1, 1, List.of(new ProductImportRejectDTO(3, "Стоимость обязательна")))
+                    : null;
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/import")
+                        .contentType(ProductImportController.TEXT_CSV)
+                        .content(CSV.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejects[0].line").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejects[0].message").value("Стоимость обязательна"));
+    }
+
+    /**
+     * <b>Проверяет загрузку файла, который невозможно разобрать</b>
+     * <p>Ожидается - статус 400 BAD REQUEST</p>
+     */
+    @Test
+    void testImportInvalidCsv() throws Exception {
+        Mockito.when(productImportService.importCsv(Mockito.any(InputStream.class)))
+                .thenThrow(new InvalidProductCsvException("ожидается заголовок"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/import")
+                        .contentType(ProductImportController.TEXT_CSV)
+                        .content("foo,bar\n"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+}
@@ -0,0 +1,205 @@
+package ru.project.buySellStore.controller;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.project.buySellStore.security.UserDetailsCache;
+
+import java.io.IOException;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.project.buySellStore.statistics.SqlStatementMatchers.statementsAtMost;
+
+/**
+ * <b>Бюджеты обращений к базе данных для основных запросов.</b>
+ * <p>
+ *     Приложение запускается со встроенным PostgreSQL и заголовками подсчета SQL. Тест не проходит,
+ *     если запрос выполнил больше команд, чем указано, например из-за N+1 или лишнего чтения перед изменением
+ * </p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SqlStatementBudgetIT {
+
+    private static final String EMAIL = "budget@buy-sell-store.ru";
+
+    private static final String PASSWORD = "Passw0rd!budget";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    private MockHttpSession session;
+
+    private long userId;
+
+    private long productId;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("buy-sell-store.sql-statistics.headers", () -> "true");
+        registry.add("buy-sell-store.rate-limit.enabled", () -> "false");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate.update("DELETE FROM product");
+        jdbcTemplate.update("DELETE FROM users");
+        userDetailsCache.invalidate(EMAIL);
+        mockMvc.perform(post("/api/auth/register",
+                        "{\"login\":\"budget\",\"email\":\"%s\",\"password\":\"%s\",\"role\":\"SELLER\"}"
+                                .formatted(EMAIL, PASSWORD)))
+                .andExpect(status().isCreated());
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = 'budget'", Long.class);
+        session = (MockHttpSession) mockMvc.perform(login())
+                .andExpect(status().isOk())
+                .andReturn().getRequest().getSession(false);
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/products/add",
+                            "{\"name\":\"Товар %d\",\"description\":\"Описание\",\"category\":\"CLOTHES\",\"cost\":%d}"
+                                    .formatted(i, 1000 + i)).session(session))
+                    .andExpect(status().is2xxSuccessful());
+        }
+        productId = jdbcTemplate.queryForObject("SELECT min(id) FROM product", Long.class);
+    }
+
+    /**
+     * Проверяет вход в систему
+     *
+     * Ожидается одно обращение: чтение пользователя по адресу электронной почты,
+     * а повторный вход обходится без базы данных
+     */
+    @Test
+    void loginTest() throws Exception {
+        userDetailsCache.invalidate(EMAIL);
+        mockMvc.perform(login())
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(1));
+        mockMvc.perform(login())
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(0));
+    }
+
+    /**
+     * Проверяет получение страницы товаров
+     *
+     * Ожидается одно обращение независимо от количества товаров на странице
+     */
+    @Test
+    void listProductsTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products").session(session))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(1));
+    }
+
+    /**
+     * Проверяет получение товара по id
+     *
+     * Ожидается не больше одного обращения, а повторное получение обходится без базы данных
+     */
+    @Test
+    void getProductTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/{id}", productId).session(session))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/{id}", productId).session(session))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(0));
+    }
+
+    /**
+     * Проверяет изменение товара
+     *
+     * Ожидается одно обращение: изменение с возвратом прежнего состояния
+     */
+    @Test
+    void updateProductTest() throws Exception {
+        mockMvc.perform(patch("/api/products/" + productId,
+                        "{\"name\":\"Новый товар\",\"description\":\"Новое описание\",\"cost\":500}").session(session))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(1));
+    }
+
+    /**
+     * Проверяет изменение товара с устаревшей версией и несуществующего товара
+     *
+     * Ожидаются 412 PRECONDITION FAILED и 404 NOT FOUND, а товар остается прежним
+     */
+    @Test
+    void updateProductConflictTest() throws Exception {
+        String json = "{\"name\":\"Новый товар\",\"description\":\"Новое описание\",\"cost\":500}";
+        mockMvc.perform(patch("/api/products/" + productId, json)
+                        .header(HttpHeaders.IF_MATCH, EntityTags.of(5)).session(session))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(statementsAtMost(2));
+        mockMvc.perform(patch("/api/products/" + (productId + 1_000_000), json).session(session))
+                .andExpect(status().isNotFound())
+                .andExpect(statementsAtMost(2));
+        Assertions.assertEquals("Товар 0",
+                jdbcTemplate.queryForObject("SELECT name FROM product WHERE id = ?", String.class, productId));
+    }
+
+    /**
+     * Проверяет изменение профиля пользователя
+     *
+     * Ожидается одно обращение: изменение без предварительного чтения, а пользователь
+     * с прежним адресом электронной почты удален из кэша аутентификации
+     */
+    @Test
+    void updateUserTest() throws Exception {
+        mockMvc.perform(patch("/api/users/" + userId,
+                        "{\"login\":\"budget2\",\"email\":\"budget2@buy-sell-store.ru\",\"city\":\"Москва\"}")
+                        .session(session))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(1));
+        Assertions.assertNull(userDetailsCache.get(EMAIL));
+        Assertions.assertEquals("budget2", userDetailsCache.get("budget2@buy-sell-store.ru").getLogin());
+    }
+
+    private static MockHttpServletRequestBuilder login() {
+        return post("/api/auth/login",
+                "{\"email\":\"%s\",\"password\":\"%s\"}".formatted(EMAIL, PASSWORD));
+    }
+
+    private static MockHttpServletRequestBuilder post(String url, String json) {
+        return MockMvcRequestBuilders.post(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+    }
+
+    private static MockHttpServletRequestBuilder patch(String url, String json) {
+        return MockMvcRequestBuilders.patch(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+    }
+}
@@ -3,24 +3,34 @@ package ru.project.buySellStore.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import ru.project.buySellStore.dto.UserDTO;
 import ru.project.buySellStore.exception.userEx.UserNotFoundException;
+import ru.project.buySellStore.exception.userEx.UserVersionMismatchException;
 import ru.project.buySellStore.mapper.UserMapper;
+import ru.project.buySellStore.model.Role;
 import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.security.TokenPrincipal;
+import ru.project.buySellStore.security.TokenService;
 import ru.project.buySellStore.service.impl.AuthServiceImpl;
 import ru.project.buySellStore.service.impl.UserServiceImpl;
 
+import java.time.Instant;
 import java.util.Date;
+import java.util.Map;
 
 /**
  * Тест для методов класса {@link UserController}
@@ -79,6 +89,25 @@ class UserControllerTest {
                 .getUserById(1L);
     }
 
+    /**
+     * <b>Проверяет повторное получение неизменившегося профиля</b>
+     * <p>Ожидается - статус 304 NOT MODIFIED без тела</p>
+     */
+    @Test
+    void testGetUserNotModified() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setVersion(2);
+        Mockito.when(userService.getUserById(1L))
+                .thenReturn(user);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/users/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        Mockito.verifyNoInteractions(userMapper);
+    }
+
     /**
      * <b>Проверяет получение пользователя по несуществующему id.</b>
      * <p>Ожидается - возвращение соответствующей ошибки</p>
@@ -100,7 +129,7 @@ class UserControllerTest {
 
     /**
      * <b>Проверяет корректность ответа при обновлении существующего пользователя</b>
-     * <p>Ожидается, что тело ответа содержит 'Ваш профиль изменен!'</p>
+     * <p>Ожидается, что тело ответа содержит 'Ваш профиль изменен!', а пользователь в сессии обновлен</p>
      */
     @Test
     void testUpdate() throws Exception {
@@ -111,9 +140,6 @@ class UserControllerTest {
                 "Ekaterinburg",
                 "Небольшое описание");
 
-        Mockito.when(userService.getUserById(1L))
-                        .thenReturn(new User());
-
         mockMvc.perform(MockMvcRequestBuilders.patch("/api/users/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(userDTO)))
@@ -121,7 +147,31 @@ class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.content().string("Ваш профиль изменен!"));
 
         Mockito.verify(userService, Mockito.times(1))
-                .save(Mockito.any(User.class));
+                .update(Mockito.eq(1L), Mockito.any(UserDTO.class), Mockito.isNull());
+        Mockito.verify(authService)
+                .updatePrincipal(Mockito.eq(1L), Mockito.eq("user@mail.com"), Mockito.eq("user"), Mockito.any());
+    }
+
+    /**
+     * <b>Проверяет обновление профиля с If-Match, не совпадающим с версией профиля</b>
+     * <p>Ожидается - статус 412 PRECONDITION FAILED</p>
+     */
+    @Test
+    void testUpdateWithStaleIfMatch() throws Exception {
+        UserDTO userDTO = new UserDTO(
+                "user",
+                "user@mail.com",
+                new Date(),
+                "Ekaterinburg",
+                "Небольшое описание");
+        Mockito.doThrow(new UserVersionMismatchException(1L))
+                .when(userService).update(Mockito.eq(1L), Mockito.any(UserDTO.class), Mockito.eq(2L));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/users/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDTO)))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
     }
 
     /**
@@ -142,4 +192,27 @@ class UserControllerTest {
         Mockito.verify(userService)
                 .delete(userId);
     }
-}
\ No newline at end of file
+
+    /**
+     * <b>Проверяет удаление пользователя в режиме токенов</b>
+     * <p>Ожидается, что токен запроса отозван, а сессия не создана</p>
+     */
+    @Test
+    void deleteTokenModeTest() throws Exception {
+        TokenService tokenService = Mockito.mock(TokenService.class);
+        UserController controller = new UserController(userService, userMapper, authService,
+                new StaticListableBeanFactory(Map.of("tokenService", tokenService))
+                        .getBeanProvider(TokenService.class));
+        TokenPrincipal principal = new TokenPrincipal(1L, Role.BUYER, "token-id", Instant.now(), Instant.now());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        Assertions.assertEquals("Профиль пользователя удален!", controller.delete(1L, request, principal));
+
+        Mockito.verify(tokenService)
+                .revoke(principal);
+        Mockito.verify(userService)
+                .delete(1L);
+        Mockito.verifyNoInteractions(authService);
+        Assertions.assertNull(request.getSession(false));
+    }
+}
@@ -0,0 +1,99 @@
+package ru.project.buySellStore.exception.handler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.project.buySellStore.dto.ErrorDTO;
+import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
+import ru.project.buySellStore.exception.securityEx.InvalidTokenException;
+import ru.project.buySellStore.exception.securityEx.PasswordHashingRejectedException;
+
+/**
+ * Тесты для глобального обработчика исключений
+ */
+class GlobalExceptionHandlerTest {
+
+    private MeterRegistry meterRegistry;
+
+    private GlobalExceptionHandler globalExceptionHandler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        globalExceptionHandler = new GlobalExceptionHandler(meterRegistry);
+    }
+
+    /**
+     * Проверяет обработку отсутствующего товара
+     *
+     * Ожидается ответ 404 с сообщением исключения и учет исключения в счетчике по типу и коду ответа
+     */
+    @Test
+    void handleNotFoundExTest() {
+        globalExceptionHandler.handleNotFoundEx(new ProductNotFoundException(1L));
+        ResponseEntity<ErrorDTO> response = globalExceptionHandler.handleNotFoundEx(new ProductNotFoundException(2L));
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        Assertions.assertEquals("Товар с id = 2 не найден", response.getBody().getMessage());
+        Assertions.assertEquals(2, meterRegistry.get(GlobalExceptionHandler.EXCEPTIONS_METRIC)
+                .tag("exception", "ProductNotFoundException")
+                .tag("status", "404")
+                .counter().count());
+    }
+
+    /**
+     * Проверяет обработку неожиданной ошибки
+     *
+     * Ожидается ответ 500 и отдельный счетчик для типа исключения
+     */
+    @Test
+    void handleInternalServerExTest() {
+        ResponseEntity<ErrorDTO> response = globalExceptionHandler.handleInternalServerEx(
+                new IllegalStateException("Ошибка"));
+
+        Assertions.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        Assertions.assertEquals(1, meterRegistry.get(GlobalExceptionHandler.EXCEPTIONS_METRIC)
+                .tag("exception", "IllegalStateException")
+                .tag("status", "500")
+                .counter().count());
+    }
+
+    /**
+     * Проверяет обработку заполненной очереди хеширования паролей
+     *
+     * Ожидается ответ 503 с заголовком Retry-After
+     */
+    @Test
+    void handlePasswordHashingRejectedExTest() {
+        ResponseEntity<ErrorDTO> response = globalExceptionHandler.handlePasswordHashingRejectedEx(
+                new PasswordHashingRejectedException());
+
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        Assertions.assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assertions.assertEquals(1, meterRegistry.get(GlobalExceptionHandler.EXCEPTIONS_METRIC)
+                .tag("exception", "PasswordHashingRejectedException")
+                .tag("status", "503")
+                .counter().count());
+    }
+
+    /**
+     * Проверяет обработку недействительного токена при обновлении
+     *
+     * Ожидается ответ 401 с заголовком WWW-Authenticate
+     */
+    @Test
+    void handleInvalidTokenExTest() {
+        ResponseEntity<ErrorDTO> response = globalExceptionHandler.handleInvalidTokenEx(
+                new InvalidTokenException("Недействительный токен"));
+
+        Assertions.assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        Assertions.assertEquals("Bearer error=\"invalid_token\"",
+                response.getHeaders().getFirst(HttpHeaders.WWW_AUTHENTICATE));
+        Assertions.assertEquals("Недействительный токен", response.getBody().getMessage());
+    }
+}
@@ -0,0 +1,173 @@
+package ru.project.buySellStore.load;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.project.buySellStore.BuySellStoreApplication;
+import ru.project.buySellStore.dto.ProductImportResultDTO;
+import ru.project.buySellStore.service.ProductImportService;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <b>Нагрузочный тест всего HTTP-стека на встроенном PostgreSQL.</b>
+ * <p>
+ *     Запускает PostgreSQL и приложение со схемой из миграций, создает товары и пользователей,
+ *     затем для каждого соотношения сценариев ({@link ScenarioMix}) дает нагрузку для прогрева
+ *     и измеряемую нагрузку. По каждому сценарию выводятся частота запросов и перцентили задержки,
+ *     а распределения HdrHistogram записываются в файлы {@code .hgrm}. Тест не проходит,
+ *     если хотя бы один запрос завершился ошибкой.
+ * </p>
+ * <p>
+ *     Запускается только при {@code LOAD_TEST=true}, например:
+ *     {@code LOAD_TEST=true LOAD_CONCURRENCY=100 mvn test -Dtest=EndToEndLoadTest}.
+ *     Встроенный PostgreSQL нельзя запустить от имени root. Параметры задаются переменными окружения:
+ * </p>
+ * <ul>
+ *     <li>{@code LOAD_CONCURRENCY} - одновременных запросов, по умолчанию {@value #DEFAULT_CONCURRENCY}</li>
+ *     <li>{@code LOAD_WARMUP}, {@code LOAD_DURATION} - прогрев и измерение в формате ISO-8601,
+ *     по умолчанию {@value #DEFAULT_WARMUP} и {@value #DEFAULT_DURATION}</li>
+ *     <li>{@code LOAD_MIXES} - соотношения сценариев через запятую, по умолчанию все</li>
+ *     <li>{@code LOAD_PRODUCTS}, {@code LOAD_USERS} - количество товаров и пользователей,
+ *     по умолчанию {@value #DEFAULT_PRODUCTS} и {@value #DEFAULT_USERS}</li>
+ *     <li>{@code LOAD_REPORT_DIR} - каталог отчетов, по умолчанию {@value #DEFAULT_REPORT_DIR}</li>
+ * </ul>
+ * <p>
+ *     Свойства приложения можно переопределить системными свойствами JVM, например
+ *     {@code -Dspring.threads.virtual.enabled=true} в {@code argLine}
+ * </p>
+ */
+@EnabledIfEnvironmentVariable(named = "LOAD_TEST", matches = "true")
+class EndToEndLoadTest {
+
+    private static final int DEFAULT_CONCURRENCY = 50;
+
+    private static final String DEFAULT_WARMUP = "PT15S";
+
+    private static final String DEFAULT_DURATION = "PT60S";
+
+    private static final int DEFAULT_PRODUCTS = 10_000;
+
+    private static final int DEFAULT_USERS = 20;
+
+    private static final String DEFAULT_REPORT_DIR = "target/load-reports";
+
+    private static final String PASSWORD = "Load_test1";
+
+    /**
+     * Нагружает приложение каждым соотношением сценариев
+     *
+     * Ожидается, что все запросы завершены без ошибок, а конфликты допустимы только при одновременном изменении
+     */
+    @Test
+    void runScenarios() throws Exception {
+        int concurrency = Integer.parseInt(env("LOAD_CONCURRENCY", "" + DEFAULT_CONCURRENCY));
+        Duration warmup = Duration.parse(env("LOAD_WARMUP", DEFAULT_WARMUP));
+        Duration duration = Duration.parse(env("LOAD_DURATION", DEFAULT_DURATION));
+        List<ScenarioMix> mixes = Arrays.stream(env("LOAD_MIXES", "READ_HEAVY,WRITE_HEAVY").split(","))
+                .map(mix -> ScenarioMix.valueOf(mix.trim()))
+                .toList();
+        Path reportDirectory = Path.of(env("LOAD_REPORT_DIR", DEFAULT_REPORT_DIR));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(BuySellStoreApplication.class)
+                     .run("--server.port=0",
+                             "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                             "--spring.datasource.username=postgres",
+                             "--spring.datasource.password=",
+                             "--buy-sell-store.rate-limit.enabled=false",
+                             "--logging.level.root=WARN")) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            LoadTarget target = new LoadTarget(baseUrl,
+                    seedProducts(context, Integer.parseInt(env("LOAD_PRODUCTS", "" + DEFAULT_PRODUCTS))),
+                    seedAccounts(context, client, baseUrl, Integer.parseInt(env("LOAD_USERS", "" + DEFAULT_USERS))));
+            LoadGenerator generator = new LoadGenerator(client, target, concurrency);
+
+            System.out.printf("Товаров: %d, пользователей: %d, одновременных запросов: %d%n",
+                    target.productIds().length, target.accounts().size(), concurrency);
+            for (ScenarioMix mix : mixes) {
+                generator.run(mix, warmup);
+                LoadReport report = generator.run(mix, duration);
+                report.print(System.out);
+                report.write(reportDirectory).forEach(file -> System.out.println("Распределение: " + file));
+                Assertions.assertEquals(0, report.errors(), () -> mix + ": " + report.errorSamples());
+            }
+        }
+    }
+
+    /**
+     * Создать товары загрузкой CSV-файла
+     * @return id созданных товаров
+     */
+    private static long[] seedProducts(ConfigurableApplicationContext context, int count) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder csv = new StringBuilder("name,description,category,cost\n");
+        for (int i = 0; i < count; i++) {
+            csv.append("Товар ").append(i).append(",Описание товара ").append(i).append(',')
+                    .append(Scenario.CATEGORIES[i % Scenario.CATEGORIES.length]).append(',')
+                    .append(100 + random.nextInt(100_000)).append('\n');
+        }
+        ProductImportResultDTO result = context.getBean(ProductImportService.class)
+                .importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(count, result.getImported());
+        return new JdbcTemplate(context.getBean(DataSource.class))
+                .queryForList("SELECT id FROM product", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    /**
+     * Зарегистрировать пользователей и открыть для каждого сессию
+     */
+    private static List<LoadTarget.Account> seedAccounts(ConfigurableApplicationContext context, HttpClient client,
+                                                         String baseUrl, int count) throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        List<LoadTarget.Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String login = "load" + i;
+            String email = login + "@buy-sell-store.ru";
+            HttpResponse<Void> register = client.send(post(baseUrl + "/api/auth/register",
+                    "{\"login\":\"%s\",\"email\":\"%s\",\"password\":\"%s\",\"role\":\"SELLER\"}"
+                            .formatted(login, email, PASSWORD)), HttpResponse.BodyHandlers.discarding());
+            Assertions.assertEquals(201, register.statusCode());
+            HttpResponse<Void> session = client.send(post(baseUrl + "/api/auth/login",
+                    "{\"email\":\"%s\",\"password\":\"%s\"}".formatted(email, PASSWORD)),
+                    HttpResponse.BodyHandlers.discarding());
+            Assertions.assertEquals(200, session.statusCode());
+            String sessionCookie = session.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+            long id = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+            accounts.add(new LoadTarget.Account(id, login, email, PASSWORD, sessionCookie));
+        }
+        return accounts;
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String env(String name, String defaultValue) {
+        return System.getenv().getOrDefault(name, defaultValue);
+    }
+}
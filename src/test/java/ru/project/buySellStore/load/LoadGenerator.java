@@ -0,0 +1,66 @@
+package ru.project.buySellStore.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <b>Генератор нагрузки с постоянным числом запросов в работе.</b>
+ * <p>
+ *     Следующий запрос отправляется, как только завершается один из предыдущих,
+ *     поэтому задержка измеряется при заданной конкуренции, а не при заданной частоте:
+ *     при замедлении приложения снижается частота запросов, а не растет очередь
+ * </p>
+ */
+class LoadGenerator {
+
+    private final HttpClient client;
+
+    private final LoadTarget target;
+
+    private final int concurrency;
+
+    /**
+     * Создание генератора
+     * @param client HTTP-клиент, через который отправляются запросы
+     * @param target приложение и данные для запросов
+     * @param concurrency количество одновременных запросов
+     */
+    LoadGenerator(HttpClient client, LoadTarget target, int concurrency) {
+        this.client = client;
+        this.target = target;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Отправлять запросы в заданном соотношении в течение заданного времени
+     * и дождаться завершения отправленных
+     * @param mix соотношение сценариев
+     * @param duration продолжительность нагрузки
+     * @return задержки и ошибки по сценариям
+     */
+    LoadReport run(ScenarioMix mix, Duration duration) throws InterruptedException {
+        LoadReport report = new LoadReport(mix);
+        Semaphore inFlight = new Semaphore(concurrency);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        while (System.nanoTime() < end) {
+            inFlight.acquire();
+            Scenario scenario = mix.next(random);
+            HttpRequest request = scenario.request(target, random);
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                report.record(scenario, System.nanoTime() - sent,
+                        error == null ? response.statusCode() : -1, error);
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+}
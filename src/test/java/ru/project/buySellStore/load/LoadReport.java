@@ -0,0 +1,168 @@
+package ru.project.buySellStore.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <b>Результат нагрузки: гистограммы задержек HdrHistogram, ошибки и конфликты по сценариям.</b>
+ * <p>
+ *     Задержки хранятся в микросекундах с точностью до трех значащих цифр. Распределения
+ *     записываются в файлы {@code .hgrm}, которые можно сравнивать между версиями,
+ *     например в HdrHistogram Plotter
+ * </p>
+ */
+class LoadReport {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final int MAX_ERROR_SAMPLES = 10;
+
+    private final ScenarioMix mix;
+
+    private final Map<Scenario, ScenarioStats> stats = new EnumMap<>(Scenario.class);
+
+    private final Queue<String> errorSamples = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger errorSampleCount = new AtomicInteger();
+
+    private long elapsedNanos;
+
+    LoadReport(ScenarioMix mix) {
+        this.mix = mix;
+        for (Scenario scenario : Scenario.values()) {
+            stats.put(scenario, new ScenarioStats());
+        }
+    }
+
+    /**
+     * Учесть завершенный запрос
+     * @param status код ответа или -1, если ответ не получен
+     * @param error ошибка отправки или {@code null}
+     */
+    void record(Scenario scenario, long latencyNanos, int status, Throwable error) {
+        ScenarioStats scenarioStats = stats.get(scenario);
+        scenarioStats.latency.recordValue(Math.min(
+                TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY_MICROS));
+        if (status == 200) {
+            return;
+        }
+        if (status == 409 && scenario.conflictAllowed()) {
+            scenarioStats.conflicts.incrementAndGet();
+            return;
+        }
+        scenarioStats.errors.incrementAndGet();
+        if (errorSampleCount.getAndIncrement() < MAX_ERROR_SAMPLES) {
+            errorSamples.add(scenario.endpoint() + ": " + (error == null ? "статус " + status : error.toString()));
+        }
+    }
+
+    /**
+     * Завершить нагрузку
+     * @param elapsedNanos продолжительность нагрузки вместе с ожиданием последних ответов
+     */
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Получить количество ошибок по всем сценариям
+     */
+    long errors() {
+        return stats.values().stream().mapToLong(scenarioStats -> scenarioStats.errors.get()).sum();
+    }
+
+    /**
+     * Получить примеры ошибок, не более {@value #MAX_ERROR_SAMPLES}
+     */
+    List<String> errorSamples() {
+        return List.copyOf(errorSamples);
+    }
+
+    /**
+     * Вывести таблицу с частотой запросов и перцентилями задержки в миллисекундах
+     */
+    void print(PrintStream out) {
+        out.printf("%nНагрузка %s, %.1f с%n", mix, elapsedNanos / 1e9);
+        out.printf("%-26s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n", "сценарий", "запросов", "запр/с",
+                "ошибки", "конфликты", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<Scenario, ScenarioStats> entry : stats.entrySet()) {
+            ScenarioStats scenarioStats = entry.getValue();
+            printRow(out, entry.getKey().endpoint(), scenarioStats.latency,
+                    scenarioStats.errors.get(), scenarioStats.conflicts.get());
+        }
+        printRow(out, "всего", total(), errors(),
+                stats.values().stream().mapToLong(scenarioStats -> scenarioStats.conflicts.get()).sum());
+        errorSamples.forEach(sample -> out.println("ошибка: " + sample));
+    }
+
+    /**
+     * Записать распределения задержек в каталог: по файлу на сценарий и общий
+     * @return записанные файлы
+     */
+    List<Path> write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        for (Map.Entry<Scenario, ScenarioStats> entry : stats.entrySet()) {
+            if (entry.getValue().latency.getTotalCount() > 0) {
+                files.add(write(directory, entry.getKey().name(), entry.getValue().latency));
+            }
+        }
+        files.add(write(directory, "TOTAL", total()));
+        return files;
+    }
+
+    private Path write(Path directory, String name, Histogram histogram) throws IOException {
+        Path file = directory.resolve(mix.name().toLowerCase() + "-" + name.toLowerCase() + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+        return file;
+    }
+
+    private Histogram total() {
+        Histogram total = new Histogram(HIGHEST_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+        stats.values().forEach(scenarioStats -> total.add(scenarioStats.latency));
+        return total;
+    }
+
+    private void printRow(PrintStream out, String name, Histogram latency, long errors, long conflicts) {
+        long count = latency.getTotalCount();
+        if (count == 0) {
+            return;
+        }
+        out.printf("%-26s %9d %8.0f %8d %9d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, count,
+                count * 1e9 / elapsedNanos, errors, conflicts,
+                millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                millis(latency.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class ScenarioStats {
+
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private final AtomicLong conflicts = new AtomicLong();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.project.buySellStore.load;
+
+import java.util.List;
+
+/**
+ * Запущенное приложение и данные, созданные для нагрузки
+ * @param baseUrl адрес приложения, например {@code http://localhost:8080}
+ * @param productIds id созданных товаров
+ * @param accounts зарегистрированные пользователи с открытыми сессиями
+ */
+record LoadTarget(String baseUrl, long[] productIds, List<Account> accounts) {
+
+    /**
+     * Пользователь, от имени которого отправляются запросы
+     * @param id id пользователя
+     * @param login логин
+     * @param email адрес электронной почты, используется для входа
+     * @param password пароль
+     * @param sessionCookie cookie сессии после входа, например {@code JSESSIONID=...}
+     */
+    record Account(long id, String login, String email, String password, String sessionCookie) {
+    }
+}
@@ -0,0 +1,133 @@
+package ru.project.buySellStore.load;
+
+import ru.project.buySellStore.dto.ProductSort;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Виды запросов, из которых составляется нагрузка
+ */
+enum Scenario {
+
+    /**
+     * Вход случайного пользователя: проверка пароля BCrypt и создание сессии
+     */
+    LOGIN("POST /api/auth/login", false) {
+        @Override
+        HttpRequest request(LoadTarget target, ThreadLocalRandom random) {
+            LoadTarget.Account account = account(target, random);
+            return json(target.baseUrl() + "/api/auth/login", null)
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"%s\",\"password\":\"%s\"}"
+                            .formatted(account.email(), account.password())))
+                    .build();
+        }
+    },
+
+    /**
+     * Первая страница каталога со случайной сортировкой, в половине запросов - с фильтром по категории
+     */
+    LIST_PRODUCTS("GET /api/products", false) {
+        @Override
+        HttpRequest request(LoadTarget target, ThreadLocalRandom random) {
+            ProductSort[] sorts = ProductSort.values();
+            String query = "?limit=20&sort=" + sorts[random.nextInt(sorts.length)]
+                    + (random.nextBoolean() ? "&category=" + CATEGORIES[random.nextInt(CATEGORIES.length)] : "");
+            return HttpRequest.newBuilder(URI.create(target.baseUrl() + "/api/products" + query))
+                    .header("Cookie", account(target, random).sessionCookie())
+                    .build();
+        }
+    },
+
+    /**
+     * Случайный товар по id
+     */
+    GET_PRODUCT("GET /api/products/{id}", false) {
+        @Override
+        HttpRequest request(LoadTarget target, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(URI.create(target.baseUrl() + "/api/products/" + product(target, random)))
+                    .header("Cookie", account(target, random).sessionCookie())
+                    .build();
+        }
+    },
+
+    /**
+     * Изменение случайного товара без If-Match. Одновременное изменение одного товара
+     * завершается 409 CONFLICT, что считается конфликтом, а не ошибкой
+     */
+    UPDATE_PRODUCT("PATCH /api/products/{id}", true) {
+        @Override
+        HttpRequest request(LoadTarget target, ThreadLocalRandom random) {
+            long id = product(target, random);
+            return json(target.baseUrl() + "/api/products/" + id, account(target, random))
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"Товар %d\",\"description\":\"Описание товара %d\",\"cost\":%d}"
+                                    .formatted(id, random.nextInt(1000), 100 + random.nextInt(100_000))))
+                    .build();
+        }
+    },
+
+    /**
+     * Изменение своего профиля случайным пользователем
+     */
+    UPDATE_USER("PATCH /api/users/{id}", true) {
+        @Override
+        HttpRequest request(LoadTarget target, ThreadLocalRandom random) {
+            LoadTarget.Account account = account(target, random);
+            return json(target.baseUrl() + "/api/users/" + account.id(), account)
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                            "{\"login\":\"%s\",\"email\":\"%s\",\"city\":\"Город %d\",\"description\":\"Описание %d\"}"
+                                    .formatted(account.login(), account.email(),
+                                            random.nextInt(100), random.nextInt(1000))))
+                    .build();
+        }
+    };
+
+    /**
+     * Категории создаваемых товаров
+     */
+    static final String[] CATEGORIES = {"CLOTHES", "SHOES", "ELECTRONICS", "BOOKS", "SPORT"};
+
+    private final String endpoint;
+
+    private final boolean conflictAllowed;
+
+    Scenario(String endpoint, boolean conflictAllowed) {
+        this.endpoint = endpoint;
+        this.conflictAllowed = conflictAllowed;
+    }
+
+    /**
+     * Создать очередной запрос сценария
+     */
+    abstract HttpRequest request(LoadTarget target, ThreadLocalRandom random);
+
+    /**
+     * Получить метод и путь запроса для отчета
+     */
+    String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Узнать, допустим ли ответ 409 CONFLICT из-за одновременного изменения
+     */
+    boolean conflictAllowed() {
+        return conflictAllowed;
+    }
+
+    private static LoadTarget.Account account(LoadTarget target, ThreadLocalRandom random) {
+        return target.accounts().get(random.nextInt(target.accounts().size()));
+    }
+
+    private static long product(LoadTarget target, ThreadLocalRandom random) {
+        return target.productIds()[random.nextInt(target.productIds().length)];
+    }
+
+    private static HttpRequest.Builder json(String url, LoadTarget.Account account) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json");
+        return account == null ? builder : builder.header("Cookie", account.sessionCookie());
+    }
+}
@@ -0,0 +1,45 @@
+package ru.project.buySellStore.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Соотношение сценариев в нагрузке. Веса задаются в порядке {@link Scenario}
+ */
+enum ScenarioMix {
+
+    /**
+     * Типичная витрина: в основном просмотр каталога и товаров
+     */
+    READ_HEAVY(2, 38, 55, 4, 1),
+
+    /**
+     * Массовое редактирование: почти половина запросов изменяет данные
+     */
+    WRITE_HEAVY(5, 20, 30, 35, 10);
+
+    private final int[] cumulativeWeights;
+
+    ScenarioMix(int... weights) {
+        if (weights.length != Scenario.values().length) {
+            throw new IllegalArgumentException("Ожидается вес для каждого сценария");
+        }
+        cumulativeWeights = new int[weights.length];
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    /**
+     * Выбрать случайный сценарий с учетом весов
+     */
+    Scenario next(ThreadLocalRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (value >= cumulativeWeights[i]) {
+            i++;
+        }
+        return Scenario.values()[i];
+    }
+}
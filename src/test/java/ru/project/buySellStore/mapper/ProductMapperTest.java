@@ -33,4 +33,22 @@ class ProductMapperTest {
         Assertions.assertEquals(product.getCategory(), dto.getCategory());
         Assertions.assertEquals(product.getCost(), dto.getCost());
     }
-}
\ No newline at end of file
+
+    /**
+     * Проверяет корректность преобразования ProductDTO в новую сущность Product
+     */
+    @Test
+    void toEntity_fromProductDTO() {
+        ProductMapper productMapper = new ProductMapper();
+        ProductDTO dto = new ProductDTO(5L, "Футболка Puma", "Комфортная", "CLOTHES", 2799);
+
+        Product product = productMapper.toEntity(dto);
+
+        Assertions.assertEquals(0, product.getId());
+        Assertions.assertEquals(dto.getName(), product.getName());
+        Assertions.assertEquals(dto.getDescription(), product.getDescription());
+        Assertions.assertEquals(dto.getCategory(), product.getCategory());
+        Assertions.assertEquals(dto.getCost(), product.getCost());
+        Assertions.assertFalse(product.isArchived());
+    }
+}
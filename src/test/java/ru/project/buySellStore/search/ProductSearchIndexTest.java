@@ -0,0 +1,185 @@
+package ru.project.buySellStore.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.scheduling.TaskScheduler;
+import ru.project.buySellStore.dto.SearchIndexStatsDTO;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductSnapshot;
+import ru.project.buySellStore.event.ProductsImportedEvent;
+import ru.project.buySellStore.model.Product;
+import ru.project.buySellStore.service.ProductService;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Тесты для встроенного поискового индекса товаров
+ */
+class ProductSearchIndexTest {
+
+    private ProductService productService;
+
+    private TaskScheduler taskScheduler;
+
+    private ProductSearchIndex index;
+
+    /**
+     * Заполнение индекса тестовыми товарами
+     */
+    @BeforeEach
+    void setUp() {
+        productService = Mockito.mock(ProductService.class);
+        taskScheduler = Mockito.mock(TaskScheduler.class);
+        index = new ProductSearchIndex(productService, taskScheduler);
+        index.index(new ProductSnapshot(1L, "Футболка Puma", "Хлопковая футболка", "CLOTHES", 2799, 0));
+        index.index(new ProductSnapshot(2L, "Кроссовки Puma", "Беговые", "SHOES", 8999, 0));
+        index.index(new ProductSnapshot(3L, "Телефон", "Смартфон с большим экраном", "ELECTRONICS", 29999, 0));
+    }
+
+    /**
+     * Проверяет поиск с оператором AND
+     *
+     * Ожидается, что найдены только товары, содержащие все термины
+     */
+    @Test
+    void searchAndTest() {
+        Assertions.assertEquals(List.of(1L), ids(index.search("puma футболка", SearchOperator.AND, 10)));
+    }
+
+    /**
+     * Проверяет поиск с оператором OR
+     *
+     * Ожидается, что найдены товары, содержащие хотя бы один термин, в порядке возрастания id
+     */
+    @Test
+    void searchOrTest() {
+        Assertions.assertEquals(List.of(1L, 3L), ids(index.search("футболка смартфон", SearchOperator.OR, 10)));
+    }
+
+    /**
+     * Проверяет поиск по префиксу
+     *
+     * Ожидается, что префикс совпадает со всеми терминами, которые с него начинаются
+     */
+    @Test
+    void searchPrefixTest() {
+        Assertions.assertEquals(List.of(1L, 2L), ids(index.search("PU*", SearchOperator.AND, 10)));
+        Assertions.assertEquals(List.of(2L), ids(index.search("pu* бег*", SearchOperator.AND, 10)));
+    }
+
+    /**
+     * Проверяет ограничение количества результатов
+     */
+    @Test
+    void searchLimitTest() {
+        Assertions.assertEquals(List.of(1L), ids(index.search("puma", SearchOperator.OR, 1)));
+    }
+
+    /**
+     * Проверяет обновление индекса по событиям изменения товаров
+     *
+     * Ожидается, что архивированный товар пропадет из результатов,
+     * а измененный будет находиться по новым терминам вместо старых
+     */
+    @Test
+    void onProductChangedTest() {
+        index.onProductChanged(new ProductChangedEvent(1L,
+                new ProductSnapshot(1L, "Футболка Puma", "Хлопковая футболка", "CLOTHES", 2799, 0), null));
+        index.onProductChanged(new ProductChangedEvent(2L,
+                new ProductSnapshot(2L, "Кроссовки Puma", "Беговые", "SHOES", 8999, 0),
+                new ProductSnapshot(2L, "Кеды Nike", "Беговые", "SHOES", 6999, 0)));
+
+        Assertions.assertEquals(List.of(), ids(index.search("puma", SearchOperator.OR, 10)));
+        Assertions.assertEquals(List.of(2L), ids(index.search("nike", SearchOperator.AND, 10)));
+    }
+
+    /**
+     * Проверяет статистику индекса
+     *
+     * Ожидается, что учтены все товары, а удаленные термины не занимают память
+     */
+    @Test
+    void statsTest() {
+        SearchIndexStatsDTO before = index.stats();
+        index.remove(3L);
+        SearchIndexStatsDTO after = index.stats();
+
+        Assertions.assertEquals(3, before.getDocuments());
+        Assertions.assertEquals(2, after.getDocuments());
+        Assertions.assertTrue(after.getTerms() < before.getTerms());
+        Assertions.assertTrue(after.getEstimatedBytes() < before.getEstimatedBytes());
+    }
+
+    /**
+     * Проверяет индексирование после массовой загрузки товаров
+     *
+     * Ожидается, что индексирование запланировано в планировщике, читаются товары начиная
+     * с первого загруженного, а добавлены только те, которых не было в индексе
+     */
+    @Test
+    void onProductsImportedTest() {
+        Mockito.when(taskScheduler.schedule(Mockito.any(Runnable.class), Mockito.any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(0).run();
+                    return null;
+                });
+        Mockito.doAnswer(invocation -> {
+            Consumer<Product> action = invocation.getArgument(1);
+            action.accept(product(1L, "Другое название"));
+            action.accept(product(4L, "Куртка Puma"));
+            return null;
+        }).when(productService).forEachActive(Mockito.eq(1L), Mockito.any());
+
+        index.onProductsImported(new ProductsImportedEvent(1, 1L));
+
+        Assertions.assertEquals(List.of(1L, 2L, 4L), ids(index.search("puma", SearchOperator.OR, 10)));
+        Assertions.assertTrue(index.search("другое", SearchOperator.OR, 10).isEmpty());
+        Assertions.assertEquals(4, index.stats().getDocuments());
+    }
+
+    /**
+     * Проверяет изменения товаров во время построения индекса
+     *
+     * Ожидается, что строки, прочитанные до удаления или изменения товара,
+     * не возвращают удаленный товар и не заменяют новую версию
+     */
+    @Test
+    void buildConcurrentChangesTest() {
+        ProductSearchIndex building = new ProductSearchIndex(productService, taskScheduler);
+        Mockito.doAnswer(invocation -> {
+            Consumer<Product> action = invocation.getArgument(0);
+            building.onProductChanged(new ProductChangedEvent(1L, null, null));
+            building.onProductChanged(new ProductChangedEvent(2L, null,
+                    new ProductSnapshot(2L, "Кеды Nike", "Беговые", "SHOES", 8999, 1)));
+            action.accept(product(1L, "Футболка Puma"));
+            action.accept(product(2L, "Кроссовки Puma"));
+            action.accept(product(3L, "Куртка Puma"));
+            return null;
+        }).when(productService).forEachActive(Mockito.any());
+
+        building.build();
+        building.onProductChanged(new ProductChangedEvent(1L, null,
+                new ProductSnapshot(1L, "Футболка Puma", "description", "CLOTHES", 1000, 2)));
+
+        Assertions.assertEquals(List.of(1L, 3L), ids(building.search("puma", SearchOperator.OR, 10)));
+        Assertions.assertEquals(List.of(2L), ids(building.search("nike", SearchOperator.OR, 10)));
+    }
+
+    private static Product product(long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription("description");
+        product.setCategory("CLOTHES");
+        product.setCost(1000);
+        return product;
+    }
+
+    private static List<Long> ids(List<ProductSnapshot> products) {
+        return products.stream().map(ProductSnapshot::getId).toList();
+    }
+}
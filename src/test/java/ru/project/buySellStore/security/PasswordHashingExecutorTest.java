@@ -0,0 +1,76 @@
+package ru.project.buySellStore.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.project.buySellStore.exception.securityEx.PasswordHashingRejectedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тесты для пула хеширования паролей
+ */
+class PasswordHashingExecutorTest {
+
+    private MeterRegistry meterRegistry;
+
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(1, 1);
+        executor.bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    /**
+     * Проверяет выполнение задачи
+     *
+     * Ожидается результат задачи, а ее исключение передается вызывающему потоку
+     */
+    @Test
+    void executeTest() {
+        Assertions.assertEquals("hash", executor.execute(() -> "hash"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            throw new IllegalArgumentException("Неверный хеш");
+        }));
+    }
+
+    /**
+     * Проверяет задачу, когда поток занят, а очередь заполнена
+     *
+     * Ожидается немедленное отклонение, учет в счетчике и длина очереди в метриках пула
+     */
+    @Test
+    void executeRejectedTest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> "hash"));
+        while (meterRegistry.get("executor.queued").tag("name", PasswordHashingExecutor.NAME).gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        Assertions.assertThrows(PasswordHashingRejectedException.class, () -> executor.execute(() -> "hash"));
+        Assertions.assertEquals(1, meterRegistry.get(PasswordHashingExecutor.REJECTED_METRIC)
+                .functionCounter().count());
+
+        release.countDown();
+        Assertions.assertTrue(running.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,151 @@
+package ru.project.buySellStore.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import ru.project.buySellStore.model.User;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Тесты для фильтра ограничения количества запросов
+ */
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimiter rateLimiter = new RateLimiter(List.of(new RateLimitRule("auth",
+                PathPatternRequestMatcher.withDefaults().matcher("/api/auth/**"), 2, Duration.ofMinutes(1))));
+        filter = new RateLimitFilter(rateLimiter, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Проверяет запросы одного IP-адреса сверх ограничения
+     *
+     * Ожидается, что принятые запросы содержат заголовки RateLimit-*, а лишний запрос
+     * отклонен с кодом 429, Retry-After и сообщением об ошибке без передачи дальше по цепочке
+     */
+    @Test
+    void doFilterRejectedTest() throws Exception {
+        MockHttpServletResponse first = perform("127.0.0.1");
+        Assertions.assertEquals(200, first.getStatus());
+        Assertions.assertEquals("2", first.getHeader(RateLimitFilter.LIMIT_HEADER));
+        Assertions.assertEquals("1", first.getHeader(RateLimitFilter.REMAINING_HEADER));
+        Assertions.assertEquals("30", first.getHeader(RateLimitFilter.RESET_HEADER));
+        perform("127.0.0.1");
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("127.0.0.1"), rejected, chain);
+
+        Assertions.assertEquals(429, rejected.getStatus());
+        Assertions.assertEquals("0", rejected.getHeader(RateLimitFilter.REMAINING_HEADER));
+        Assertions.assertEquals("30", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        Assertions.assertEquals("{\"message\":\"Слишком много запросов, повторите попытку позже\"}",
+                rejected.getContentAsString());
+        Assertions.assertNull(chain.getRequest());
+        Assertions.assertEquals(200, perform("10.0.0.1").getStatus());
+    }
+
+    /**
+     * Проверяет запросы аутентифицированного пользователя с разных IP-адресов
+     *
+     * Ожидается, что запросы пользователя учитываются вместе, с какого бы IP-адреса они ни пришли
+     */
+    @Test
+    void doFilterAuthenticatedTest() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("buyer@mail.com", null, List.of()));
+
+        perform("127.0.0.1");
+        perform("10.0.0.1");
+
+        Assertions.assertEquals(429, perform("10.0.0.2").getStatus());
+    }
+
+    /**
+     * Проверяет запросы пользователя до и после изменения email в профиле
+     *
+     * Ожидается, что запросы учитываются по id пользователя, поэтому смена email не сбрасывает ограничение
+     */
+    @Test
+    void doFilterChangedEmailTest() throws Exception {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("buyer@mail.com");
+        SessionPrincipal principal = new SessionPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, List.of()));
+        perform("127.0.0.1");
+        perform("10.0.0.1");
+
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                principal.withProfile("new@mail.com", null), null, List.of()));
+
+        Assertions.assertEquals(429, perform("10.0.0.2").getStatus());
+    }
+
+    /**
+     * Проверяет запросы разных пользователей с одного IP-адреса
+     *
+     * Ожидается, что запросы учитываются и по IP-адресу, поэтому второй аккаунт не добавляет запросов
+     */
+    @Test
+    void doFilterAccountsFromOneAddressTest() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("buyer@mail.com", null, List.of()));
+        perform("127.0.0.1");
+        perform("127.0.0.1");
+
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("seller@mail.com", null, List.of()));
+
+        Assertions.assertEquals(429, perform("127.0.0.1").getStatus());
+    }
+
+    /**
+     * Проверяет запрос к маршруту без ограничений
+     *
+     * Ожидается, что запрос передан дальше без заголовков RateLimit-*
+     */
+    @Test
+    void doFilterWithoutRuleTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/prometheus");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        Assertions.assertSame(request, chain.getRequest());
+        Assertions.assertNull(response.getHeader(RateLimitFilter.LIMIT_HEADER));
+    }
+
+    private MockHttpServletResponse perform(String remoteAddr) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(remoteAddr), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+}
@@ -0,0 +1,158 @@
+package ru.project.buySellStore.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Тесты для ограничителя запросов
+ */
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private MeterRegistry meterRegistry;
+
+    private RateLimitRule auth;
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        PathPatternRequestMatcher.Builder path = PathPatternRequestMatcher.withDefaults();
+        auth = new RateLimitRule("auth", path.matcher("/api/auth/**"), 5, Duration.ofSeconds(10));
+        rateLimiter = new RateLimiter(List.of(auth,
+                new RateLimitRule("products", path.matcher(HttpMethod.GET, "/api/products/**"), 100, Duration.ofMinutes(1))));
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter.bindTo(meterRegistry);
+    }
+
+    /**
+     * Проверяет выбор группы по пути и методу запроса
+     *
+     * Ожидается ограничение первой подходящей группы, а для запроса без группы - отсутствие решения
+     */
+    @Test
+    void acquireByRequestTest() {
+        Assertions.assertEquals(5, rateLimiter.acquire(
+                new MockHttpServletRequest("POST", "/api/auth/login"), "ip:127.0.0.1").getLimit());
+        Assertions.assertEquals(100, rateLimiter.acquire(
+                new MockHttpServletRequest("GET", "/api/products"), "ip:127.0.0.1").getLimit());
+        Assertions.assertNull(rateLimiter.acquire(new MockHttpServletRequest("PATCH", "/api/products/1"), "ip:127.0.0.1"));
+    }
+
+    /**
+     * Проверяет серию запросов сверх ограничения и восстановление
+     *
+     * Ожидается, что сразу принимается не больше ограничения, а следующий запрос принимается
+     * через время восстановления одного запроса
+     */
+    @Test
+    void acquireBurstTest() {
+        long now = 1_000 * SECOND;
+        for (int i = 4; i >= 0; i--) {
+            RateLimiter.Decision decision = rateLimiter.acquire(auth, "ip:127.0.0.1", now);
+            Assertions.assertTrue(decision.isAllowed());
+            Assertions.assertEquals(i, decision.getRemaining());
+        }
+
+        RateLimiter.Decision rejected = rateLimiter.acquire(auth, "ip:127.0.0.1", now);
+        Assertions.assertFalse(rejected.isAllowed());
+        Assertions.assertEquals(2 * SECOND, rejected.getRetryAfterNanos());
+        Assertions.assertEquals(10 * SECOND, rejected.getResetNanos());
+        Assertions.assertTrue(rateLimiter.acquire(auth, "ip:10.0.0.1", now).isAllowed());
+        Assertions.assertFalse(rateLimiter.acquire(auth, "ip:127.0.0.1", now + 2 * SECOND - 1).isAllowed());
+        Assertions.assertTrue(rateLimiter.acquire(auth, "ip:127.0.0.1", now + 2 * SECOND).isAllowed());
+        Assertions.assertEquals(2, meterRegistry.get(RateLimiter.REJECTED_METRIC)
+                .tag("group", "auth")
+                .functionCounter().count());
+    }
+
+    /**
+     * Проверяет учет запроса по IP-адресу и пользователю
+     *
+     * Ожидается, что запрос отклоняется, если исчерпано любое ведро, а отклоненный запрос
+     * не расходует ограничение другого ведра
+     */
+    @Test
+    void acquireSeveralSubjectsTest() {
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire(auth, "user:7", now);
+        }
+
+        Assertions.assertFalse(rateLimiter.acquire(auth, List.of("ip:127.0.0.1", "user:7"), now).isAllowed());
+        RateLimiter.Decision decision = rateLimiter.acquire(auth, List.of("ip:127.0.0.1", "user:8"), now);
+        Assertions.assertTrue(decision.isAllowed());
+        Assertions.assertEquals(4, decision.getRemaining());
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.acquire(auth, "ip:127.0.0.1", now);
+        }
+        Assertions.assertFalse(rateLimiter.acquire(auth, List.of("ip:127.0.0.1", "user:9"), now).isAllowed());
+        Assertions.assertEquals(4, rateLimiter.acquire(auth, "user:9", now).getRemaining());
+    }
+
+    /**
+     * Проверяет удаление ведер
+     *
+     * Ожидается, что удаляются только ведра, запросы которых полностью восстановились
+     */
+    @Test
+    void evictIdleTest() {
+        long now = 1_000 * SECOND;
+        rateLimiter.acquire(auth, "ip:127.0.0.1", now);
+        rateLimiter.acquire(auth, "ip:10.0.0.1", now + 5 * SECOND);
+
+        rateLimiter.evictIdle(now + 2 * SECOND - 1);
+        Assertions.assertEquals(2, rateLimiter.size());
+        rateLimiter.evictIdle(now + 2 * SECOND);
+        Assertions.assertEquals(1, rateLimiter.size());
+        Assertions.assertEquals(1.0, meterRegistry.get(RateLimiter.BUCKETS_METRIC).gauge().value());
+    }
+
+    /**
+     * Проверяет одновременные запросы одного клиента
+     *
+     * Ожидается, что принято ровно столько запросов, сколько позволяет ограничение
+     */
+    @Test
+    void acquireConcurrentTest() throws Exception {
+        RateLimitRule rule = new RateLimitRule("api", request -> true, 1_000, Duration.ofDays(1));
+        RateLimiter limiter = new RateLimiter(List.of(rule));
+        AtomicInteger allowed = new AtomicInteger();
+        long now = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = IntStream.range(0, 8)
+                    .<Future<?>>mapToObj(thread -> executor.submit(() -> {
+                        for (int i = 0; i < 500; i++) {
+                            if (limiter.acquire(rule, "user:buyer", now).isAllowed()) {
+                                allowed.incrementAndGet();
+                            }
+                        }
+                    }))
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1_000, allowed.get());
+    }
+}
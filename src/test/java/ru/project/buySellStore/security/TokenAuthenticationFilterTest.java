@@ -0,0 +1,107 @@
+package ru.project.buySellStore.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.project.buySellStore.exception.securityEx.RoleNotAssignedException;
+import ru.project.buySellStore.model.Role;
+import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.repository.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Тесты для фильтра аутентификации по токену
+ */
+class TokenAuthenticationFilterTest {
+
+    private TokenService tokenService;
+
+    private TokenAuthenticationFilter filter;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() throws RoleNotAssignedException {
+        tokenService = new TokenService("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8),
+                Duration.ofMinutes(15), Duration.ofHours(1), Duration.ofHours(12), Clock.systemUTC(),
+                Mockito.mock(UserRepository.class));
+        filter = new TokenAuthenticationFilter(tokenService, new ObjectMapper());
+        User user = new User();
+        user.setId(7L);
+        user.setRole(Role.SELLER);
+        token = tokenService.issue(new SessionPrincipal(user));
+    }
+
+    /**
+     * Проверяет запрос с действующим токеном
+     *
+     * Ожидается, что на время запроса пользователь из токена аутентифицирован, а после запроса контекст очищен
+     */
+    @Test
+    void doFilterValidTokenTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "bearer " + token);
+        AtomicReference<Authentication> authentication = new AtomicReference<>();
+        FilterChain chain = (req, res) ->
+                authentication.set(SecurityContextHolder.getContext().getAuthentication());
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        Assertions.assertTrue(authentication.get().isAuthenticated());
+        TokenPrincipal principal = (TokenPrincipal) authentication.get().getPrincipal();
+        Assertions.assertEquals(7L, principal.getId());
+        Assertions.assertEquals(Role.SELLER, principal.getRole());
+        Assertions.assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * Проверяет запрос с отозванным токеном
+     *
+     * Ожидается ответ 401 с заголовком WWW-Authenticate без передачи дальше по цепочке
+     */
+    @Test
+    void doFilterInvalidTokenTest() throws Exception {
+        tokenService.revoke(tokenService.verify(token));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        Assertions.assertEquals(401, response.getStatus());
+        Assertions.assertEquals("Bearer error=\"invalid_token\"", response.getHeader(HttpHeaders.WWW_AUTHENTICATE));
+        Assertions.assertEquals("{\"message\":\"Недействительный токен\"}", response.getContentAsString());
+        Assertions.assertNull(chain.getRequest());
+    }
+
+    /**
+     * Проверяет запрос без заголовка Authorization
+     *
+     * Ожидается, что запрос передается дальше без аутентификации
+     */
+    @Test
+    void doFilterWithoutTokenTest() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, chain);
+
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertNotNull(chain.getRequest());
+        Assertions.assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
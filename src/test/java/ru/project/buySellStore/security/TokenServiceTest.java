@@ -0,0 +1,244 @@
+package ru.project.buySellStore.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.project.buySellStore.exception.securityEx.InvalidTokenException;
+import ru.project.buySellStore.exception.securityEx.RoleNotAssignedException;
+import ru.project.buySellStore.model.Role;
+import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.repository.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Тесты для сервиса токенов
+ */
+class TokenServiceTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private MutableClock clock;
+
+    private TokenService tokenService;
+
+    private UserRepository userRepository;
+
+    private SessionPrincipal user;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findRoleById(7L)).thenReturn(Optional.of(Role.BUYER));
+        tokenService = new TokenService(SECRET, Duration.ofMinutes(15), Duration.ofHours(1), Duration.ofHours(2), clock,
+                userRepository);
+        User entity = new User();
+        entity.setId(7L);
+        entity.setEmail("buyer@mail.com");
+        entity.setLogin("buyer");
+        entity.setRole(Role.BUYER);
+        user = new SessionPrincipal(entity);
+    }
+
+    /**
+     * Проверяет выпуск и проверку токена
+     *
+     * Ожидается, что из токена восстанавливаются id и роль пользователя, а срок действия отсчитывается от выпуска
+     */
+    @Test
+    void issueAndVerifyTest() throws InvalidTokenException, RoleNotAssignedException {
+        TokenPrincipal principal = tokenService.verify(tokenService.issue(user));
+
+        Assertions.assertEquals(7L, principal.getId());
+        Assertions.assertEquals(Role.BUYER, principal.getRole());
+        Assertions.assertEquals("7", principal.getName());
+        Assertions.assertEquals(START, principal.getAuthenticatedAt());
+        Assertions.assertEquals(START.plus(Duration.ofMinutes(15)), principal.getExpiresAt());
+    }
+
+    /**
+     * Проверяет выпуск токена пользователю без роли
+     *
+     * Ожидается исключение: роль нельзя записать в токен, а токен без нее не прошел бы проверку
+     */
+    @Test
+    void issueWithoutRoleTest() {
+        User entity = new User();
+        entity.setId(8L);
+
+        Assertions.assertThrows(RoleNotAssignedException.class, () -> tokenService.issue(new SessionPrincipal(entity)));
+    }
+
+    /**
+     * Проверяет токены с измененным содержимым, чужой подписью и в неверном формате
+     *
+     * Ожидается, что все они отклоняются
+     */
+    @Test
+    void verifyTamperedTest() throws RoleNotAssignedException {
+        String token = tokenService.issue(user);
+        String payload = token.substring(0, token.indexOf('.'));
+        String signature = token.substring(token.indexOf('.') + 1);
+        TokenService other = new TokenService("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8),
+                Duration.ofMinutes(15), Duration.ofHours(1), Duration.ofHours(2), clock, userRepository);
+
+        Assertions.assertThrows(InvalidTokenException.class,
+                () -> tokenService.verify(payload.substring(1) + "." + signature));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.verify(other.issue(user)));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.verify(payload));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.verify("!!!.???"));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.verify(null));
+    }
+
+    /**
+     * Проверяет истекший токен
+     *
+     * Ожидается, что токен отклоняется с момента истечения
+     */
+    @Test
+    void verifyExpiredTest() throws RoleNotAssignedException {
+        String token = tokenService.issue(user);
+
+        clock.set(START.plus(Duration.ofMinutes(15)));
+
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.verify(token));
+    }
+
+    /**
+     * Проверяет обмен истекшего токена в пределах окна обновления
+     *
+     * Ожидается новый действующий токен с прежним временем входа, а повторный обмен прежнего токена отклоняется
+     */
+    @Test
+    void refreshTest() throws InvalidTokenException, RoleNotAssignedException {
+        String token = tokenService.issue(user);
+        clock.set(START.plus(Duration.ofMinutes(30)));
+
+        TokenPrincipal refreshed = tokenService.verify(tokenService.refresh(token));
+
+        Assertions.assertEquals(7L, refreshed.getId());
+        Assertions.assertEquals(START, refreshed.getAuthenticatedAt());
+        Assertions.assertEquals(START.plus(Duration.ofMinutes(45)), refreshed.getExpiresAt());
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.refresh(token));
+    }
+
+    /**
+     * Проверяет обмен токена после окна обновления и после наибольшего срока с момента входа
+     *
+     * Ожидается, что в обоих случаях обмен отклоняется и нужен повторный вход по паролю
+     */
+    @Test
+    void refreshExpiredTest() throws InvalidTokenException, RoleNotAssignedException {
+        String stale = tokenService.issue(user);
+        clock.set(START.plus(Duration.ofMinutes(75)));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.refresh(stale));
+
+        clock.set(START);
+        String token = tokenService.issue(user);
+        for (int i = 1; i <= 7; i++) {
+            clock.set(START.plus(Duration.ofMinutes(15L * i)));
+            token = tokenService.refresh(token);
+        }
+        clock.set(START.plus(Duration.ofHours(2)));
+        String last = token;
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.refresh(last));
+    }
+
+    /**
+     * Проверяет обмен токена удаленного пользователя и пользователя со сменившейся ролью
+     *
+     * Ожидается, что обмен отклоняется, а токен отзывается
+     */
+    @Test
+    void refreshChangedUserTest() throws RoleNotAssignedException {
+        String deleted = tokenService.issue(user);
+        String demoted = tokenService.issue(user);
+        clock.set(START.plus(Duration.ofMinutes(5)));
+
+        Mockito.when(userRepository.findRoleById(7L)).thenReturn(Optional.empty());
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.refresh(deleted));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.verify(deleted));
+
+        Mockito.when(userRepository.findRoleById(7L)).thenReturn(Optional.of(Role.SELLER));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.refresh(demoted));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.verify(demoted));
+    }
+
+    /**
+     * Проверяет отзыв токена и очистку списка отзыва
+     *
+     * Ожидается, что отозванный токен отклоняется, а из списка удаляется только после окна обновления
+     */
+    @Test
+    void revokeTest() throws InvalidTokenException, RoleNotAssignedException {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        tokenService.bindTo(meterRegistry);
+        String token = tokenService.issue(user);
+
+        tokenService.revoke(tokenService.verify(token));
+
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.verify(token));
+        Assertions.assertThrows(InvalidTokenException.class, () -> tokenService.refresh(token));
+        clock.set(START.plus(Duration.ofMinutes(74)));
+        tokenService.evictRevoked();
+        Assertions.assertEquals(1, meterRegistry.get(TokenService.REVOKED_METRIC).gauge().value());
+        clock.set(START.plus(Duration.ofMinutes(75)));
+        tokenService.evictRevoked();
+        Assertions.assertEquals(0, meterRegistry.get(TokenService.REVOKED_METRIC).gauge().value());
+    }
+
+    /**
+     * Проверяет создание сервиса с коротким ключом подписи
+     *
+     * Ожидается исключение при создании
+     */
+    @Test
+    void shortSecretTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenService(
+                new byte[TokenService.MIN_SECRET_LENGTH - 1], Duration.ofMinutes(15), Duration.ofHours(1),
+                Duration.ofHours(2), clock, userRepository));
+    }
+
+    /**
+     * Часы, время которых задается в тесте
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.project.buySellStore.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.project.buySellStore.event.UserChangedEvent;
+import ru.project.buySellStore.model.Role;
+import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Тесты для кэша пользователей
+ */
+@ExtendWith(MockitoExtension.class)
+class UserDetailsCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private UserDetailsCache userDetailsCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new UserDetailsCache(userRepository, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Проверяет повторное получение пользователя
+     *
+     * Ожидается, что пользователь загрузится из базы данных один раз, а каждый вызов получит свою копию
+     */
+    @Test
+    void getTest() {
+        Mockito.when(userRepository.findByEmail("user@mail.com")).thenReturn(Optional.of(user(1L, "user@mail.com")));
+
+        User first = userDetailsCache.get("user@mail.com");
+        first.setPassword("changed");
+        User second = userDetailsCache.get("user@mail.com");
+
+        Assertions.assertEquals("{bcrypt}hash", second.getPassword());
+        Assertions.assertEquals(3, second.getVersion());
+        Assertions.assertNotSame(second, userDetailsCache.get("user@mail.com"));
+        Mockito.verify(userRepository, Mockito.times(1)).findByEmail("user@mail.com");
+        Assertions.assertEquals(2, meterRegistry.get("cache.gets")
+                .tag("cache", UserDetailsCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+    }
+
+    /**
+     * Проверяет получение несуществующего пользователя
+     *
+     * Ожидается {@code null}, а отсутствие пользователя не кэшируется
+     */
+    @Test
+    void getNonExistingTest() {
+        Mockito.when(userRepository.findByEmail("user@mail.com")).thenReturn(Optional.empty());
+
+        Assertions.assertNull(userDetailsCache.get("user@mail.com"));
+        Assertions.assertNull(userDetailsCache.get("user@mail.com"));
+
+        Mockito.verify(userRepository, Mockito.times(2)).findByEmail("user@mail.com");
+    }
+
+    /**
+     * Проверяет удаление после изменения пользователя
+     *
+     * Ожидается, что удален только измененный пользователь и следующий вход загрузит его заново
+     */
+    @Test
+    void onUserChangedTest() {
+        Mockito.when(userRepository.findByEmail("user@mail.com")).thenReturn(Optional.of(user(1L, "user@mail.com")));
+        Mockito.when(userRepository.findByEmail("other@mail.com")).thenReturn(Optional.of(user(2L, "other@mail.com")));
+        userDetailsCache.get("user@mail.com");
+        userDetailsCache.get("other@mail.com");
+
+        userDetailsCache.onUserChanged(new UserChangedEvent(1L));
+        userDetailsCache.get("user@mail.com");
+        userDetailsCache.get("other@mail.com");
+
+        Mockito.verify(userRepository, Mockito.times(2)).findByEmail("user@mail.com");
+        Mockito.verify(userRepository, Mockito.times(1)).findByEmail("other@mail.com");
+        Assertions.assertEquals(1, meterRegistry.get("cache.invalidations")
+                .tag("cache", UserDetailsCache.CACHE_NAME).counter().count());
+    }
+
+    /**
+     * Проверяет изменение пользователя во время загрузки
+     *
+     * Ожидается, что загруженная до изменения копия не остается в кэше
+     */
+    @Test
+    void getChangedWhileLoadingTest() {
+        Mockito.when(userRepository.findByEmail("user@mail.com")).thenAnswer(invocation -> {
+            User user = user(1L, "user@mail.com");
+            userDetailsCache.onUserChanged(new UserChangedEvent(1L));
+            return Optional.of(user);
+        });
+
+        userDetailsCache.get("user@mail.com");
+        userDetailsCache.get("user@mail.com");
+
+        Mockito.verify(userRepository, Mockito.times(2)).findByEmail("user@mail.com");
+    }
+
+    /**
+     * Проверяет изменение пользователя, удаленного из кэша по email, после того как его прежний email
+     * занял другой пользователь
+     *
+     * Ожидается, что запись другого пользователя остается в кэше
+     */
+    @Test
+    void onUserChangedAfterInvalidateTest() {
+        Mockito.when(userRepository.findByEmail("user@mail.com"))
+                .thenReturn(Optional.of(user(1L, "user@mail.com")), Optional.of(user(2L, "user@mail.com")));
+        userDetailsCache.get("user@mail.com");
+        userDetailsCache.invalidate("user@mail.com");
+        userDetailsCache.get("user@mail.com");
+
+        userDetailsCache.onUserChanged(new UserChangedEvent(1L));
+
+        Assertions.assertEquals(2L, userDetailsCache.get("user@mail.com").getId());
+        Mockito.verify(userRepository, Mockito.times(2)).findByEmail("user@mail.com");
+    }
+
+    private static User user(long id, String email) {
+        User user = new User(id, "user" + id, email, "{bcrypt}hash", null, "Ekaterinburg", null, Role.BUYER);
+        user.setVersion(3);
+        return user;
+    }
+}
@@ -15,10 +15,17 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import ru.project.buySellStore.dto.LoginDTO;
+import ru.project.buySellStore.exception.userEx.UserNotFoundException;
+import ru.project.buySellStore.model.Role;
 import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.repository.UserRepository;
+import ru.project.buySellStore.security.SessionPrincipal;
 import ru.project.buySellStore.security.UserDetailsImpl;
 import ru.project.buySellStore.service.impl.AuthServiceImpl;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Тесты для методов класса {@link AuthServiceImpl}
  */
@@ -34,6 +41,9 @@ class AuthServiceImplTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private UserRepository userRepository;
+
     @InjectMocks
     private AuthServiceImpl authService;
 
@@ -47,6 +57,8 @@ class AuthServiceImplTest {
 
     /**
      * <b>Проверка корректности входа в аккаунт</b>
+     * <p>Ожидается, что в сессии сохранен контекст с компактным {@link SessionPrincipal}
+     * вместо сущности пользователя с хешем пароля</p>
      */
     @Test
     void testLogin(){
@@ -57,10 +69,18 @@ class AuthServiceImplTest {
 
         Mockito.when(authenticationManager.authenticate(authenticationInputToken))
                 .thenReturn(authentication);
+        Mockito.when(authentication.getPrincipal())
+                .thenReturn(new UserDetailsImpl(user()));
 
         authService.login(authenticationInputToken, session);
         SecurityContext context = SecurityContextHolder.getContext();
-        Assertions.assertThat(context.getAuthentication()).isEqualTo(authentication);
+        SessionPrincipal principal = (SessionPrincipal) context.getAuthentication().getPrincipal();
+        Assertions.assertThat(context.getAuthentication().isAuthenticated()).isTrue();
+        Assertions.assertThat(context.getAuthentication().getName()).isEqualTo("user@mail.com");
+        Assertions.assertThat(context.getAuthentication().getCredentials()).isNull();
+        Assertions.assertThat(principal.getId()).isEqualTo(7L);
+        Assertions.assertThat(principal.getLogin()).isEqualTo("user");
+        Assertions.assertThat(principal.getRole()).isEqualTo(Role.SELLER);
 
         Mockito.verify(session)
                 .setAttribute(Mockito.eq("SPRING_SECURITY_CONTEXT"), Mockito.eq(context));
@@ -81,16 +101,59 @@ class AuthServiceImplTest {
 
     /**
      * <b>Проверка корректности получения текущего авторизованного пользователя</b>
+     * <p>Ожидается, что пользователь загружен из БД по id из сессии</p>
      */
     @Test
-    void testGetAuthenticatedUser() {
-        User user = new User();
-        Mockito.when(authentication.getPrincipal())
-                .thenReturn(new UserDetailsImpl(user));
+    void testGetAuthenticatedUser() throws UserNotFoundException {
+        User user = user();
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(new SessionPrincipal(user), null, List.of()));
+        Mockito.when(userRepository.findById(7L))
+                .thenReturn(Optional.of(user));
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        User authenticatedUser = authService.getAuthenticatedUser();
-        Assertions.assertThat(authenticatedUser)
+        Assertions.assertThat(authService.getAuthenticatedUser())
                 .isEqualTo(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * <b>Проверка получения пользователя, удаленного после входа</b>
+     * <p>Ожидается исключение {@link UserNotFoundException}</p>
+     */
+    @Test
+    void testGetDeletedAuthenticatedUser() {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(new SessionPrincipal(user()), null, List.of()));
+        Mockito.when(userRepository.findById(7L))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatThrownBy(() -> authService.getAuthenticatedUser())
+                .isInstanceOf(UserNotFoundException.class);
+    }
+
+    /**
+     * <b>Проверка обновления пользователя в сессии после изменения его профиля</b>
+     * <p>Ожидается, что в сессии сохранены новые email и логин, а изменение чужого профиля сессию не затрагивает</p>
+     */
+    @Test
+    void testUpdatePrincipal() {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(new SessionPrincipal(user()), null, List.of()));
+
+        authService.updatePrincipal(8L, "other@mail.com", "other", session);
+        Mockito.verifyNoInteractions(session);
+        authService.updatePrincipal(7L, "new@mail.com", "new", session);
+
+        SecurityContext context = SecurityContextHolder.getContext();
+        SessionPrincipal principal = authService.getAuthenticatedPrincipal();
+        Assertions.assertThat(context.getAuthentication().getName()).isEqualTo("new@mail.com");
+        Assertions.assertThat(principal.getId()).isEqualTo(7L);
+        Assertions.assertThat(principal.getLogin()).isEqualTo("new");
+        Assertions.assertThat(principal.getRole()).isEqualTo(Role.SELLER);
+        Mockito.verify(session)
+                .setAttribute("SPRING_SECURITY_CONTEXT", context);
+    }
+
+    private static User user() {
+        return new User(7L, "user", "user@mail.com", "{bcrypt}hash", null, null, "Описание", Role.SELLER);
+    }
+}
@@ -0,0 +1,200 @@
+package ru.project.buySellStore.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.validation.Validation;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.project.buySellStore.dto.ProductImportResultDTO;
+import ru.project.buySellStore.event.ProductsImportedEvent;
+import ru.project.buySellStore.exception.productEx.InvalidProductCsvException;
+import ru.project.buySellStore.model.BaseEntity;
+import ru.project.buySellStore.service.impl.ProductImportServiceImpl;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Интеграционные тесты загрузки товаров из CSV-файла во встроенный PostgreSQL.
+ * Схема создается миграциями приложения
+ */
+class ProductImportServiceIT {
+
+    private static EmbeddedPostgres postgres;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private static DataSource dataSource;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductImportService productImportService;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM product");
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        productImportService = new ProductImportServiceImpl(dataSource,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher);
+    }
+
+    /**
+     * Проверяет загрузку файла с корректными и некорректными строками
+     *
+     * Ожидается, что корректные строки загружены, а некорректные отклонены с номерами строк файла
+     */
+    @Test
+    void importCsvTest() throws Exception {
+        String csv = """
+                name,description,category,cost
+                Футболка,"Хлопок, 100%",CLOTHES,1000
+                Bad!,Описание,CLOTHES,1000
+                Куртка,"Теплая
+                зимняя",CLOTHES,abc
+                Кроссовки,Беговые,SHOES,-1
+                Шапка,Вязаная,CLOTHES
+                Телефон,Смартфон,ELECTRONICS, 29999
+                """;
+
+        ProductImportResultDTO result = productImportService.importCsv(stream(csv));
+
+        Assertions.assertEquals(2, result.getImported());
+        Assertions.assertEquals(4, result.getRejected());
+        Assertions.assertEquals(List.of(3L, 4L, 6L, 7L),
+                result.getRejects().stream().map(reject -> reject.getLine()).toList());
+        Assertions.assertEquals("Стоимость должна быть целым числом", result.getRejects().get(1).getMessage());
+        Assertions.assertEquals("Стоимость должна быть больше нуля", result.getRejects().get(2).getMessage());
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, name, description, cost, archived, version FROM product ORDER BY id");
+        long firstId = (Long) rows.get(0).get("id");
+        Assertions.assertEquals("Футболка", rows.get(0).get("name"));
+        Assertions.assertEquals("Хлопок, 100%", rows.get(0).get("description"));
+        Assertions.assertEquals(29999, rows.get(1).get("cost"));
+        Assertions.assertEquals(false, rows.get(1).get("archived"));
+        Assertions.assertEquals(0L, rows.get(1).get("version"));
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductsImportedEvent>argThat(
+                event -> event.getImported() == 2 && event.getFirstId() == firstId));
+    }
+
+    /**
+     * Проверяет загрузку большого файла, который генерируется по мере чтения
+     *
+     * Ожидается, что загружены все строки через одно соединение,
+     * а id не пересекаются с блоками, которые выделит Hibernate
+     */
+    @Test
+    void importLargeCsvTest() throws Exception {
+        int rows = 100_000;
+        DataSource countingDataSource = Mockito.spy(dataSource);
+        productImportService = new ProductImportServiceImpl(countingDataSource,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher);
+
+        ProductImportResultDTO result = productImportService.importCsv(new GeneratedCsv(rows));
+
+        Assertions.assertEquals(rows, result.getImported());
+        Assertions.assertEquals(rows, jdbcTemplate.queryForObject("SELECT count(*) FROM product", Long.class));
+        Assertions.assertEquals(rows, jdbcTemplate.queryForObject("SELECT count(DISTINCT id) FROM product", Long.class));
+        long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM product", Long.class);
+        long nextBlockStart = jdbcTemplate.queryForObject("SELECT nextval('entity_id_seq')", Long.class)
+                - BaseEntity.ID_ALLOCATION_SIZE + 1;
+        Assertions.assertTrue(nextBlockStart > maxId);
+        Mockito.verify(countingDataSource, Mockito.times(1)).getConnection();
+    }
+
+    /**
+     * Проверяет загрузку файла, который невозможно разобрать после нескольких корректных строк
+     *
+     * Ожидается исключение, а уже переданные строки не загружаются
+     */
+    @Test
+    void importMalformedCsvTest() {
+        String csv = """
+                name,description,category,cost
+                Футболка,Хлопок,CLOTHES,1000
+                Куртка,"Теплая,CLOTHES,1000
+                """;
+
+        Assertions.assertThrows(InvalidProductCsvException.class, () -> productImportService.importCsv(stream(csv)));
+
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM product", Long.class));
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    /**
+     * Проверяет загрузку файла без обязательных столбцов
+     *
+     * Ожидается исключение
+     */
+    @Test
+    void importWithoutHeaderTest() {
+        Assertions.assertThrows(InvalidProductCsvException.class,
+                () -> productImportService.importCsv(stream("Футболка,Хлопок,CLOTHES,1000\n")));
+    }
+
+    private static InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * CSV-файл, строки которого создаются по мере чтения
+     */
+    private static final class GeneratedCsv extends InputStream {
+
+        private final int rows;
+
+        private int row = -1;
+
+        private byte[] line = new byte[0];
+
+        private int position;
+
+        GeneratedCsv(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length) {
+                if (row == rows) {
+                    return -1;
+                }
+                line = (row < 0 ? "name,description,category,cost\n"
+                        : "Товар " + row + ",Описание товара " + row + ",CLOTHES," + (row + 1) + "\n")
+                        .getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                row++;
+            }
+            return line[position++] & 0xFF;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ru.project.buySellStore.service;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,17 +8,31 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import ru.project.buySellStore.dto.ProductBulkRequestDTO;
+import ru.project.buySellStore.dto.ProductBulkResultDTO;
+import ru.project.buySellStore.dto.ProductCursor;
+import ru.project.buySellStore.dto.ProductFilter;
+import ru.project.buySellStore.dto.ProductSort;
+import ru.project.buySellStore.dto.ProductUpdateDTO;
+import ru.project.buySellStore.event.ProductChangedEvent;
+import ru.project.buySellStore.event.ProductSnapshot;
 import ru.project.buySellStore.exception.productEx.ProductArchiveException;
 import ru.project.buySellStore.exception.productEx.ProductNotFoundException;
 import ru.project.buySellStore.exception.productEx.ProductRestoreException;
+import ru.project.buySellStore.exception.productEx.ProductVersionMismatchException;
 import ru.project.buySellStore.model.Product;
 import ru.project.buySellStore.repository.ProductRepository;
+import ru.project.buySellStore.repository.ProductRow;
 import ru.project.buySellStore.service.impl.ProductServiceImpl;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Тесты для проверки функционала ProductService
@@ -28,6 +43,12 @@ class ProductServiceImplTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -47,33 +68,122 @@ class ProductServiceImplTest {
     }
 
     /**
-     * Проверяет корректность получения всех товаров из базы данных
+     * Проверяет получение первой страницы товаров
      *
-     * Ожидается, что мы получим все товары, которые не в архиве
+     * Ожидается, что товары запрашиваются с начала индекса без ограничений по стоимости
      */
     @Test
-    void findAllTest() {
+    void findAllFirstPageTest() {
         Product product = new Product();
         product.setId(1L);
 
-        Product productArchive = new Product();
-        productArchive.setId(2L);
-        productArchive.setArchived(true);
+        Mockito.when(productRepository.findActiveOrderByIdAsc(
+                        Integer.MIN_VALUE, Integer.MAX_VALUE, 0L, Limit.of(10)))
+                .thenReturn(List.of(product));
+
+        List<Product> products = productService.findAll(
+                new ProductFilter(null, null, null), ProductSort.OLDEST, null, 10);
+
+        Assertions.assertEquals(List.of(product), products);
+    }
+
+    /**
+     * Проверяет получение следующей страницы новых товаров
+     *
+     * Ожидается, что товары запрашиваются по убыванию id начиная с товара, следующего за курсором
+     */
+    @Test
+    void findAllNewestNextPageTest() {
+        Product product = new Product();
+        product.setId(4L);
+
+        Mockito.when(productRepository.findActiveOrderByIdDesc(
+                        Integer.MIN_VALUE, Integer.MAX_VALUE, 5L, Limit.of(10)))
+                .thenReturn(List.of(product));
+
+        List<Product> products = productService.findAll(
+                new ProductFilter(null, null, null), ProductSort.NEWEST, new ProductCursor(null, 5L), 10);
+
+        Assertions.assertEquals(List.of(product), products);
+    }
+
+    /**
+     * Проверяет получение страницы товаров одной категории в диапазоне стоимости
+     *
+     * Ожидается, что фильтры и курсор по стоимости передаются в запрос к базе данных
+     */
+    @Test
+    void findAllByCategoryAndCostTest() {
+        Product product = new Product();
+        product.setId(6L);
+        product.setCategory("CLOTHES");
+
+        Mockito.when(productRepository.findActiveByCategoryOrderByCostAsc(
+                        "CLOTHES", 100, 5000, 1000, 5L, Limit.of(10)))
+                .thenReturn(List.of(product));
 
-        Product newProduct = new Product();
-        productArchive.setId(3L);
+        List<Product> products = productService.findAll(new ProductFilter("CLOTHES", 100, 5000),
+                ProductSort.COST_ASC, new ProductCursor(1000, 5L), 10);
 
-        Mockito.when(productRepository.findAll())
-                .thenReturn(List.of(product, productArchive, newProduct));
+        Assertions.assertEquals(List.of(product), products);
+        Mockito.verify(productRepository, Mockito.never()).findActiveOrderByCostAsc(
+                Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyLong(), Mockito.any());
+    }
 
-        List<Product> products = productService.findAll();
+    /**
+     * Проверяет получение первой страницы дорогих товаров
+     *
+     * Ожидается, что товары запрашиваются с максимальной стоимости
+     */
+    @Test
+    void findAllCostDescFirstPageTest() {
+        Mockito.when(productRepository.findActiveOrderByCostDesc(
+                        Integer.MIN_VALUE, 5000, Integer.MAX_VALUE, Long.MAX_VALUE, Limit.of(10)))
+                .thenReturn(List.of());
 
-        Assertions.assertEquals(2, products.size());
-        Assertions.assertTrue(products.contains(product));
-        Assertions.assertTrue(products.contains(newProduct));
-        Assertions.assertFalse(products.contains(productArchive));
+        List<Product> products = productService.findAll(
+                new ProductFilter(null, null, 5000), ProductSort.COST_DESC, null, 10);
 
-        Mockito.verify(productRepository).findAll();
+        Assertions.assertTrue(products.isEmpty());
+    }
+
+    /**
+     * Проверяет полнотекстовый поиск товаров
+     *
+     * Ожидается, что номер страницы будет преобразован в смещение
+     */
+    @Test
+    void searchTest() {
+        Product product = new Product();
+        product.setId(1L);
+
+        Mockito.when(productRepository.search("футболка", 20, 40L))
+                .thenReturn(List.of(product));
+
+        Assertions.assertEquals(List.of(product), productService.search("футболка", 2, 20));
+    }
+
+    /**
+     * Проверяет обработку всех товаров, прочитанных потоком
+     *
+     * Ожидается, что каждый товар будет обработан и отсоединен от контекста персистентности
+     */
+    @Test
+    void forEachActiveTest() {
+        Product product1 = new Product();
+        product1.setId(1L);
+        Product product2 = new Product();
+        product2.setId(2L);
+
+        Mockito.when(productRepository.streamAllActive())
+                .thenReturn(Stream.of(product1, product2));
+
+        List<Product> processed = new ArrayList<>();
+        productService.forEachActive(processed::add);
+
+        Assertions.assertEquals(List.of(product1, product2), processed);
+        Mockito.verify(entityManager).detach(product1);
+        Mockito.verify(entityManager).detach(product2);
     }
 
     /**
@@ -83,7 +193,7 @@ class ProductServiceImplTest {
      */
     @Test
     void deleteTest() {
-        Mockito.when(productRepository.findById(1000L))
+        Mockito.when(productRepository.deleteReturningById(1000L))
                 .thenReturn(Optional.empty());
 
         ProductNotFoundException ex = Assertions.assertThrows(
@@ -96,31 +206,154 @@ class ProductServiceImplTest {
                 ex.getMessage()
         );
 
-        Mockito.verify(productRepository, Mockito.never()).delete(Mockito.any());
+        Mockito.verifyNoInteractions(eventPublisher);
     }
 
     /**
-     * Проверяет процесс архивирования товара
+     * Проверяет удаление существующего товара
      *
-     * Ожидается, значение поля archived станет true
+     * Ожидается, что товар удаляется одним запросом без предварительного чтения
      */
     @Test
-    void archiveTest() throws ProductArchiveException, ProductNotFoundException {
+    void deleteExistingTest() throws ProductNotFoundException {
+        Mockito.when(productRepository.deleteReturningById(1L))
+                .thenReturn(Optional.of(row(1L, false)));
+
+        productService.delete(1L);
+
+        Mockito.verify(productRepository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getProductId() == 1L && event.getBefore() != null && event.getAfter() == null));
+    }
+
+    /**
+     * Проверяет изменение товара
+     *
+     * Ожидается, что товар изменится одним запросом, а событие будет содержать состояние до и после изменения
+     */
+    @Test
+    void updateTest() throws ProductNotFoundException, ProductVersionMismatchException {
+        ProductUpdateDTO updateDTO = new ProductUpdateDTO();
+        updateDTO.setName("new name");
+        updateDTO.setDescription("new description");
+        updateDTO.setCost(2000);
+
+        Mockito.when(productRepository.updateReturningPreviousById(1L, "new name", "new description", 2000, null))
+                .thenReturn(Optional.of(row(1L, false)));
+
+        ProductSnapshot updated = productService.update(1L, updateDTO, null);
+
+        Assertions.assertEquals("new name", updated.getName());
+        Assertions.assertEquals("CLOTHES", updated.getCategory());
+        Assertions.assertEquals(2L, updated.getVersion());
+        Mockito.verify(productRepository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getBefore().getCost() == 1000 && event.getAfter().getCost() == 2000));
+    }
+
+    /**
+     * Проверяет изменение товара в архиве
+     *
+     * Ожидается событие без состояний в открытом каталоге
+     */
+    @Test
+    void updateArchivedTest() throws ProductNotFoundException, ProductVersionMismatchException {
+        Mockito.when(productRepository.updateReturningPreviousById(Mockito.eq(1L), Mockito.any(), Mockito.any(),
+                        Mockito.any(), Mockito.isNull()))
+                .thenReturn(Optional.of(row(1L, true)));
+
+        productService.update(1L, new ProductUpdateDTO(), null);
+
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getBefore() == null && event.getAfter() == null));
+    }
+
+    /**
+     * Проверяет сохранение товара, которому уже присвоен id
+     *
+     * Ожидается исключение, а товар не сохраняется и событие не публикуется
+     */
+    @Test
+    void saveExistingTest() {
         Product product = new Product();
         product.setId(1L);
 
-        Mockito.when(productRepository.findById(1L))
-                .thenReturn(Optional.of(product));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> productService.save(product));
 
-        Mockito.when(productRepository.save(Mockito.any(Product.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.verifyNoInteractions(productRepository, eventPublisher);
+    }
 
-        productService.archive(1L);
+    /**
+     * Проверяет сохранение нескольких товаров
+     *
+     * Ожидается, что контекст персистентности сбрасывается после каждой пачки,
+     * а о каждом товаре публикуется событие
+     */
+    @Test
+    void saveAllTest() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            products.add(new Product());
+        }
+
+        productService.saveAll(products);
+
+        Mockito.verify(entityManager, Mockito.times(120)).persist(Mockito.any(Product.class));
+        Mockito.verify(entityManager, Mockito.times(2)).flush();
+        Mockito.verify(entityManager, Mockito.times(2)).clear();
+        Mockito.verify(eventPublisher, Mockito.times(120)).publishEvent(Mockito.any(ProductChangedEvent.class));
+    }
+
+    /**
+     * Проверяет изменение товара, версия которого не совпадает с ожидаемой
+     *
+     * Ожидается исключение, а событие не публикуется
+     */
+    @Test
+    void updateVersionMismatchTest() {
+        Mockito.when(productRepository.updateReturningPreviousById(Mockito.eq(1L), Mockito.any(), Mockito.any(),
+                        Mockito.any(), Mockito.eq(2L)))
+                .thenReturn(Optional.empty());
+        Mockito.when(productRepository.existsById(1L)).thenReturn(true);
+
+        Assertions.assertThrows(ProductVersionMismatchException.class,
+                () -> productService.update(1L, new ProductUpdateDTO(), 2L));
+
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    /**
+     * Проверяет изменение несуществующего товара
+     *
+     * Ожидается исключение об отсутствии товара
+     */
+    @Test
+    void updateNonExistingTest() {
+        Mockito.when(productRepository.updateReturningPreviousById(Mockito.eq(1L), Mockito.any(), Mockito.any(),
+                        Mockito.any(), Mockito.isNull()))
+                .thenReturn(Optional.empty());
+        Mockito.when(productRepository.existsById(1L)).thenReturn(false);
 
-        Assertions.assertTrue(product.isArchived());
+        Assertions.assertThrows(ProductNotFoundException.class,
+                () -> productService.update(1L, new ProductUpdateDTO(), null));
+    }
+
+    /**
+     * Проверяет процесс архивирования товара
+     *
+     * Ожидается, что товар архивируется одним условным запросом без предварительного чтения
+     */
+    @Test
+    void archiveTest() throws ProductArchiveException, ProductNotFoundException {
+        Mockito.when(productRepository.archiveById(1L))
+                .thenReturn(Optional.of(row(1L, true)));
+
+        productService.archive(1L);
 
-        Mockito.verify(productRepository)
-                .save(product);
+        Mockito.verify(productRepository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(productRepository, Mockito.never()).existsById(Mockito.any());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getProductId() == 1L && event.getAfter() == null));
     }
 
     /**
@@ -130,12 +363,10 @@ class ProductServiceImplTest {
      */
     @Test
     void archiveArchivedProductTest() {
-        Product product = new Product();
-        product.setId(1L);
-        product.setArchived(true);
-
-        Mockito.when(productRepository.findById(1L))
-                .thenReturn(Optional.of(product));
+        Mockito.when(productRepository.archiveById(1L))
+                .thenReturn(Optional.empty());
+        Mockito.when(productRepository.existsById(1L))
+                .thenReturn(true);
 
         ProductArchiveException ex = Assertions.assertThrows(
                 ProductArchiveException.class,
@@ -147,32 +378,41 @@ class ProductServiceImplTest {
                 ex.getMessage()
         );
 
-        Mockito.verify(productRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verifyNoInteractions(eventPublisher);
     }
 
     /**
-     * Проверяет восстановление товара из архива
+     * Проверяет процесс архивирования несуществующего товара
      *
-     * Ожидается, значение поля archived станет false
+     * Ожидается, что выпадет исключение ProductNotFoundException
      */
     @Test
-    void restoreTest() throws ProductNotFoundException, ProductRestoreException {
-        Product product = new Product();
-        product.setId(1L);
-        product.setArchived(true);
+    void archiveNonExistingProductTest() {
+        Mockito.when(productRepository.archiveById(1000L))
+                .thenReturn(Optional.empty());
+        Mockito.when(productRepository.existsById(1000L))
+                .thenReturn(false);
 
-        Mockito.when(productRepository.findById(1L))
-                .thenReturn(Optional.of(product));
+        Assertions.assertThrows(ProductNotFoundException.class, () -> productService.archive(1000L));
 
-        Mockito.when(productRepository.save(Mockito.any(Product.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
 
-        productService.restore(1L);
+    /**
+     * Проверяет восстановление товара из архива
+     *
+     * Ожидается, что товар восстанавливается одним условным запросом без предварительного чтения
+     */
+    @Test
+    void restoreTest() throws ProductNotFoundException, ProductRestoreException {
+        Mockito.when(productRepository.restoreById(1L))
+                .thenReturn(Optional.of(row(1L, false)));
 
-        Assertions.assertFalse(product.isArchived());
+        productService.restore(1L);
 
-        Mockito.verify(productRepository)
-                .save(product);
+        Mockito.verify(productRepository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getProductId() == 1L && event.getAfter() != null));
     }
 
     /**
@@ -182,11 +422,10 @@ class ProductServiceImplTest {
      */
     @Test
     void restoreNoArchivedProductTest() {
-        Product product = new Product();
-        product.setId(1L);
-
-        Mockito.when(productRepository.findById(1L))
-                .thenReturn(Optional.of(product));
+        Mockito.when(productRepository.restoreById(1L))
+                .thenReturn(Optional.empty());
+        Mockito.when(productRepository.existsById(1L))
+                .thenReturn(true);
 
         ProductRestoreException ex = Assertions.assertThrows(
                 ProductRestoreException.class,
@@ -200,4 +439,105 @@ class ProductServiceImplTest {
 
         Mockito.verify(productRepository, Mockito.never()).save(Mockito.any());
     }
-}
\ No newline at end of file
+
+    /**
+     * Проверяет массовую архивацию товаров по id
+     *
+     * Ожидается, что неизмененные id разделятся на пропущенные и несуществующие,
+     * а о каждом измененном товаре будет опубликовано событие
+     */
+    @Test
+    void archiveAllByIdsTest() {
+        Mockito.when(productRepository.archiveAllByIds(new Long[]{1L, 2L, 3L, 4L}))
+                .thenReturn(List.of(row(1L, true), row(2L, true)));
+        Mockito.when(productRepository.findExistingIds(new Long[]{3L, 4L}))
+                .thenReturn(List.of(3L));
+
+        ProductBulkResultDTO result = productService.archiveAll(new ProductBulkRequestDTO(List.of(1L, 2L, 3L, 4L)));
+
+        Assertions.assertEquals(2, result.getAffected());
+        Assertions.assertEquals(List.of(3L), result.getSkipped());
+        Assertions.assertEquals(List.of(4L), result.getMissing());
+        Mockito.verify(eventPublisher, Mockito.times(2)).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getBefore() != null && event.getAfter() == null));
+    }
+
+    /**
+     * Проверяет массовое восстановление товаров по фильтру
+     *
+     * Ожидается, что незаданные границы стоимости не ограничивают выборку,
+     * а дополнительный запрос существующих id не выполняется
+     */
+    @Test
+    void restoreAllByFilterTest() {
+        Mockito.when(productRepository.restoreAllByFilter("CLOTHES", Integer.MIN_VALUE, 5000))
+                .thenReturn(List.of(row(1L, false)));
+
+        ProductBulkResultDTO result = productService.restoreAll(new ProductBulkRequestDTO("CLOTHES", null, 5000));
+
+        Assertions.assertEquals(1, result.getAffected());
+        Assertions.assertTrue(result.getSkipped().isEmpty());
+        Assertions.assertTrue(result.getMissing().isEmpty());
+        Mockito.verify(productRepository, Mockito.never()).findExistingIds(Mockito.any());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getBefore() == null && event.getAfter().getId() == 1L));
+    }
+
+    /**
+     * Проверяет массовое удаление товаров по id
+     *
+     * Ожидается, что удаление архивного товара не меняет открытый каталог
+     */
+    @Test
+    void deleteAllByIdsTest() {
+        Mockito.when(productRepository.deleteAllByIds(new Long[]{1L, 2L}))
+                .thenReturn(List.of(row(1L, false), row(2L, true)));
+
+        ProductBulkResultDTO result = productService.deleteAll(new ProductBulkRequestDTO(List.of(1L, 2L)));
+
+        Assertions.assertEquals(2, result.getAffected());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getProductId() == 1L && event.getBefore() != null));
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<ProductChangedEvent>argThat(
+                event -> event.getProductId() == 2L && event.getBefore() == null && event.getAfter() == null));
+    }
+
+    private static ProductRow row(long id, boolean archived) {
+        return new ProductRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return "name";
+            }
+
+            @Override
+            public String getDescription() {
+                return "description";
+            }
+
+            @Override
+            public String getCategory() {
+                return "CLOTHES";
+            }
+
+            @Override
+            public Integer getCost() {
+                return 1000;
+            }
+
+            @Override
+            public Boolean getArchived() {
+                return archived;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 1L;
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package ru.project.buySellStore.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.repository.UserRepository;
+import ru.project.buySellStore.security.UserDetailsCache;
+import ru.project.buySellStore.security.UserDetailsImpl;
+import ru.project.buySellStore.service.impl.UserDetailsServiceImpl;
+
+/**
+ * Тесты для сервиса получения пользователя в Spring Security
+ */
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @InjectMocks
+    private UserDetailsServiceImpl userDetailsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = Mockito.spy(new User());
+        user.setEmail("user@gmail.com");
+        user.setPassword("$2a$10$old");
+    }
+
+    /**
+     * Проверяет получение пользователя по email
+     *
+     * Ожидается, что пользователь найден, а для несуществующего email выброшено исключение
+     */
+    @Test
+    void loadUserByUsernameTest() {
+        Mockito.when(userDetailsCache.get("user@gmail.com")).thenReturn(user);
+
+        Assertions.assertEquals("user@gmail.com", userDetailsService.loadUserByUsername("user@gmail.com").getUsername());
+        Assertions.assertThrows(UsernameNotFoundException.class,
+                () -> userDetailsService.loadUserByUsername("other@gmail.com"));
+    }
+
+    /**
+     * Проверяет сохранение пересчитанного хеша пароля
+     *
+     * Ожидается одно изменение пароля по id и удаление пользователя из кэша, а загруженная сущность не изменяется
+     */
+    @Test
+    void updatePasswordTest() {
+        Mockito.when(user.getId()).thenReturn(7L);
+        UserDetails userDetails = new UserDetailsImpl(user);
+
+        UserDetails updated = userDetailsService.updatePassword(userDetails, "{bcrypt}$2a$12$new");
+
+        Assertions.assertSame(userDetails, updated);
+        Assertions.assertEquals("$2a$10$old", user.getPassword());
+        Mockito.verify(userRepository).updatePasswordById(7L, "{bcrypt}$2a$12$new");
+        Mockito.verify(userDetailsCache).invalidate("user@gmail.com");
+    }
+}
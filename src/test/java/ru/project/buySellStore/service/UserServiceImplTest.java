@@ -7,7 +7,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.project.buySellStore.dto.UserDTO;
+import ru.project.buySellStore.event.UserChangedEvent;
 import ru.project.buySellStore.exception.userEx.UserNotFoundException;
+import ru.project.buySellStore.exception.userEx.UserVersionMismatchException;
 import ru.project.buySellStore.model.User;
 import ru.project.buySellStore.repository.UserRepository;
 import ru.project.buySellStore.service.impl.UserServiceImpl;
@@ -24,6 +28,9 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -38,18 +45,78 @@ class UserServiceImplTest {
         Assertions.assertEquals(user, userService.save(user));
     }
 
+    /**
+     * Тест на изменение профиля одним запросом без предварительного чтения
+     */
+    @Test
+    void testUpdateUser() throws UserNotFoundException, UserVersionMismatchException {
+        UserDTO userDTO = new UserDTO("user", "user@mail.com", null, "Ekaterinburg", "Описание");
+        Mockito.when(userRepository.updateProfileById(1L, "user", "user@mail.com", null,
+                        "Ekaterinburg", "Описание", 2L))
+                .thenReturn(1);
+
+        userService.update(1L, userDTO, 2L);
+
+        Mockito.verify(userRepository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(userRepository, Mockito.never()).existsById(Mockito.any());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<UserChangedEvent>argThat(event -> event.getUserId() == 1L));
+    }
+
+    /**
+     * Тест на изменение профиля, версия которого не совпадает с ожидаемой
+     */
+    @Test
+    void testUpdateUserWithStaleVersion() {
+        UserDTO userDTO = new UserDTO("user", "user@mail.com", null, "Ekaterinburg", "Описание");
+        Mockito.when(userRepository.updateProfileById(Mockito.eq(1L), Mockito.any(), Mockito.any(), Mockito.any(),
+                        Mockito.any(), Mockito.any(), Mockito.eq(2L)))
+                .thenReturn(0);
+        Mockito.when(userRepository.existsById(1L))
+                .thenReturn(true);
+
+        Assertions.assertThrows(UserVersionMismatchException.class, () -> userService.update(1L, userDTO, 2L));
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    /**
+     * Тест на изменение профиля несуществующего пользователя
+     */
+    @Test
+    void testUpdateNonExistingUser() {
+        UserDTO userDTO = new UserDTO("user", "user@mail.com", null, "Ekaterinburg", "Описание");
+        Mockito.when(userRepository.updateProfileById(Mockito.eq(1000L), Mockito.any(), Mockito.any(),
+                        Mockito.any(), Mockito.any(), Mockito.any(), Mockito.isNull()))
+                .thenReturn(0);
+        Mockito.when(userRepository.existsById(1000L))
+                .thenReturn(false);
+
+        Assertions.assertThrows(UserNotFoundException.class, () -> userService.update(1000L, userDTO, null));
+    }
+
     /**
      * Тест на удаление пользователя с несуществующим id
      */
     @Test
     void testDeleteUser(){
-        Mockito.when(userRepository.findById(1000L))
-                .thenReturn(Optional.empty());
+        Mockito.when(userRepository.deleteUserById(1000L))
+                .thenReturn(0);
         UserNotFoundException ex = Assertions.assertThrows(UserNotFoundException.class,
                 () -> userService.delete(1000L));
         Assertions.assertEquals("Пользователь с id = 1000 не найден",
                 ex.getMessage());
-        Mockito.verify(userRepository, Mockito.never()).delete(Mockito.any());
+        Mockito.verify(userRepository, Mockito.never()).findById(Mockito.any());
+    }
+
+    /**
+     * Тест на удаление существующего пользователя одним запросом
+     */
+    @Test
+    void testDeleteExistingUser() throws UserNotFoundException {
+        Mockito.when(userRepository.deleteUserById(1L))
+                .thenReturn(1);
+        userService.delete(1L);
+        Mockito.verify(userRepository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<UserChangedEvent>argThat(event -> event.getUserId() == 1L));
     }
 
     /**
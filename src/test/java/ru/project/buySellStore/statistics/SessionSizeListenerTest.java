@@ -0,0 +1,74 @@
+package ru.project.buySellStore.statistics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpSessionBindingEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import ru.project.buySellStore.model.Role;
+import ru.project.buySellStore.model.User;
+import ru.project.buySellStore.security.SessionPrincipal;
+
+import java.util.List;
+
+/**
+ * Тесты для измерения размера атрибутов сессии
+ */
+class SessionSizeListenerTest {
+
+    private MeterRegistry meterRegistry;
+
+    private SessionSizeListener listener;
+
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new SessionSizeListener(meterRegistry);
+        session = new MockHttpSession();
+    }
+
+    /**
+     * Проверяет запись контекста безопасности с компактным пользователем
+     *
+     * Ожидается, что размер после сериализации записан в метрику с названием атрибута
+     */
+    @Test
+    void attributeAddedTest() throws Exception {
+        User user = new User(7L, "user", "user@mail.com", "{bcrypt}hash", null, null, "Описание", Role.SELLER);
+        SecurityContextImpl context = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(new SessionPrincipal(user), null, List.of()));
+        session.setAttribute("SPRING_SECURITY_CONTEXT", context);
+
+        listener.attributeAdded(new HttpSessionBindingEvent(session, "SPRING_SECURITY_CONTEXT"));
+
+        DistributionSummary size = meterRegistry.get(SessionSizeListener.SIZE_METRIC)
+                .tag("attribute", "SPRING_SECURITY_CONTEXT")
+                .summary();
+        Assertions.assertEquals(1, size.count());
+        Assertions.assertEquals(SessionSizeListener.serializedSize(context), size.totalAmount());
+    }
+
+    /**
+     * Проверяет запись несериализуемого атрибута
+     *
+     * Ожидается, что атрибут учтен в отдельном счетчике без записи размера
+     */
+    @Test
+    void attributeNotSerializableTest() {
+        session.setAttribute("user", new User());
+
+        listener.attributeReplaced(new HttpSessionBindingEvent(session, "user"));
+
+        Assertions.assertEquals(1, meterRegistry.get(SessionSizeListener.NOT_SERIALIZABLE_METRIC)
+                .tag("attribute", "user")
+                .counter().count());
+        Assertions.assertTrue(meterRegistry.find(SessionSizeListener.SIZE_METRIC).summaries().isEmpty());
+    }
+}
@@ -0,0 +1,166 @@
+package ru.project.buySellStore.statistics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Тесты для отбора SQL-команд в журнал
+ */
+class SlowQueryLogListenerTest {
+
+    private static final String UPDATE = "update product set name=?, description=? where id=?";
+
+    private SlowQueryLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = Mockito.mock(SlowQueryLogWriter.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Проверяет медленное изменение во время HTTP-запроса
+     *
+     * Ожидается запись с параметрами, шаблоном пути запроса и количеством строк
+     */
+    @Test
+    void afterQuerySlowUpdateTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/products/7");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/products/{id}");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        SlowQueryLogListener listener = new SlowQueryLogListener(writer, Duration.ofMillis(100), 0);
+
+        listener.beforeQuery(new ExecutionInfo(), List.of(update()));
+        listener.afterQuery(execution(150, 1), List.of(update()));
+
+        SlowQuery query = written();
+        Assertions.assertTrue(query.isSlow());
+        Assertions.assertEquals(UPDATE, query.getSql());
+        Assertions.assertEquals("PATCH /api/products/{id}", query.getEndpoint());
+        Assertions.assertEquals(1, query.getRows());
+        Assertions.assertArrayEquals(new Object[]{"Футболка", null, 7L}, query.getParameters().get(0));
+    }
+
+    /**
+     * Проверяет быструю команду без выборки
+     *
+     * Ожидается, что команда не попадает в журнал
+     */
+    @Test
+    void afterQueryFastTest() throws Exception {
+        SlowQueryLogListener listener = new SlowQueryLogListener(writer, Duration.ofMillis(100), 0);
+
+        listener.beforeQuery(new ExecutionInfo(), List.of(update()));
+        listener.afterQuery(execution(5, 1), List.of(update()));
+
+        Mockito.verifyNoInteractions(writer);
+    }
+
+    /**
+     * Проверяет быструю команду при выборке всех команд
+     *
+     * Ожидается запись с признаком выборки, без HTTP-запроса
+     */
+    @Test
+    void afterQuerySampledTest() throws Exception {
+        SlowQueryLogListener listener = new SlowQueryLogListener(writer, Duration.ofMillis(100), 1);
+
+        listener.beforeQuery(new ExecutionInfo(), List.of(update()));
+        listener.afterQuery(execution(5, new int[]{1, 1, 1}), List.of(update()));
+
+        SlowQuery query = written();
+        Assertions.assertFalse(query.isSlow());
+        Assertions.assertNull(query.getEndpoint());
+        Assertions.assertEquals(3, query.getRows());
+    }
+
+    /**
+     * Проверяет медленный SELECT
+     *
+     * Ожидается, что запись передается в журнал при закрытии результата с количеством прочитанных строк
+     */
+    @Test
+    void afterQuerySelectTest() throws Throwable {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSet.next()).thenReturn(true, true, false);
+        SlowQueryLogListener listener = new SlowQueryLogListener(writer, Duration.ZERO, 0);
+
+        listener.beforeQuery(new ExecutionInfo(), List.of(new QueryInfo("select * from product")));
+        Assertions.assertTrue(listener.countsRows());
+        ResultSetProxyLogic logic = listener.create(resultSet, null, null);
+        listener.afterQuery(execution(0, resultSet), List.of(new QueryInfo("select * from product")));
+        Mockito.verifyNoInteractions(writer);
+        for (int i = 0; i < 3; i++) {
+            logic.invoke(resultSet, ResultSet.class.getMethod("next"), null);
+        }
+        logic.invoke(resultSet, ResultSet.class.getMethod("close"), null);
+
+        Assertions.assertEquals(2, written().getRows());
+        Mockito.verify(resultSet).close();
+    }
+
+    /**
+     * Проверяет решение об обертке результата быстрой команды
+     *
+     * Ожидается, что результат оборачивается, только если команда попала в выборку
+     */
+    @Test
+    void countsRowsTest() {
+        List<QueryInfo> select = List.of(new QueryInfo("select * from product"));
+        SlowQueryLogListener unsampled = new SlowQueryLogListener(writer, Duration.ofMinutes(1), 0);
+        SlowQueryLogListener sampled = new SlowQueryLogListener(writer, Duration.ofMinutes(1), 1);
+
+        unsampled.beforeQuery(new ExecutionInfo(), select);
+        Assertions.assertFalse(unsampled.countsRows());
+        sampled.beforeQuery(new ExecutionInfo(), select);
+        Assertions.assertTrue(sampled.countsRows());
+    }
+
+    private SlowQuery written() {
+        ArgumentCaptor<SlowQuery> query = ArgumentCaptor.forClass(SlowQuery.class);
+        Mockito.verify(writer).write(query.capture());
+        return query.getValue();
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis, Object result) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        execution.setResult(result);
+        execution.setSuccess(true);
+        return execution;
+    }
+
+    private static QueryInfo update() throws NoSuchMethodException {
+        QueryInfo query = new QueryInfo(UPDATE);
+        query.getParametersList().add(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                        new Object[]{1, "Футболка"}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                        new Object[]{2, Types.VARCHAR}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setLong", int.class, long.class),
+                        new Object[]{3, 7L})));
+        return query;
+    }
+}
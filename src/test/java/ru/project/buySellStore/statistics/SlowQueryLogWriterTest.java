@@ -0,0 +1,71 @@
+package ru.project.buySellStore.statistics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Тесты для записи журнала SQL-команд
+ */
+class SlowQueryLogWriterTest {
+
+    /**
+     * Проверяет строку журнала медленной команды
+     *
+     * Ожидаются время, количество строк, запрос, команда и параметры, длинные значения сокращены
+     */
+    @Test
+    void formatSlowTest() {
+        SlowQuery query = new SlowQuery(true, "select * from users where email=? and password=?",
+                Collections.singletonList(new Object[]{"user@gmail.com", "x".repeat(100)}), 1,
+                "POST /api/auth/login", 312, true);
+        query.setRows(1);
+
+        Assertions.assertEquals("Медленный SQL: 312 мс, строк: 1, запрос: POST /api/auth/login, "
+                        + "команда: select * from users where email=? and password=?, "
+                        + "параметры: ['user@gmail.com', '" + "x".repeat(SlowQueryLogWriter.MAX_VALUE_LENGTH) + "...']",
+                SlowQueryLogWriter.format(query));
+    }
+
+    /**
+     * Проверяет строку журнала пакета, попавшего в выборку
+     *
+     * Ожидается, что выводятся первые наборы параметров и количество остальных, а количество строк не указано
+     */
+    @Test
+    void formatSampledBatchTest() {
+        SlowQuery query = new SlowQuery(false, "insert into product (id, cost) values (?, ?)",
+                List.of(new Object[]{1L, 100}, new Object[]{2L, null}), 50, null, 3, true);
+
+        Assertions.assertEquals("SQL (выборка): 3 мс, запрос: вне HTTP-запроса, "
+                        + "команда: insert into product (id, cost) values (?, ?), параметры: [1, 100][2, NULL] ... еще 48",
+                SlowQueryLogWriter.format(query));
+    }
+
+    /**
+     * Проверяет метрики журнала
+     *
+     * Ожидается, что записи учитываются по признаку медленной команды или выборки
+     */
+    @Test
+    void writeTest() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SlowQueryLogWriter writer = new SlowQueryLogWriter();
+        writer.bindTo(meterRegistry);
+
+        writer.write(new SlowQuery(true, "select 1", List.of(), 0, null, 500, true));
+        writer.write(new SlowQuery(false, "select 1", List.of(), 0, null, 1, true));
+        writer.write(new SlowQuery(false, "select 1", List.of(), 0, null, 1, false));
+        writer.close();
+
+        Assertions.assertEquals(1, meterRegistry.get(SlowQueryLogWriter.ENTRIES_METRIC)
+                .tag("type", "slow").functionCounter().count());
+        Assertions.assertEquals(2, meterRegistry.get(SlowQueryLogWriter.ENTRIES_METRIC)
+                .tag("type", "sampled").functionCounter().count());
+        Assertions.assertEquals(0, meterRegistry.get(SlowQueryLogWriter.DROPPED_METRIC).functionCounter().count());
+    }
+}
@@ -0,0 +1,47 @@
+package ru.project.buySellStore.statistics;
+
+import org.junit.jupiter.api.Assertions;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * <b>Проверки количества SQL за HTTP-запрос в тестах MockMvc.</b>
+ * <p>
+ *     Читают заголовки {@link SqlStatisticsFilter}, поэтому в контексте теста должны быть включены
+ *     фильтры и свойство {@code buy-sell-store.sql-statistics.headers}. Используются, чтобы
+ *     лишние запросы к базе данных, например N+1, не проходили сборку
+ * </p>
+ */
+public final class SqlStatementMatchers {
+
+    private SqlStatementMatchers() {
+    }
+
+    /**
+     * Проверить, что запрос обратился к базе данных не более указанного количества раз
+     * @param max наибольшее допустимое количество обращений
+     */
+    public static ResultMatcher statementsAtMost(int max) {
+        return result -> {
+            int statements = header(result.getResponse().getHeader(SqlStatisticsFilter.STATEMENTS_HEADER));
+            Assertions.assertTrue(statements <= max, () -> "%s %s: ожидалось обращений к базе данных не более %d, выполнено %d"
+                    .formatted(result.getRequest().getMethod(), result.getRequest().getRequestURI(), max, statements));
+        };
+    }
+
+    /**
+     * Проверить, что запрос загрузил не более указанного количества сущностей
+     * @param max наибольшее допустимое количество сущностей
+     */
+    public static ResultMatcher entitiesLoadedAtMost(int max) {
+        return result -> {
+            int entities = header(result.getResponse().getHeader(SqlStatisticsFilter.ENTITIES_HEADER));
+            Assertions.assertTrue(entities <= max, () -> "%s %s: ожидалось загруженных сущностей не более %d, загружено %d"
+                    .formatted(result.getRequest().getMethod(), result.getRequest().getRequestURI(), max, entities));
+        };
+    }
+
+    private static int header(String value) {
+        Assertions.assertNotNull(value, "Нет заголовков подсчета SQL: включите buy-sell-store.sql-statistics.headers");
+        return Integer.parseInt(value);
+    }
+}
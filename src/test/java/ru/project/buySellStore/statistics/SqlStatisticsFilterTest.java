@@ -0,0 +1,101 @@
+package ru.project.buySellStore.statistics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тесты для фильтра подсчета SQL
+ */
+class SqlStatisticsFilterTest {
+
+    private MeterRegistry meterRegistry;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        request = new MockHttpServletRequest("PATCH", "/api/products/1");
+        response = new MockHttpServletResponse();
+    }
+
+    /**
+     * Проверяет запрос в диагностическом режиме
+     *
+     * Ожидается, что счетчики переданы в заголовках и метриках по шаблону пути, а тело ответа не потеряно
+     */
+    @Test
+    void doFilterWithHeadersTest() throws Exception {
+        new SqlStatisticsFilter(meterRegistry, true, Set.of()).doFilter(request, response,
+                (filterRequest, filterResponse) -> {
+                    SqlStatistics statistics = SqlStatistics.current();
+                    statistics.statementExecuted(TimeUnit.MILLISECONDS.toNanos(2));
+                    statistics.statementExecuted(TimeUnit.MILLISECONDS.toNanos(1));
+                    statistics.entityLoaded();
+                    filterRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/products/{id}");
+                    filterResponse.setCharacterEncoding("UTF-8");
+                    filterResponse.getWriter().write("Продукт изменен!");
+                });
+
+        Assertions.assertEquals("2", response.getHeader(SqlStatisticsFilter.STATEMENTS_HEADER));
+        Assertions.assertEquals("1", response.getHeader(SqlStatisticsFilter.ENTITIES_HEADER));
+        Assertions.assertEquals("3.000", response.getHeader(SqlStatisticsFilter.TIME_HEADER));
+        Assertions.assertEquals("Продукт изменен!", response.getContentAsString());
+        Assertions.assertEquals(2, meterRegistry.get(SqlStatisticsFilter.STATEMENTS_METRIC)
+                .tag("method", "PATCH")
+                .tag("uri", "/api/products/{id}")
+                .summary().totalAmount());
+        Assertions.assertEquals(3, meterRegistry.get(SqlStatisticsFilter.TIME_METRIC)
+                .timer().totalTime(TimeUnit.MILLISECONDS));
+        Assertions.assertNull(SqlStatistics.current());
+    }
+
+    /**
+     * Проверяет запрос без диагностического режима
+     *
+     * Ожидается, что счетчики попадают только в метрики
+     */
+    @Test
+    void doFilterWithoutHeadersTest() throws Exception {
+        new SqlStatisticsFilter(meterRegistry, false, Set.of()).doFilter(request, response,
+                (filterRequest, filterResponse) -> SqlStatistics.current().statementExecuted(1));
+
+        Assertions.assertNull(response.getHeader(SqlStatisticsFilter.STATEMENTS_HEADER));
+        Assertions.assertEquals(1, meterRegistry.get(SqlStatisticsFilter.STATEMENTS_METRIC)
+                .tag("uri", "UNKNOWN")
+                .summary().count());
+    }
+
+    /**
+     * Проверяет потоковый ответ в диагностическом режиме
+     *
+     * Ожидается, что ответ не буферизуется и не получает заголовков, а счетчики попадают в метрики
+     */
+    @Test
+    void doFilterStreamingTest() throws Exception {
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/products/export");
+        new SqlStatisticsFilter(meterRegistry, true, Set.of("/api/products/export")).doFilter(export, response,
+                (filterRequest, filterResponse) -> {
+                    Assertions.assertSame(response, filterResponse);
+                    SqlStatistics.current().statementExecuted(1);
+                    filterResponse.getOutputStream().write('{');
+                    filterResponse.flushBuffer();
+                });
+
+        Assertions.assertTrue(response.isCommitted());
+        Assertions.assertNull(response.getHeader(SqlStatisticsFilter.STATEMENTS_HEADER));
+        Assertions.assertEquals(1, meterRegistry.get(SqlStatisticsFilter.STATEMENTS_METRIC)
+                .summary().count());
+    }
+}